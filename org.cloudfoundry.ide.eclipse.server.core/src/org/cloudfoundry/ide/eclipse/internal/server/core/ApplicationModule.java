@@ -74,6 +74,8 @@ public class ApplicationModule extends ExternalModule {
 
 	private DeploymentInfo lastDeploymentInfo;
 
+	private DeploymentTimeline lastDeploymentTimeline;
+
 	private Staging staging;
 	
 	private StandaloneWithContainer standaloneWithContainerInfo;
@@ -142,6 +144,15 @@ public class ApplicationModule extends ExternalModule {
 		return lastDeploymentInfo;
 	}
 
+	/**
+	 *
+	 * @return phase timings of the last deployment of this application in
+	 * the current session, or null if it has not been deployed.
+	 */
+	public synchronized DeploymentTimeline getLastDeploymentTimeline() {
+		return lastDeploymentTimeline;
+	}
+
 	public IModule getLocalModule() {
 		return localModule;
 	}
@@ -217,6 +228,10 @@ public class ApplicationModule extends ExternalModule {
 		this.lastDeploymentInfo = lastDeploymentInfo;
 	}
 
+	public synchronized void setLastDeploymentTimeline(DeploymentTimeline lastDeploymentTimeline) {
+		this.lastDeploymentTimeline = lastDeploymentTimeline;
+	}
+
 	public synchronized void setErrorStatus(CoreException error) {
 		this.error = error;
 	}
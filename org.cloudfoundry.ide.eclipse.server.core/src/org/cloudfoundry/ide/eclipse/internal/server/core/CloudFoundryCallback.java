@@ -57,6 +57,8 @@ public abstract class CloudFoundryCallback {
 		
 		public StandaloneWithContainer standaloneWithContainer;
 
+		public DeploymentTimeline deploymentTimeline;
+
 	}
 
 	public abstract void deleteServices(List<String> services, CloudFoundryServer cloudServer);
@@ -67,4 +69,15 @@ public abstract class CloudFoundryCallback {
 		return true;
 	}
 
+	/**
+	 * 
+	 * @param server
+	 * @return true if the server is shown to the user, for example in an
+	 * editor or view. Automatic refresh of the server is paused while it is
+	 * not shown.
+	 */
+	public boolean isServerShown(CloudFoundryServer server) {
+		return true;
+	}
+
 }
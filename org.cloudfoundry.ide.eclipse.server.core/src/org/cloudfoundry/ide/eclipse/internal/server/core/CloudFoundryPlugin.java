@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.core;
 
+import java.io.File;
 import java.net.URL;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -17,8 +18,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import org.cloudfoundry.client.lib.CloudCredentials;
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.client.lib.domain.CloudSpace;
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugLaunchConfigurationRegistry;
+import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudSpacesDescriptorCache;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.StatsAggregator;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottAppStateCache;
 import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottTunnelCache;
 import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottTunnelDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelConnectionPool;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelExecutor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelPortAllocator;
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -33,6 +41,9 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.IServerLifecycleListener;
+import org.eclipse.wst.server.core.ServerCore;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.prefs.BackingStoreException;
@@ -165,6 +176,14 @@ public class CloudFoundryPlugin extends Plugin {
 
 	public static final boolean DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL = true;
 
+	public static final String ENABLE_RESUMABLE_UPLOAD_PREFERENCE = PLUGIN_ID + ".publish.resumable.upload.properties";
+
+	public static final boolean DEFAULT_RESUMABLE_UPLOAD_PREFERENCE_VAL = false;
+
+	public static final String TUNNEL_MAX_LOCAL_CONNECTIONS_PREFERENCE = PLUGIN_ID + ".tunnel.max.local.connections";
+
+	private static final String UPLOAD_PROGRESS_FOLDER = "uploads";
+
 	private static CloudFoundryCallback callback;
 
 	private static ModuleCache moduleCache;
@@ -175,6 +194,24 @@ public class CloudFoundryPlugin extends Plugin {
 
 	private DeployedResourceCache sha1Cache = new DeployedResourceCache();
 
+	/**
+	 * Discards the cached resources of the applications of removed servers
+	 */
+	private final IServerLifecycleListener serverLifecycleListener = new IServerLifecycleListener() {
+
+		public void serverAdded(IServer server) {
+			// ignore
+		}
+
+		public void serverChanged(IServer server) {
+			// ignore
+		}
+
+		public void serverRemoved(IServer server) {
+			getDeployedResourcesCache().removeServer(server.getId());
+		}
+	};
+
 	private InstanceScope INSTANCE_SCOPE = new InstanceScope();
 
 	private static CaldecottTunnelCache caldecottCache = new CaldecottTunnelCache();
@@ -183,6 +220,76 @@ public class CloudFoundryPlugin extends Plugin {
 		return caldecottCache;
 	}
 
+	private static CaldecottAppStateCache caldecottAppStateCache = new CaldecottAppStateCache();
+
+	public static CaldecottAppStateCache getCaldecottAppStateCache() {
+		return caldecottAppStateCache;
+	}
+
+	private static DebugLaunchConfigurationRegistry debugLaunchConfigurationRegistry = new DebugLaunchConfigurationRegistry();
+
+	public static DebugLaunchConfigurationRegistry getDebugLaunchConfigurationRegistry() {
+		return debugLaunchConfigurationRegistry;
+	}
+
+	private static RefreshScheduler refreshScheduler = new RefreshScheduler();
+
+	public static RefreshScheduler getRefreshScheduler() {
+		return refreshScheduler;
+	}
+
+	private static StatsAggregator statsAggregator = new StatsAggregator();
+
+	/**
+	 * 
+	 * @return aggregated stats of the applications of all servers, updated
+	 * each time application stats are fetched
+	 */
+	public static StatsAggregator getStatsAggregator() {
+		return statsAggregator;
+	}
+
+	private static DeploymentPrefetcher deploymentPrefetcher = new DeploymentPrefetcher();
+
+	/**
+	 * 
+	 * @return prefetcher of the deployment options and services of connected
+	 * servers, shown by the deployment wizard
+	 */
+	public static DeploymentPrefetcher getDeploymentPrefetcher() {
+		return deploymentPrefetcher;
+	}
+
+	private static CloudSpacesDescriptorCache cloudSpacesDescriptorCache = new CloudSpacesDescriptorCache();
+
+	/**
+	 * 
+	 * @return orgs and spaces of each URL and user, shared by all wizards
+	 * and servers
+	 */
+	public static CloudSpacesDescriptorCache getCloudSpacesDescriptorCache() {
+		return cloudSpacesDescriptorCache;
+	}
+
+	private static TunnelExecutor tunnelExecutor;
+
+	private static TunnelPortAllocator tunnelPortAllocator = new TunnelPortAllocator();
+
+	public static TunnelPortAllocator getTunnelPortAllocator() {
+		return tunnelPortAllocator;
+	}
+
+	/**
+	 * 
+	 * @return shared I/O thread pool used by all Caldecott tunnel servers
+	 */
+	public static synchronized TunnelExecutor getTunnelExecutor() {
+		if (tunnelExecutor == null) {
+			tunnelExecutor = new TunnelExecutor();
+		}
+		return tunnelExecutor;
+	}
+
 	public static synchronized CloudFoundryCallback getCallback() {
 		if (callback == null) {
 			callback = ExtensionPointReader.readExtension();
@@ -209,6 +316,62 @@ public class CloudFoundryPlugin extends Plugin {
 				DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL);
 	}
 
+	public synchronized void setResumableUpload(boolean resumableUpload) {
+		IEclipsePreferences prefs = getPreferences();
+		prefs.putBoolean(ENABLE_RESUMABLE_UPLOAD_PREFERENCE, resumableUpload);
+		try {
+			prefs.flush();
+		}
+		catch (BackingStoreException e) {
+			logError(e);
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if application archives should be uploaded in chunks that
+	 * can be resumed if the upload fails. False otherwise.
+	 */
+	public synchronized boolean getResumableUpload() {
+		return getPreferences().getBoolean(ENABLE_RESUMABLE_UPLOAD_PREFERENCE, DEFAULT_RESUMABLE_UPLOAD_PREFERENCE_VAL);
+	}
+
+	public synchronized void setTunnelMaxLocalConnections(int maxLocalConnections) {
+		IEclipsePreferences prefs = getPreferences();
+		prefs.putInt(TUNNEL_MAX_LOCAL_CONNECTIONS_PREFERENCE, maxLocalConnections);
+		try {
+			prefs.flush();
+		}
+		catch (BackingStoreException e) {
+			logError(e);
+		}
+	}
+
+	/**
+	 * 
+	 * @return maximum number of local connections through each Caldecott
+	 * tunnel that transfer data at the same time, which sizes the HTTP
+	 * connection pool of the tunnel
+	 */
+	public synchronized int getTunnelMaxLocalConnections() {
+		return getPreferences().getInt(TUNNEL_MAX_LOCAL_CONNECTIONS_PREFERENCE,
+				TunnelConnectionPool.DEFAULT_MAX_LOCAL_CONNECTIONS);
+	}
+
+	/**
+	 * 
+	 * @param serverUrl
+	 * @param appName
+	 * @return file in the plugin state location where the progress of a
+	 * resumable upload of the given application is recorded.
+	 */
+	public File getUploadProgressFile(String serverUrl, String appName) {
+		String key = serverUrl + "/" + appName;
+		String fileName = appName.replaceAll("[^a-zA-Z0-9_\\-]", "_") + "-" + Integer.toHexString(key.hashCode())
+				+ ".properties";
+		return getStateLocation().append(UPLOAD_PROGRESS_FOLDER).append(fileName).toFile();
+	}
+
 	protected IEclipsePreferences getPreferences() {
 		return INSTANCE_SCOPE.getNode(PLUGIN_ID);
 	}
@@ -305,15 +468,31 @@ public class CloudFoundryPlugin extends Plugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		addServerListener(caldecottAppStateCache);
+		addServerListener(statsAggregator);
+		addServerListener(deploymentPrefetcher);
+		ServerCore.addServerLifecycleListener(serverLifecycleListener);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		removeServerListener(caldecottAppStateCache);
+		removeServerListener(statsAggregator);
+		removeServerListener(deploymentPrefetcher);
+		ServerCore.removeServerLifecycleListener(serverLifecycleListener);
+
 		if (tracker != null) {
 			tracker.close();
 			tracker = null;
 		}
 
+		synchronized (CloudFoundryPlugin.class) {
+			if (tunnelExecutor != null) {
+				tunnelExecutor.shutdown();
+				tunnelExecutor = null;
+			}
+		}
+
 		plugin = null;
 		super.stop(context);
 	}
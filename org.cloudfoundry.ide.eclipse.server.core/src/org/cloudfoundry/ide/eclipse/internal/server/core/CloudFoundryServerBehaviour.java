@@ -18,16 +18,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.ZipFile;
 
 import org.cloudfoundry.client.lib.CloudCredentials;
 import org.cloudfoundry.client.lib.CloudFoundryException;
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.client.lib.UploadStatusCallback;
 import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ZipApplicationArchive;
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
@@ -38,6 +41,8 @@ import org.cloudfoundry.client.lib.domain.InstancesInfo;
 import org.cloudfoundry.client.lib.domain.ServiceConfiguration;
 import org.cloudfoundry.client.lib.domain.Staging;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryCallback.DeploymentDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.CachedDeployedApplication;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentTimeline.Phase;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.CloudFoundryProperties;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugCommandBuilder;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugModeType;
@@ -46,6 +51,7 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudSpaceServer
 import org.cloudfoundry.ide.eclipse.internal.server.core.standalone.StandaloneApplicationArchive;
 import org.cloudfoundry.ide.eclipse.internal.server.core.standalone.StandaloneApplicationArchiveWithContainer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.standalone.StandaloneHandler;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottAppState;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -100,6 +106,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 	private CloudFoundryOperations client;
 
+	private final ResponseContentCache responseCache = new ResponseContentCache();
+
 	private RefreshJob refreshJob;
 
 	private Boolean supportsSpaces = null;
@@ -227,11 +235,15 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							}
 
 							client.deleteApplication(appModule.getApplicationId());
+							invalidateCaldecottAppState(appModule.getApplicationId());
 
 							break;
 						}
 					}
 					cloudServer.removeApplication(appModule);
+					CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
+							.removeApplication(
+									new CachedDeployedApplication(getServer().getId(), appModule.getApplicationId()));
 					appModule.setLastDeploymentInfo(null);
 					appModule.setCloudApplication(null);
 
@@ -278,6 +290,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		appModule.setLastApplicationInfo(applicationInfo);
 		appModule.setLastDeploymentInfo(descriptor.deploymentInfo);
 
+		DeploymentTimeline timeline = descriptor.deploymentTimeline;
+		if (timeline == null) {
+			timeline = new DeploymentTimeline(applicationId);
+			descriptor.deploymentTimeline = timeline;
+		}
+		appModule.setLastDeploymentTimeline(timeline);
+
 		// publish application
 		try {
 			List<CloudApplication> existingApps = client.getApplications();
@@ -306,15 +325,39 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				}
 			}
 			File warFile = applicationInfo.getWarFile();
+			boolean resumableUpload = CloudFoundryPlugin.getDefault().getResumableUpload();
 
 			if (warFile != null) {
-				client.uploadApplication(applicationId, warFile);
+				if (resumableUpload) {
+					ZipFile zipFile = new ZipFile(warFile);
+					try {
+						timeline.start(Phase.UPLOAD);
+						uploadResumable(client, applicationId, new ZipApplicationArchive(zipFile), null, monitor);
+					}
+					finally {
+						zipFile.close();
+					}
+				}
+				else {
+					// Digests of the war file entries are computed by the
+					// client, so they are part of the resource match phase
+					timeline.start(Phase.RESOURCE_MATCH);
+					client.uploadApplication(applicationId, warFile, timeline.getTimedCallback(null));
+				}
 			}
 			else {
 				ApplicationArchive archive = descriptor.applicationArchive;
+
+				// Module archives compute their entries lazily on first access
+				timeline.start(Phase.ARCHIVE_SCAN);
+				for (Iterator<ApplicationArchive.Entry> it = archive.getEntries().iterator(); it.hasNext();) {
+					it.next();
+				}
+				timeline.end(Phase.ARCHIVE_SCAN);
+
 				if (archive instanceof ModuleResourceApplicationArchive) {
 					final ModuleResourceApplicationArchive moduleArchive = (ModuleResourceApplicationArchive) archive;
-					client.uploadApplication(applicationId, archive, new UploadStatusCallback() {
+					UploadStatusCallback callback = new UploadStatusCallback() {
 
 						public void onProcessMatchedResources(int length) {
 
@@ -327,14 +370,30 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 						public void onCheckResources() {
 
 						}
-					});
+					};
 
-					// Once the application has run, do a clean up of the sha1
-					// cache for deleted resources
+					if (resumableUpload) {
+						timeline.start(Phase.UPLOAD);
+						uploadResumable(client, applicationId, archive, callback, monitor);
+					}
+					else {
+						timeline.start(Phase.RESOURCE_MATCH);
+						client.uploadApplication(applicationId, timeline.getTimedArchive(archive),
+								timeline.getTimedCallback(callback));
+					}
 
+					// Once the application has uploaded, do a clean up of the
+					// sha1 cache for deleted resources
+					moduleArchive.evictDeletedResources();
+				}
+				else if (resumableUpload) {
+					timeline.start(Phase.UPLOAD);
+					uploadResumable(client, applicationId, archive, null, monitor);
 				}
 				else {
-					client.uploadApplication(applicationId, archive);
+					timeline.start(Phase.RESOURCE_MATCH);
+					client.uploadApplication(applicationId, timeline.getTimedArchive(archive),
+							timeline.getTimedCallback(null));
 				}
 			}
 
@@ -352,6 +411,20 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		catch (InterruptedException e) {
 			throw new OperationCanceledException();
 		}
+		finally {
+			timeline.end(Phase.UPLOAD);
+		}
+	}
+
+	/**
+	 * Uploads the archive in chunks, resuming from the last chunk acknowledged
+	 * by the server if a previous upload of the same content failed.
+	 */
+	protected void uploadResumable(CloudFoundryOperations client, String applicationId, ApplicationArchive archive,
+			UploadStatusCallback callback, IProgressMonitor monitor) throws IOException, CoreException {
+		File progressFile = CloudFoundryPlugin.getDefault().getUploadProgressFile(getCloudFoundryServer().getUrl(),
+				applicationId);
+		new ResumableApplicationUpload(client, applicationId, archive, callback, progressFile).upload(monitor);
 	}
 
 	protected List<IModuleResource> getChangedResources(IModuleResourceDelta[] deltas) {
@@ -390,6 +463,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 		Set<ApplicationModule> deletedModules = new HashSet<ApplicationModule>(cloudServer.getApplications());
 		cloudServer.clearApplications();
+		responseCache.clear();
+		CloudFoundryPlugin.getDeploymentPrefetcher().getCache().clear(cloudServer.getServerId());
 
 		// update state for cloud applications
 		server.setExternalModules(new IModule[0]);
@@ -450,7 +525,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				if (client.supportsSpaces()) {
 					appStarted(applicationId, client, progress);
 				}
-				return client.getApplicationStats(applicationId);
+				ApplicationStats stats = client.getApplicationStats(applicationId);
+				CloudFoundryPlugin.getStatsAggregator().update(getCloudFoundryServer(), applicationId, stats);
+				return stats;
 			}
 		}.run(monitor);
 	}
@@ -479,6 +556,18 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return false;
 	}
 
+	/**
+	 * Returns the phase timings of the last deployment of the given module in
+	 * the current session, including upload throughput.
+	 * @param module
+	 * @return deployment timeline, or null if the module has not been deployed
+	 * in the current session.
+	 */
+	public DeploymentTimeline getDeploymentTimeline(IModule module) {
+		ApplicationModule appModule = getCloudFoundryServer().getApplication(module);
+		return appModule != null ? appModule.getLastDeploymentTimeline() : null;
+	}
+
 	public InstancesInfo getInstancesInfo(final String applicationId, IProgressMonitor monitor) throws CoreException {
 		return new Request<InstancesInfo>(NLS.bind("Getting application statistics for {0}", applicationId)) {
 			@Override
@@ -530,6 +619,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				client.getServices();
 				configuration.setMemoryOptions(getApplicationMemoryChoices());
 				configuration.setDefaultMemory(client.getDefaultApplicationMemory(framework));
+				CloudFoundryPlugin.getDeploymentPrefetcher().getCache()
+						.putDeploymentConfiguration(getCloudFoundryServer().getServerId(), framework, configuration);
 				return configuration;
 			}
 		}.run(monitor);
@@ -562,12 +653,29 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return new Request<List<CloudService>>("Getting available services") {
 			@Override
 			protected List<CloudService> doRun(CloudFoundryOperations client, SubMonitor progress) throws CoreException {
-				return client.getServices();
+				// Return the same list as the previous call if the services
+				// have not changed, so that callers can skip updates
+				List<CloudService> services = client.getServices();
+				services = responseCache.getResponse(ResponseContentCache.SERVICES, services,
+						ResponseContentCache.getServicesContent(services));
+				CloudFoundryPlugin.getDeploymentPrefetcher().getCache()
+						.putServices(getCloudFoundryServer().getServerId(), services);
+				return services;
 			}
 		}.run(monitor);
 	}
 
 	public void refreshModules(IProgressMonitor monitor) throws CoreException {
+		refreshModulesInBackground(monitor);
+
+		setRefreshInterval(DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Refreshes the modules without rescheduling the automatic refresh, which
+	 * keeps its backoff.
+	 */
+	void refreshModulesInBackground(IProgressMonitor monitor) throws CoreException {
 		final CloudFoundryServer cloudServer = getCloudFoundryServer();
 
 		new Request<Void>() {
@@ -579,8 +687,6 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		}.run(monitor);
 
 		CloudFoundryPlugin.getDefault().fireServerRefreshed(cloudServer);
-
-		setRefreshInterval(DEFAULT_INTERVAL);
 	}
 
 	/**
@@ -618,6 +724,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 	public void resetClient() {
 		client = null;
+		responseCache.clear();
 	}
 
 	protected DeploymentDescriptor getDeploymentDescriptor(IModule[] modules, IProgressMonitor monitor)
@@ -774,11 +881,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	public void stopModule(IModule[] modules, IProgressMonitor monitor) throws CoreException {
 		Server server = (Server) getServer();
 		boolean succeeded = false;
+		String appName = null;
 		try {
 			server.setModuleState(modules, IServer.STATE_STOPPING);
 
 			CloudFoundryServer cloudServer = getCloudFoundryServer();
 			final ApplicationModule cloudModule = cloudServer.getApplication(modules[0]);
+			appName = cloudModule.getApplicationId();
 
 			CloudFoundryPlugin.getCallback().applicationStopping(getCloudFoundryServer(), cloudModule);
 			new Request<Void>() {
@@ -800,12 +909,26 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			}
 		}
 		finally {
+			// The cached Caldecott app state is out of date whether the
+			// stop succeeded or not
+			invalidateCaldecottAppState(appName);
 			if (!succeeded) {
 				server.setModuleState(modules, IServer.STATE_UNKNOWN);
 			}
 		}
 	}
 
+	/**
+	 * Discards the cached state of the Caldecott application if the given
+	 * application is the Caldecott application, so that tunnel operations do
+	 * not rely on a state the application is no longer in.
+	 */
+	protected void invalidateCaldecottAppState(String appName) {
+		if (appName != null && TunnelBehaviour.isCaldecottApp(appName)) {
+			CloudFoundryPlugin.getCaldecottAppStateCache().invalidate(getCloudFoundryServer());
+		}
+	}
+
 	/**
 	 * Updates and restarts an application in debug mode. Incremental publish
 	 * will occur on update restarts if any changes are detected.
@@ -943,18 +1066,27 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			List<String> servicesToUpdate) {
 		List<String> services = new ArrayList<String>();
 
-		CloudApplication caldecottApp = client.getApplication(appName);
-		if (caldecottApp != null) {
-			List<String> existingServices = caldecottApp.getServices();
-			if (existingServices != null) {
-				Set<String> possibleDeletedServices = new HashSet<String>(existingServices);
-				for (String updatedService : servicesToUpdate) {
-					if (possibleDeletedServices.contains(updatedService)) {
-						possibleDeletedServices.remove(updatedService);
-					}
+		// Use the cached Caldecott application state if available, to avoid
+		// querying the controller
+		List<String> existingServices = null;
+		CaldecottAppState state = TunnelBehaviour.isCaldecottApp(appName) ? CloudFoundryPlugin
+				.getCaldecottAppStateCache().getState(getCloudFoundryServer()) : null;
+		if (state != null) {
+			existingServices = state.getServices();
+		}
+		else {
+			CloudApplication caldecottApp = client.getApplication(appName);
+			existingServices = caldecottApp != null ? caldecottApp.getServices() : null;
+		}
+
+		if (existingServices != null) {
+			Set<String> possibleDeletedServices = new HashSet<String>(existingServices);
+			for (String updatedService : servicesToUpdate) {
+				if (possibleDeletedServices.contains(updatedService)) {
+					possibleDeletedServices.remove(updatedService);
 				}
-				services.addAll(possibleDeletedServices);
 			}
+			services.addAll(possibleDeletedServices);
 		}
 		return services;
 	}
@@ -1009,6 +1141,10 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 				client.updateApplicationServices(appName, services);
 
+				if (TunnelBehaviour.isCaldecottApp(appName)) {
+					CloudFoundryPlugin.getCaldecottAppStateCache().invalidate(getCloudFoundryServer());
+				}
+
 				return null;
 			}
 		}.run(monitor);
@@ -1121,11 +1257,34 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		Map<String, CloudApplication> applicationByName = new LinkedHashMap<String, CloudApplication>();
 
 		List<CloudApplication> applications = client.getApplications();
+
+		// Skip updating the modules if neither the applications nor the
+		// local modules changed since the last update
+		if (responseCache.matches(ResponseContentCache.APPLICATIONS, getModulesContent(cloudServer, applications))) {
+			return;
+		}
+
 		for (CloudApplication application : applications) {
 			applicationByName.put(application.getName(), application);
 		}
 
 		cloudServer.updateModules(applicationByName);
+		responseCache.put(ResponseContentCache.APPLICATIONS, getModulesContent(cloudServer, applications));
+	}
+
+	/**
+	 * 
+	 * @return content of the given applications, and of the local modules and
+	 * their states, as updated from the applications
+	 */
+	protected String getModulesContent(CloudFoundryServer cloudServer, List<CloudApplication> applications) {
+		StringBuilder content = new StringBuilder(ResponseContentCache.getApplicationsContent(applications));
+		IServer server = cloudServer.getServerOriginal();
+		for (IModule module : server.getModules()) {
+			content.append(module.getId()).append('|').append(server.getModuleState(new IModule[] { module }))
+					.append('\n');
+		}
+		return content.toString();
 	}
 
 	@Override
@@ -1562,6 +1721,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				ApplicationModule deployedModule = performDeployment(monitor, descriptor);
 
 				if (descriptor.deploymentMode == ApplicationAction.DEBUG) {
+					// Debug ports of the instances from a previous run are no
+					// longer valid
+					deployedModule.setInstancesInfo(null);
 					new DebugCommandBuilder(modules, cloudServer).getDebugCommand(
 							ApplicationAction.CONNECT_TO_DEBUGGER, null).run(monitor);
 				}
@@ -1578,6 +1740,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				// ignore so webtools does not show an exception
 				((Server) getServer()).setModuleState(modules, IServer.STATE_UNKNOWN);
 			}
+			finally {
+				// Starting, restarting and update-restarting the Caldecott
+				// app change its state
+				if (descriptor != null && descriptor.applicationInfo != null) {
+					invalidateCaldecottAppState(descriptor.applicationInfo.getAppName());
+				}
+			}
 			return null;
 		}
 
@@ -1630,6 +1799,8 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 						boolean started = false;
 						final String applicationId = descriptor.applicationInfo.getAppName();
+						final DeploymentTimeline timeline = new DeploymentTimeline(applicationId);
+						descriptor.deploymentTimeline = timeline;
 
 						if (modules[0].isExternal()) {
 							restartOrDebugApplicationInClient(applicationId, client, descriptor.deploymentMode);
@@ -1683,7 +1854,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							}
 							else {
 								// Create a full war archive
+								timeline.start(Phase.WAR_BUILD);
 								File warFile = CloudUtil.createWarFile(modules, server, progress);
+								timeline.end(Phase.WAR_BUILD);
 								if (!warFile.exists()) {
 									throw new CoreException(new Status(IStatus.ERROR, CloudFoundryPlugin.PLUGIN_ID,
 											"Unable to create war file"));
@@ -1720,7 +1893,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							// start application in either regular or debug mode
 							if (descriptor.deploymentMode != null) {
 								CloudFoundryPlugin.trace("Application " + applicationId + " starting");
+								timeline.start(Phase.STAGING);
 								restartOrDebugApplicationInClient(applicationId, client, descriptor.deploymentMode);
+								timeline.end(Phase.STAGING);
 								started = true;
 							}
 							else {
@@ -1728,8 +1903,14 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 							}
 						}
 
-						if (started) {
-							refreshAfterDeployment(started, client, cloudModule, cloudServer, applicationId, progress);
+						try {
+							if (started) {
+								refreshAfterDeployment(started, client, cloudModule, cloudServer, applicationId,
+										progress);
+							}
+						}
+						finally {
+							timeline.complete();
 						}
 
 						return started;
@@ -1763,7 +1944,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		IModuleResourceDelta[] deltas = getPublishedResourceDelta(modules);
 		List<IModuleResource> changedResources = getChangedResources(deltas);
 		ApplicationArchive moduleArchive = new ModuleResourceApplicationArchive(Arrays.asList(allResources),
-				changedResources, modules[0], descriptor.applicationInfo.getAppName(), descriptor);
+				changedResources, modules[0], getServer().getId(), descriptor.applicationInfo.getAppName(), descriptor);
 
 		descriptor.applicationArchive = moduleArchive;
 
@@ -1773,7 +1954,15 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			ApplicationModule cloudModule, CloudFoundryServer cloudServer, String applicationId,
 			IProgressMonitor progress) throws CoreException {
 		if (waitForDeployment) {
+			// Only record the start phase for a deployment in progress
+			DeploymentTimeline timeline = cloudModule.getLastDeploymentTimeline();
+			if (timeline != null && timeline.isComplete()) {
+				timeline = null;
+			}
 			try {
+				if (timeline != null) {
+					timeline.start(Phase.START);
+				}
 				if (!waitForStart(client, cloudModule.getApplicationId(), progress)) {
 					throw new CoreException(new Status(IStatus.ERROR, CloudFoundryPlugin.PLUGIN_ID, NLS.bind(
 							"Deployment of {0} timed out", cloudModule.getName())));
@@ -1782,6 +1971,11 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 			catch (InterruptedException e) {
 				throw new OperationCanceledException();
 			}
+			finally {
+				if (timeline != null) {
+					timeline.end(Phase.START);
+				}
+			}
 
 			CloudFoundryPlugin.trace("Application " + applicationId + " started");
 			doRefreshModules(cloudServer, client, progress);
@@ -22,6 +22,12 @@ import org.eclipse.core.runtime.Assert;
  */
 public class CloudServerEvent extends EventObject {
 
+	/**
+	 * Type of the events fired when the server and its modules have been
+	 * refreshed.
+	 */
+	public static final int EVENT_SERVER_REFRESHED = -1;
+
 	public static final int EVENT_UPDATE_INSTANCES = 100;
 	
 	public static final int EVENT_UPDATE_SERVICES = 200;
@@ -30,7 +36,7 @@ public class CloudServerEvent extends EventObject {
 
 	private static final long serialVersionUID = 1L;
 
-	private int type = -1;
+	private int type = EVENT_SERVER_REFRESHED;
 
 	public CloudServerEvent(CloudFoundryServer server) {
 		super(server);
@@ -106,6 +106,25 @@ public class CloudUtil {
 	 */
 	public static File createWarFile(List<IModuleResource> allResources, IModule module,
 			Set<IModuleResource> filterInResources, IProgressMonitor monitor) throws CoreException {
+		return createWarFile(allResources, module, filterInResources, null, monitor);
+	}
+
+	/**
+	 * Creates a partial war file containing only the resources listed in the
+	 * list to filter in, using the given table to resolve zip entry names.
+	 * @param allResources
+	 * @param module
+	 * @param filterInResources
+	 * @param names zip-relative names of the resources. If null, names are
+	 * computed for each resource.
+	 * @param monitor
+	 * @return partial war file with resources specified in the filter in list,
+	 * or null if filter list is empty or null
+	 * @throws CoreException
+	 */
+	public static File createWarFile(List<IModuleResource> allResources, IModule module,
+			Set<IModuleResource> filterInResources, ZipRelativeNameTable names, IProgressMonitor monitor)
+			throws CoreException {
 		if (allResources == null || allResources.isEmpty() || filterInResources == null || filterInResources.isEmpty()) {
 			return null;
 		}
@@ -124,7 +143,7 @@ public class CloudUtil {
 				newResources.add(processModuleResource(mr));
 			}
 
-			IStatus[] status = publishZip(allResources, warFile, filterInResources, monitor);
+			IStatus[] status = publishZip(allResources, warFile, filterInResources, names, monitor);
 			merge(result, status);
 			throwException(result, NLS.bind("Publishing of ''{0}'' failed", module.getName()));
 
@@ -370,13 +389,18 @@ public class CloudUtil {
 
 	public static IStatus[] publishZip(List<IModuleResource> allResources, File tempFile,
 			Set<IModuleResource> filterInFiles, IProgressMonitor monitor) {
+		return publishZip(allResources, tempFile, filterInFiles, null, monitor);
+	}
+
+	public static IStatus[] publishZip(List<IModuleResource> allResources, File tempFile,
+			Set<IModuleResource> filterInFiles, ZipRelativeNameTable names, IProgressMonitor monitor) {
 
 		monitor = ProgressUtil.getMonitorFor(monitor);
 
 		try {
 			BufferedOutputStream bout = new BufferedOutputStream(new FileOutputStream(tempFile));
 			ZipOutputStream zout = new ZipOutputStream(bout);
-			addZipEntries(zout, allResources, filterInFiles);
+			addZipEntries(zout, allResources, filterInFiles, names);
 			zout.close();
 
 		}
@@ -410,8 +434,12 @@ public class CloudUtil {
 
 	}
 
+	private static String getZipRelativeName(IModuleResource resource, ZipRelativeNameTable names) {
+		return names != null ? names.getZipRelativeName(resource) : getZipRelativeName(resource);
+	}
+
 	private static void addZipEntries(ZipOutputStream out, List<IModuleResource> allResources,
-			Set<IModuleResource> filterInFiles) throws Exception {
+			Set<IModuleResource> filterInFiles, ZipRelativeNameTable names) throws Exception {
 		if (allResources == null)
 			return;
 
@@ -420,7 +448,7 @@ public class CloudUtil {
 
 				IModuleResource[] folderResources = ((IModuleFolder) resource).members();
 
-				String entryPath = getZipRelativeName(resource);
+				String entryPath = getZipRelativeName(resource, names);
 
 				ZipEntry zipEntry = new ZipEntry(entryPath);
 
@@ -437,7 +465,7 @@ public class CloudUtil {
 				out.putNextEntry(zipEntry);
 				out.closeEntry();
 
-				addZipEntries(out, Arrays.asList(folderResources), filterInFiles);
+				addZipEntries(out, Arrays.asList(folderResources), filterInFiles, names);
 				continue;
 			}
 
@@ -447,7 +475,7 @@ public class CloudUtil {
 				continue;
 			}
 
-			String entryPath = getZipRelativeName(resource);
+			String entryPath = getZipRelativeName(resource, names);
 
 			ZipEntry zipEntry = new ZipEntry(entryPath);
 
@@ -11,32 +11,522 @@
 package org.cloudfoundry.ide.eclipse.internal.server.core;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Cache for sha1 hash entries and file sizes for incremental publishing of
  * deployed resources. This avoid recalculating hash entries for resources that
  * have not changed in the server. A server poll may still required to obtain a
  * list of unchanged resources.
+ * <p/>
+ * Entries are striped per application of a server: each application has its
+ * own entry
+ * table with its own lock, so that archives of different applications can be
+ * built concurrently without contending on a single cache monitor. Entries
+ * should be obtained through
+ * {@link #computeIfAbsent(CachedDeployedApplication, String, EntryComputer)},
+ * which ensures that concurrent requests for the same resource share a single
+ * sha1 computation, and that the computation itself runs outside the lock.
+ * <p/>
+ * The cache is bounded by an estimate of the memory used by its entries. When
+ * the bound is exceeded, least recently used entries across all applications
+ * are evicted. Entries of resources that no longer exist in an application
+ * should be removed through {@link #retainEntries(CachedDeployedApplication, Set)},
+ * entries of deleted applications through
+ * {@link #removeApplication(CachedDeployedApplication)}, and entries of removed
+ * servers through {@link #removeServer(String)}.
  * 
  */
 public class DeployedResourceCache {
-	private final Map<CachedDeployedApplication, Map<String, DeployedResourceEntry>> cacheMap = new HashMap<CachedDeployedApplication, Map<String, DeployedResourceEntry>>();
 
-	public synchronized void add(CachedDeployedApplication applicationID, DeployedResourceEntry entry) {
-		Map<String, DeployedResourceEntry> appEntries = cacheMap.get(applicationID);
+	public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+	private final ConcurrentMap<CachedDeployedApplication, ApplicationEntries> applications = new ConcurrentHashMap<CachedDeployedApplication, ApplicationEntries>();
+
+	/**
+	 * Logical clock used to order entry accesses across applications
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final Object evictionLock = new Object();
+
+	private volatile long maxBytes;
+
+	/**
+	 * Computes a cache entry for a resource. Invoked at most once at a time for
+	 * the same resource, and never while holding a cache lock.
+	 */
+	public interface EntryComputer {
+
+		/**
+		 * 
+		 * @return computed entry, or null if no entry can be computed for the
+		 * resource, in which case nothing is cached.
+		 */
+		public DeployedResourceEntry computeEntry();
+	}
+
+	public DeployedResourceCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * 
+	 * @param maxBytes estimated memory bound of the cache. Entries are evicted
+	 * once the bound is exceeded.
+	 */
+	public DeployedResourceCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	public void add(CachedDeployedApplication applicationID, DeployedResourceEntry entry) {
+		while (!getApplicationEntries(applicationID).put(entry.getZipRelativeFileName(), entry)) {
+			// Application was removed concurrently. Add to a new entry table.
+		}
+		evict();
+	}
+
+	public DeployedResourceEntry getEntry(CachedDeployedApplication applicationID, String zipRelativeFileName) {
+		ApplicationEntries appEntries = applications.get(applicationID);
+		DeployedResourceEntry entry = appEntries != null ? appEntries.get(zipRelativeFileName) : null;
+		if (entry != null) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the cached entry for the given resource, or computes and caches
+	 * it if there is none. If the entry is already being computed by another
+	 * thread, this waits for that computation rather than repeating it.
+	 * @param applicationID
+	 * @param zipRelativeFileName
+	 * @param computer computes the entry if it is not cached
+	 * @return cached or computed entry, or null if none could be computed
+	 */
+	public DeployedResourceEntry computeIfAbsent(CachedDeployedApplication applicationID,
+			String zipRelativeFileName, EntryComputer computer) {
+		return compute(applicationID, zipRelativeFileName, computer, false);
+	}
+
+	/**
+	 * Computes and caches the entry for the given resource, replacing any
+	 * cached entry, for example, if the resource has changed. If the entry is
+	 * already being computed by another thread, this waits for that
+	 * computation rather than repeating it.
+	 * @param applicationID
+	 * @param zipRelativeFileName
+	 * @param computer computes the entry
+	 * @return computed entry, or null if none could be computed
+	 */
+	public DeployedResourceEntry recompute(CachedDeployedApplication applicationID, String zipRelativeFileName,
+			EntryComputer computer) {
+		return compute(applicationID, zipRelativeFileName, computer, true);
+	}
+
+	protected DeployedResourceEntry compute(CachedDeployedApplication applicationID, String zipRelativeFileName,
+			EntryComputer computer, boolean replace) {
+		DeployedResourceEntry entry = getApplicationEntries(applicationID).compute(zipRelativeFileName, computer,
+				replace);
+		evict();
+		return entry;
+	}
+
+	/**
+	 * Removes the entry for the given resource, for example, if the resource
+	 * was deleted.
+	 * @param applicationID
+	 * @param zipRelativeFileName
+	 * @return removed entry, or null if the resource was not cached
+	 */
+	public DeployedResourceEntry remove(CachedDeployedApplication applicationID, String zipRelativeFileName) {
+		ApplicationEntries appEntries = applications.get(applicationID);
+		return appEntries != null ? appEntries.remove(zipRelativeFileName) : null;
+	}
+
+	/**
+	 * Removes all entries for the given application, for example, when the
+	 * application is deleted.
+	 */
+	public void removeApplication(CachedDeployedApplication applicationID) {
+		ApplicationEntries appEntries = applications.remove(applicationID);
+		if (appEntries != null) {
+			appEntries.dispose();
+		}
+	}
+
+	/**
+	 * Removes all entries for the applications of the given server, for
+	 * example, when the server is removed.
+	 * @param serverId ID of the server
+	 */
+	public void removeServer(String serverId) {
+		for (Iterator<Map.Entry<CachedDeployedApplication, ApplicationEntries>> it = applications.entrySet()
+				.iterator(); it.hasNext();) {
+			Map.Entry<CachedDeployedApplication, ApplicationEntries> entry = it.next();
+			if (serverId.equals(entry.getKey().getServerId())) {
+				it.remove();
+				entry.getValue().dispose();
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries of the given application that are not in the given
+	 * list of resource names. This evicts entries of resources that were
+	 * deleted or renamed since the application was last deployed.
+	 * @param applicationID
+	 * @param zipRelativeFileNames names of all the resources currently in the
+	 * application
+	 * @return number of entries removed
+	 */
+	public int retainEntries(CachedDeployedApplication applicationID, Set<String> zipRelativeFileNames) {
+		ApplicationEntries appEntries = applications.get(applicationID);
+		return appEntries != null ? appEntries.retain(zipRelativeFileNames) : 0;
+	}
+
+	public void clear() {
+		for (Iterator<ApplicationEntries> it = applications.values().iterator(); it.hasNext();) {
+			ApplicationEntries appEntries = it.next();
+			it.remove();
+			appEntries.dispose();
+		}
+	}
+
+	public CacheStats getStats() {
+		int entryCount = 0;
+		for (ApplicationEntries appEntries : applications.values()) {
+			entryCount += appEntries.size();
+		}
+		return new CacheStats(entryCount, bytes.get(), maxBytes, hits.get(), misses.get(), evictions.get());
+	}
+
+	protected ApplicationEntries getApplicationEntries(CachedDeployedApplication applicationID) {
+		ApplicationEntries appEntries = applications.get(applicationID);
 		if (appEntries == null) {
-			appEntries = new HashMap<String, DeployedResourceCache.DeployedResourceEntry>();
-			cacheMap.put(applicationID, appEntries);
+			appEntries = new ApplicationEntries();
+			ApplicationEntries existing = applications.putIfAbsent(applicationID, appEntries);
+			if (existing != null) {
+				appEntries = existing;
+			}
+		}
+		return appEntries;
+	}
+
+	/**
+	 * Evicts least recently used entries across all applications until the
+	 * cache is within its memory bound. Each application keeps its entries in
+	 * access order, so the least recently used entry overall is the eldest
+	 * entry with the lowest access time among all applications.
+	 */
+	protected void evict() {
+		if (bytes.get() <= maxBytes) {
+			return;
+		}
+		synchronized (evictionLock) {
+			while (bytes.get() > maxBytes) {
+				ApplicationEntries eldestEntries = null;
+				long eldestAccess = Long.MAX_VALUE;
+				for (ApplicationEntries appEntries : applications.values()) {
+					long access = appEntries.getEldestAccess();
+					if (access < eldestAccess) {
+						eldestAccess = access;
+						eldestEntries = appEntries;
+					}
+				}
+				if (eldestEntries == null) {
+					return;
+				}
+				// The eldest entry may have been accessed in the meantime, in
+				// which case look again
+				if (eldestEntries.removeEldest(eldestAccess)) {
+					evictions.incrementAndGet();
+				}
+			}
 		}
-		appEntries.put(entry.getZipRelativeFileName(), entry);
 	}
 
-	public synchronized DeployedResourceEntry getEntry(CachedDeployedApplication applicationID,
-			String zipRelativeFileName) {
-		Map<String, DeployedResourceEntry> appEntries = cacheMap.get(applicationID);
+	/**
+	 * Cached entries of a single application, in access order. All access is
+	 * synchronized on the instance, but entries are computed outside the lock.
+	 */
+	protected class ApplicationEntries {
+
+		private final LinkedHashMap<String, CachedEntry> entries = new LinkedHashMap<String, CachedEntry>(16, 0.75f,
+				true);
+
+		private final Map<String, FutureTask<DeployedResourceEntry>> pending = new HashMap<String, FutureTask<DeployedResourceEntry>>();
+
+		private boolean disposed;
 
-		return appEntries != null ? appEntries.get(zipRelativeFileName) : null;
+		public synchronized DeployedResourceEntry get(String name) {
+			CachedEntry cached = entries.get(name);
+			if (cached == null) {
+				return null;
+			}
+			cached.lastAccess = clock.incrementAndGet();
+			return cached.entry;
+		}
+
+		/**
+		 * 
+		 * @return false if the application was removed from the cache, and
+		 * the entry was not added.
+		 */
+		public synchronized boolean put(String name, DeployedResourceEntry entry) {
+			if (disposed) {
+				return false;
+			}
+			CachedEntry old = entries.put(name, new CachedEntry(entry, clock.incrementAndGet()));
+			long delta = entry.getMemorySize() - (old != null ? old.entry.getMemorySize() : 0);
+			bytes.addAndGet(delta);
+			return true;
+		}
+
+		public DeployedResourceEntry compute(final String name, final EntryComputer computer, boolean replace) {
+			FutureTask<DeployedResourceEntry> task;
+			boolean owner = false;
+			synchronized (this) {
+				task = pending.get(name);
+				if (task == null) {
+					if (!replace) {
+						DeployedResourceEntry entry = get(name);
+						if (entry != null) {
+							hits.incrementAndGet();
+							return entry;
+						}
+					}
+					task = new FutureTask<DeployedResourceEntry>(new Callable<DeployedResourceEntry>() {
+						public DeployedResourceEntry call() throws Exception {
+							return computer.computeEntry();
+						}
+					});
+					pending.put(name, task);
+					owner = true;
+				}
+			}
+
+			if (owner) {
+				misses.incrementAndGet();
+				task.run();
+				synchronized (this) {
+					DeployedResourceEntry entry = getResult(task, false);
+					if (entry != null) {
+						put(name, entry);
+					}
+					pending.remove(name);
+				}
+			}
+			else {
+				// Another thread is computing the same entry
+				hits.incrementAndGet();
+			}
+			return getResult(task, true);
+		}
+
+		public synchronized DeployedResourceEntry remove(String name) {
+			CachedEntry cached = entries.remove(name);
+			if (cached == null) {
+				return null;
+			}
+			bytes.addAndGet(-cached.entry.getMemorySize());
+			return cached.entry;
+		}
+
+		public synchronized int retain(Set<String> names) {
+			int removed = 0;
+			for (Iterator<Map.Entry<String, CachedEntry>> it = entries.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, CachedEntry> cached = it.next();
+				if (!names.contains(cached.getKey())) {
+					it.remove();
+					bytes.addAndGet(-cached.getValue().entry.getMemorySize());
+					removed++;
+				}
+			}
+			return removed;
+		}
+
+		public synchronized int size() {
+			return entries.size();
+		}
+
+		/**
+		 * 
+		 * @return access time of the least recently used entry, or
+		 * {@link Long#MAX_VALUE} if there are no entries
+		 */
+		public synchronized long getEldestAccess() {
+			Iterator<CachedEntry> it = entries.values().iterator();
+			return it.hasNext() ? it.next().lastAccess : Long.MAX_VALUE;
+		}
+
+		/**
+		 * Removes the least recently used entry, if it was last accessed at the
+		 * given time.
+		 * @return true if removed
+		 */
+		public synchronized boolean removeEldest(long access) {
+			Iterator<CachedEntry> it = entries.values().iterator();
+			if (!it.hasNext()) {
+				return false;
+			}
+			CachedEntry eldest = it.next();
+			if (eldest.lastAccess != access) {
+				return false;
+			}
+			it.remove();
+			bytes.addAndGet(-eldest.entry.getMemorySize());
+			return true;
+		}
+
+		/**
+		 * Removes all entries. Entries added after disposal are ignored, so
+		 * that an application removed while being deployed does not leave
+		 * unreachable entries behind.
+		 */
+		public synchronized void dispose() {
+			disposed = true;
+			for (CachedEntry cached : entries.values()) {
+				bytes.addAndGet(-cached.entry.getMemorySize());
+			}
+			entries.clear();
+		}
+	}
+
+	protected static class CachedEntry {
+
+		final DeployedResourceEntry entry;
+
+		long lastAccess;
+
+		CachedEntry(DeployedResourceEntry entry, long lastAccess) {
+			this.entry = entry;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	/**
+	 * 
+	 * @param task completed task
+	 * @param rethrow whether a failure of the computation should be rethrown
+	 * @return result of the task, or null if it failed and is not rethrown
+	 */
+	protected static DeployedResourceEntry getResult(FutureTask<DeployedResourceEntry> task, boolean rethrow) {
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e) {
+			if (!rethrow) {
+				return null;
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Snapshot of the cache usage.
+	 */
+	public static class CacheStats {
+
+		private final int entryCount;
+
+		private final long bytes;
+
+		private final long maxBytes;
+
+		private final long hits;
+
+		private final long misses;
+
+		private final long evictions;
+
+		public CacheStats(int entryCount, long bytes, long maxBytes, long hits, long misses, long evictions) {
+			this.entryCount = entryCount;
+			this.bytes = bytes;
+			this.maxBytes = maxBytes;
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+		}
+
+		public int getEntryCount() {
+			return entryCount;
+		}
+
+		/**
+		 * 
+		 * @return estimated memory used by the cached entries, in bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 * 
+		 * @return ratio of lookups that found a cached entry, between 0 and 1,
+		 * or 0 if there were no lookups
+		 */
+		public double getHitRatio() {
+			long lookups = hits + misses;
+			return lookups > 0 ? (double) hits / lookups : 0;
+		}
+
+		public String toString() {
+			return "entries=" + entryCount + ", bytes=" + bytes + "/" + maxBytes + ", hitRatio=" + getHitRatio()
+					+ ", evictions=" + evictions;
+		}
 	}
 
 	public static class DeployedResourceEntry {
@@ -63,21 +553,47 @@ public class DeployedResourceCache {
 		public long getFileSize() {
 			return fileSize;
 		}
+
+		/**
+		 * 
+		 * @return rough estimate of the memory used by this entry, including
+		 * its cache key, in bytes
+		 */
+		public long getMemorySize() {
+			int nameLength = zipRelativeFileName != null ? zipRelativeFileName.length() : 0;
+			int sha1Length = sha1 != null ? sha1.length : 0;
+			// Object headers and fields of the entry, key, name string and
+			// sha1 array, plus the map node
+			return 160 + 2 * nameLength + sha1Length;
+		}
 	}
 
 	/**
 	 * Light-weight representation of an app only for purposes of caching
-	 * deployed resources for that app.
+	 * deployed resources for that app. Apps of the same name on different
+	 * servers are distinct.
 	 * 
 	 */
 	public static class CachedDeployedApplication {
 
+		private final String serverId;
+
 		private final String appName;
 
-		public CachedDeployedApplication(String appName) {
+		/**
+		 * 
+		 * @param serverId ID of the server the app is deployed to
+		 * @param appName
+		 */
+		public CachedDeployedApplication(String serverId, String appName) {
+			this.serverId = serverId;
 			this.appName = appName;
 		}
 
+		public String getServerId() {
+			return serverId;
+		}
+
 		public String getAppName() {
 			return appName;
 		}
@@ -85,6 +601,7 @@ public class DeployedResourceCache {
 		public int hashCode() {
 			final int prime = 31;
 			int result = 1;
+			result = prime * result + ((serverId == null) ? 0 : serverId.hashCode());
 			result = prime * result + ((appName == null) ? 0 : appName.hashCode());
 			return result;
 		}
@@ -101,6 +618,14 @@ public class DeployedResourceCache {
 				return false;
 			}
 			CachedDeployedApplication other = (CachedDeployedApplication) obj;
+			if (serverId == null) {
+				if (other.serverId != null) {
+					return false;
+				}
+			}
+			else if (!serverId.equals(other.serverId)) {
+				return false;
+			}
 			if (appName == null) {
 				if (other.appName != null) {
 					return false;
@@ -113,7 +638,7 @@ public class DeployedResourceCache {
 		}
 
 		public String toString() {
-			return appName.toString();
+			return serverId + "/" + appName;
 		}
 
 	}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.CloudService;
+
+/**
+ * Last known deployment configurations and services of each server, so that
+ * the deployment wizard can open with them instead of waiting for the
+ * server. Values are kept until replaced or cleared, even when older than
+ * {@link #MAX_AGE}, as stale values are still shown while newer ones are
+ * fetched.
+ */
+public class DeploymentDataCache {
+
+	/**
+	 * Age in milliseconds after which values are fetched again.
+	 */
+	public static final long MAX_AGE = 2 * 60 * 1000;
+
+	private static class ServerData {
+
+		final Map<String, DeploymentConfiguration> configurations = new HashMap<String, DeploymentConfiguration>();
+
+		final Map<String, Long> configurationTimes = new HashMap<String, Long>();
+
+		List<CloudService> services;
+
+		long servicesTime;
+
+	}
+
+	private final Map<String, ServerData> servers = new HashMap<String, ServerData>();
+
+	public synchronized void putDeploymentConfiguration(String serverId, String framework,
+			DeploymentConfiguration configuration) {
+		ServerData data = getServerData(serverId);
+		data.configurations.put(framework, configuration);
+		data.configurationTimes.put(framework, currentTime());
+	}
+
+	/**
+	 *
+	 * @param serverId
+	 * @param framework
+	 * @return last known deployment configuration of the given framework, or
+	 * null if none was fetched since the server connected
+	 */
+	public synchronized DeploymentConfiguration getDeploymentConfiguration(String serverId, String framework) {
+		ServerData data = servers.get(serverId);
+		return data != null ? data.configurations.get(framework) : null;
+	}
+
+	public synchronized void putServices(String serverId, List<CloudService> services) {
+		ServerData data = getServerData(serverId);
+		data.services = services;
+		data.servicesTime = currentTime();
+	}
+
+	/**
+	 *
+	 * @param serverId
+	 * @return last known services of the server, or null if none were fetched
+	 * since the server connected. The list must not be modified.
+	 */
+	public synchronized List<CloudService> getServices(String serverId) {
+		ServerData data = servers.get(serverId);
+		return data != null ? data.services : null;
+	}
+
+	/**
+	 *
+	 * @param serverId
+	 * @param framework
+	 * @return true if the deployment configuration of the given framework or
+	 * the services of the server are missing or older than {@link #MAX_AGE}
+	 */
+	public synchronized boolean isStale(String serverId, String framework) {
+		ServerData data = servers.get(serverId);
+		if (data == null || data.services == null || !data.configurations.containsKey(framework)) {
+			return true;
+		}
+		long oldest = Math.min(data.servicesTime, data.configurationTimes.get(framework));
+		return currentTime() - oldest > MAX_AGE;
+	}
+
+	public synchronized void clear(String serverId) {
+		servers.remove(serverId);
+	}
+
+	public synchronized void clear() {
+		servers.clear();
+	}
+
+	private ServerData getServerData(String serverId) {
+		ServerData data = servers.get(serverId);
+		if (data == null) {
+			data = new ServerData();
+			servers.put(serverId, data);
+		}
+		return data;
+	}
+
+	protected long currentTime() {
+		return System.currentTimeMillis();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Fetches the data shown by the deployment wizard in the background, so that
+ * the wizard can open with cached data. The data is fetched once a server is
+ * connected, when its services change, and when its modules are refreshed
+ * after the data got older than {@link DeploymentDataCache#MAX_AGE}.
+ * <p/>
+ * The fetched data is added to the cache by the server behaviour, like any
+ * other deployment configuration or services fetched from the server.
+ */
+public class DeploymentPrefetcher implements CloudServerListener {
+
+	private final DeploymentDataCache cache = new DeploymentDataCache();
+
+	private final Set<String> pendingServerIds = new HashSet<String>();
+
+	public DeploymentDataCache getCache() {
+		return cache;
+	}
+
+	public void serverChanged(CloudServerEvent event) {
+		CloudFoundryServer server = event.getServer();
+		if (!server.isConnected()) {
+			cache.clear(server.getServerId());
+			return;
+		}
+
+		boolean refresh = event.getType() == CloudServerEvent.EVENT_UPDATE_SERVICES
+				|| (event.getType() == CloudServerEvent.EVENT_SERVER_REFRESHED && cache.isStale(
+						server.getServerId(), CloudUtil.DEFAULT_FRAMEWORK));
+		if (refresh) {
+			prefetch(server, null, true);
+		}
+	}
+
+	/**
+	 * Fetches the deployment configuration of the default framework and the
+	 * services of the given server in the background. Failures are not
+	 * reported, as the cached data is left as it is.
+	 * @param server
+	 * @param listener optional listener notified when the data was fetched.
+	 * The result of the job is OK if the cache was updated. May be null.
+	 * @return scheduled job
+	 */
+	public Job prefetch(CloudFoundryServer server, IJobChangeListener listener) {
+		return prefetch(server, listener, false);
+	}
+
+	/**
+	 *
+	 * @param server
+	 * @param listener optional listener notified when the data was fetched.
+	 * May be null.
+	 * @param skipIfPending if true, no job is scheduled while another job
+	 * scheduled with this flag is fetching the data of the same server
+	 * @return scheduled job, or null if skipped
+	 */
+	protected Job prefetch(final CloudFoundryServer server, IJobChangeListener listener, boolean skipIfPending) {
+		if (skipIfPending) {
+			synchronized (pendingServerIds) {
+				if (!pendingServerIds.add(server.getServerId())) {
+					return null;
+				}
+			}
+		}
+		final boolean pending = skipIfPending;
+
+		Job job = new Job("Fetching deployment options") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					CloudFoundryServerBehaviour behaviour = server.getBehaviour();
+					behaviour.getDeploymentConfiguration(CloudUtil.DEFAULT_FRAMEWORK, monitor);
+					behaviour.getServices(monitor);
+					return Status.OK_STATUS;
+				}
+				catch (CoreException e) {
+					return Status.CANCEL_STATUS;
+				}
+				catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				}
+				finally {
+					// Only jobs that marked the server as pending unmark it
+					if (pending) {
+						synchronized (pendingServerIds) {
+							pendingServerIds.remove(server.getServerId());
+						}
+					}
+				}
+			}
+		};
+		job.setSystem(true);
+		if (listener != null) {
+			job.addJobChangeListener(listener);
+		}
+		job.schedule();
+		return job;
+	}
+
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+
+/**
+ * Records how long each phase of an application deployment takes, so that
+ * slow phases can be identified per application. A new timeline is created
+ * for each deployment, and the last timeline of an application is available
+ * through {@link CloudFoundryServerBehaviour#getDeploymentTimeline(org.eclipse.wst.server.core.IModule)}
+ * <p/>
+ * Phases that do not occur in a deployment (for example, the partial war build
+ * in a full publish) are not recorded and have an undefined duration.
+ */
+public class DeploymentTimeline {
+
+	public static final long UNDEFINED = -1;
+
+	public enum Phase {
+		ARCHIVE_SCAN("Archive scan"), DIGEST("Digest"), RESOURCE_MATCH("Resource match"), WAR_BUILD("War build"), UPLOAD(
+				"Upload"), STAGING("Staging"), START("Start");
+
+		private final String label;
+
+		private Phase(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private final String appName;
+
+	private final long startTime;
+
+	private long endTime = UNDEFINED;
+
+	private final long[] durations = new long[Phase.values().length];
+
+	private final long[] phaseStarts = new long[Phase.values().length];
+
+	private long uploadedBytes = UNDEFINED;
+
+	public DeploymentTimeline(String appName) {
+		this.appName = appName;
+		this.startTime = System.currentTimeMillis();
+		for (int i = 0; i < durations.length; i++) {
+			durations[i] = UNDEFINED;
+			phaseStarts[i] = UNDEFINED;
+		}
+	}
+
+	public String getAppName() {
+		return appName;
+	}
+
+	/**
+	 *
+	 * @return time in milliseconds when the deployment started
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public synchronized void start(Phase phase) {
+		phaseStarts[phase.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Ends a phase previously started. Durations of a phase that is started
+	 * and ended more than once are accumulated.
+	 */
+	public synchronized void end(Phase phase) {
+		long phaseStart = phaseStarts[phase.ordinal()];
+		if (phaseStart != UNDEFINED) {
+			addDuration(phase, System.nanoTime() - phaseStart);
+			phaseStarts[phase.ordinal()] = UNDEFINED;
+		}
+	}
+
+	/**
+	 *
+	 * @param phase
+	 * @param nanos duration in nanoseconds to add to the phase.
+	 */
+	public synchronized void addDuration(Phase phase, long nanos) {
+		int index = phase.ordinal();
+		durations[index] = (durations[index] == UNDEFINED ? 0 : durations[index]) + nanos;
+	}
+
+	/**
+	 *
+	 * @param phase
+	 * @return duration of the phase in milliseconds, or {@link #UNDEFINED} if
+	 * the phase did not occur
+	 */
+	public synchronized long getDuration(Phase phase) {
+		long nanos = durations[phase.ordinal()];
+		return nanos == UNDEFINED ? UNDEFINED : nanos / 1000000;
+	}
+
+	public synchronized void setUploadedBytes(long uploadedBytes) {
+		this.uploadedBytes = uploadedBytes;
+	}
+
+	/**
+	 *
+	 * @return uncompressed size of the uploaded payload, or
+	 * {@link #UNDEFINED} if not known
+	 */
+	public synchronized long getUploadedBytes() {
+		return uploadedBytes;
+	}
+
+	/**
+	 *
+	 * @return upload throughput in bytes per second, or {@link #UNDEFINED} if
+	 * either the payload size or upload duration is not known
+	 */
+	public synchronized long getUploadRate() {
+		long nanos = durations[Phase.UPLOAD.ordinal()];
+		if (uploadedBytes == UNDEFINED || nanos == UNDEFINED || nanos == 0) {
+			return UNDEFINED;
+		}
+		return (long) (uploadedBytes / (nanos / 1000000000d));
+	}
+
+	public synchronized void complete() {
+		endTime = System.currentTimeMillis();
+	}
+
+	public synchronized boolean isComplete() {
+		return endTime != UNDEFINED;
+	}
+
+	/**
+	 *
+	 * @return total duration of the deployment in milliseconds, or the time
+	 * elapsed so far if the deployment has not completed.
+	 */
+	public synchronized long getTotalDuration() {
+		return (endTime != UNDEFINED ? endTime : System.currentTimeMillis()) - startTime;
+	}
+
+	/**
+	 * Wraps the given archive such that time spent computing sha1 digests and
+	 * file sizes of entries is recorded in the {@link Phase#DIGEST} phase. The
+	 * wrapper always delegates to the current entries of the given archive, as
+	 * some archives replace their entries during upload.
+	 */
+	public ApplicationArchive getTimedArchive(final ApplicationArchive archive) {
+		return new ApplicationArchive() {
+
+			public String getFilename() {
+				return archive.getFilename();
+			}
+
+			public Iterable<Entry> getEntries() {
+				final Iterable<Entry> entries = archive.getEntries();
+				return new Iterable<Entry>() {
+
+					public Iterator<Entry> iterator() {
+						final Iterator<Entry> iterator = entries.iterator();
+						return new Iterator<Entry>() {
+
+							public boolean hasNext() {
+								return iterator.hasNext();
+							}
+
+							public Entry next() {
+								return new TimedEntry(iterator.next());
+							}
+
+							public void remove() {
+								iterator.remove();
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Wraps the given callback to record the resource match, war build and
+	 * upload phases. {@link Phase#RESOURCE_MATCH} must be started before the
+	 * upload request is sent, and {@link Phase#UPLOAD} ended once the upload
+	 * request completes.
+	 * @param callback may be null
+	 */
+	public UploadStatusCallback getTimedCallback(final UploadStatusCallback callback) {
+		final UploadStatusCallback delegate = callback != null ? callback : UploadStatusCallback.NONE;
+		return new UploadStatusCallback() {
+
+			public void onCheckResources() {
+				endResourceMatch();
+				delegate.onCheckResources();
+			}
+
+			public void onMatchedFileNames(Set<String> matchedFileNames) {
+				start(Phase.WAR_BUILD);
+				try {
+					delegate.onMatchedFileNames(matchedFileNames);
+				}
+				finally {
+					end(Phase.WAR_BUILD);
+				}
+			}
+
+			public void onProcessMatchedResources(int length) {
+				setUploadedBytes(length);
+				delegate.onProcessMatchedResources(length);
+				start(Phase.UPLOAD);
+			}
+		};
+	}
+
+	/**
+	 * Ends the resource match phase, excluding the time spent computing
+	 * digests while resources were being matched.
+	 */
+	protected synchronized void endResourceMatch() {
+		int index = Phase.RESOURCE_MATCH.ordinal();
+		long phaseStart = phaseStarts[index];
+		if (phaseStart == UNDEFINED) {
+			return;
+		}
+		long digest = durations[Phase.DIGEST.ordinal()];
+		long elapsed = System.nanoTime() - phaseStart;
+		if (digest != UNDEFINED) {
+			elapsed = Math.max(0, elapsed - digest);
+		}
+		addDuration(Phase.RESOURCE_MATCH, elapsed);
+		phaseStarts[index] = UNDEFINED;
+	}
+
+	protected class TimedEntry implements ApplicationArchive.Entry {
+
+		private final ApplicationArchive.Entry entry;
+
+		public TimedEntry(ApplicationArchive.Entry entry) {
+			this.entry = entry;
+		}
+
+		public boolean isDirectory() {
+			return entry.isDirectory();
+		}
+
+		public String getName() {
+			return entry.getName();
+		}
+
+		public long getSize() {
+			long start = System.nanoTime();
+			try {
+				return entry.getSize();
+			}
+			finally {
+				addDuration(Phase.DIGEST, System.nanoTime() - start);
+			}
+		}
+
+		public byte[] getSha1Digest() {
+			long start = System.nanoTime();
+			try {
+				return entry.getSha1Digest();
+			}
+			finally {
+				addDuration(Phase.DIGEST, System.nanoTime() - start);
+			}
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return entry.getInputStream();
+		}
+	}
+
+}
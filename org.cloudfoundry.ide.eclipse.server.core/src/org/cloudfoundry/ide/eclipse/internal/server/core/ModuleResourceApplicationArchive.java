@@ -14,6 +14,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -28,6 +29,7 @@ import org.cloudfoundry.client.lib.archive.ApplicationArchive;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryCallback.DeploymentDescriptor;
 import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.CachedDeployedApplication;
 import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.DeployedResourceEntry;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.EntryComputer;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.model.IModuleFile;
@@ -66,18 +68,21 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 	private String fileName;
 
 	private final CachedDeployedApplication appID;
-	
+
+	private final ZipRelativeNameTable zipNames;
+
 	private final DeploymentDescriptor deploymentDescriptor;
 
 	public ModuleResourceApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
-			IModule module, String appName) {
-		this(allResources, changedResources, module, appName, null);
+			IModule module, String serverId, String appName) {
+		this(allResources, changedResources, module, serverId, appName, null);
 	}
 	
 	public ModuleResourceApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
-			IModule module, String appName, DeploymentDescriptor deploymentDescriptor) {
+			IModule module, String serverId, String appName, DeploymentDescriptor deploymentDescriptor) {
 		super(module, allResources);
-		this.appID = new CachedDeployedApplication(appName);
+		this.appID = new CachedDeployedApplication(serverId, appName);
+		this.zipNames = new ZipRelativeNameTable(allResources);
 		this.changedResources = changedResourcesAsZipNames(changedResources);
 		this.deploymentDescriptor = deploymentDescriptor;
 	}
@@ -85,11 +90,21 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 	protected Set<String> changedResourcesAsZipNames(List<IModuleResource> changedResources) {
 		Set<String> names = new HashSet<String>();
 		for (IModuleResource resource : changedResources) {
-			names.add(CloudUtil.getZipRelativeName(resource));
+			names.add(getZipRelativeName(resource));
 		}
 		return names;
 	}
 
+	/**
+	 * 
+	 * @param resource
+	 * @return zip-relative name of the resource, computed only once per
+	 * archive.
+	 */
+	protected String getZipRelativeName(IModuleResource resource) {
+		return zipNames.getZipRelativeName(resource);
+	}
+
 	public String getFilename() {
 		if (deploymentDescriptor!=null && deploymentDescriptor.standaloneWithContainer!=null) {
 			String deployDirectory = deploymentDescriptor.standaloneWithContainer.getDeployDirectory();
@@ -105,11 +120,40 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 	}
 
 	protected ModuleFileEntryAdapter getFileResourceEntryAdapter(IModuleFile file) {
-		String zipName = CloudUtil.getZipRelativeName(file);
+		String zipName = getZipRelativeName(file);
 		boolean changed = changedResources != null && changedResources.contains(zipName);
 		return new ZipModuleFileEntryAdapter(file, appID, changed);
 	}
 
+	/**
+	 * Removes cached sha1 entries of resources that were deployed previously
+	 * for this application but that no longer exist in the module, for
+	 * example, because they were deleted or renamed.
+	 */
+	public void evictDeletedResources() {
+		Set<String> names = new HashSet<String>();
+		collectFileNames(getModuleResources(), names);
+		int removed = CloudFoundryPlugin.getDefault().getDeployedResourcesCache().retainEntries(appID, names);
+		if (removed > 0) {
+			CloudFoundryPlugin.trace("Removed " + removed + " cached entries of deleted resources for "
+					+ appID.getAppName());
+		}
+	}
+
+	protected void collectFileNames(List<IModuleResource> resources, Set<String> names) {
+		for (IModuleResource resource : resources) {
+			if (resource instanceof IModuleFolder) {
+				IModuleResource[] members = ((IModuleFolder) resource).members();
+				if (members != null) {
+					collectFileNames(Arrays.asList(members), names);
+				}
+			}
+			else if (resource instanceof IModuleFile) {
+				names.add(getZipRelativeName(resource));
+			}
+		}
+	}
+
 	public void generatePartialWarFile(Set<String> knownResourceNames) {
 		Iterable<Entry> localEntries = getEntries();
 		Map<String, AbstractModuleResourceEntryAdapter> missingChangedEntries = new HashMap<String, AbstractModuleResourceEntryAdapter>();
@@ -126,7 +170,8 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 		// Build war file with changed/missing resources
 		try {
 
-			File partialWar = CloudUtil.createWarFile(getModuleResources(), getModule(), missingChangedResources, null);
+			File partialWar = CloudUtil.createWarFile(getModuleResources(), getModule(), missingChangedResources,
+					zipNames, null);
 
 			if (partialWar.exists()) {
 				fileName = partialWar.getName();
@@ -227,7 +272,7 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 		}
 
 		protected String computeName(IModuleResource resource) {
-			return CloudUtil.getZipRelativeName(resource);
+			return getZipRelativeName(resource);
 		}
 
 	}
@@ -244,6 +289,8 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 
 		private final boolean recalculate;
 
+		private volatile DeployedResourceEntry deployedResourcesEntry;
+
 		public ZipModuleFileEntryAdapter(IModuleFile moduleFile, CachedDeployedApplication appName, boolean recalculate) {
 			super(moduleFile);
 
@@ -257,19 +304,35 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 			return entry != null ? entry.getFileSize() : UNDEFINED_SIZE;
 		}
 
+		/**
+		 * Obtains the entry from the cache, computing it if it is not cached
+		 * or if the resource has changed. The entry is only looked up once
+		 * per adapter, as both the size and the sha1 are requested for each
+		 * file during a publish.
+		 */
 		public DeployedResourceEntry getDeployedResourcesEntry() {
+			DeployedResourceEntry entry = deployedResourcesEntry;
+			if (entry != null) {
+				return entry;
+			}
 
-			DeployedResourceEntry deployedResourcesEntry = CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
-					.getEntry(appName, getName());
-
-			if (canComputeResourceEntry() && (recalculate || deployedResourcesEntry == null)) {
-				byte[] sha1 = super.getSha1Digest();
-				long fileSize = super.getSize();
-				deployedResourcesEntry = new DeployedResourceEntry(sha1, fileSize, getName());
-				CloudFoundryPlugin.getDefault().getDeployedResourcesCache().add(appName, deployedResourcesEntry);
+			DeployedResourceCache cache = CloudFoundryPlugin.getDefault().getDeployedResourcesCache();
+			if (!canComputeResourceEntry()) {
+				return cache.getEntry(appName, getName());
 			}
 
-			return deployedResourcesEntry;
+			EntryComputer computer = new EntryComputer() {
+				public DeployedResourceEntry computeEntry() {
+					byte[] sha1 = ZipModuleFileEntryAdapter.super.getSha1Digest();
+					long fileSize = ZipModuleFileEntryAdapter.super.getSize();
+					return new DeployedResourceEntry(sha1, fileSize, getName());
+				}
+			};
+
+			entry = recalculate ? cache.recompute(appName, getName(), computer) : cache.computeIfAbsent(appName,
+					getName(), computer);
+			deployedResourcesEntry = entry;
+			return entry;
 		}
 
 		public byte[] getSha1Digest() {
@@ -278,7 +341,7 @@ public class ModuleResourceApplicationArchive extends AbstractModuleResourceArch
 		}
 
 		protected String computeName(IModuleResource resource) {
-			return CloudUtil.getZipRelativeName(resource);
+			return getZipRelativeName(resource);
 		}
 	}
 
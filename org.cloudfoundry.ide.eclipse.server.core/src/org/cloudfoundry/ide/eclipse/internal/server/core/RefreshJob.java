@@ -10,6 +10,11 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -19,7 +24,14 @@ import org.eclipse.wst.server.core.IServer;
 
 /**
  * Refresh job for refreshing local server status to correspond to the actual
- * server status
+ * server status.
+ * <p/>
+ * The job refreshes the server after the interval last set, which is short
+ * right after user actions. While a refresh finds no change in the
+ * applications of the server, the delay before the next refresh doubles, up
+ * to {@link #MAX_INTERVAL}. Refresh is paused while the server is not shown
+ * to the user, and refreshes of all servers are staggered by the
+ * {@link RefreshScheduler}.
  * @author Christian Dupuis
  * @author Leo Dos Santos
  * @author Steffen Pingel
@@ -28,8 +40,16 @@ public class RefreshJob extends Job {
 
 	private static final long DEFAULT_INTERVAL = 60 * 1000;
 
+	public static final long MAX_INTERVAL = 10 * 60 * 1000;
+
+	public static final long PAUSED_INTERVAL = 10 * 1000;
+
 	private long interval;
 
+	private long delay;
+
+	private String lastModulesSignature;
+
 	private final CloudFoundryServer server;
 
 	public RefreshJob(CloudFoundryServer server) {
@@ -37,31 +57,68 @@ public class RefreshJob extends Job {
 		setSystem(true);
 		this.server = server;
 		this.interval = DEFAULT_INTERVAL;
+		this.delay = DEFAULT_INTERVAL;
 	}
 
 	public long getInterval() {
 		return interval;
 	}
 
+	/**
+	 * 
+	 * @return delay before the next refresh, which grows while refreshes find
+	 * no change
+	 */
+	public long getDelay() {
+		return delay;
+	}
+
 	public void reschedule() {
 		// schedule, if not already running or scheduled
 		cancel();
 		if (interval > 0) {
-			schedule(interval);
+			schedule(getScheduler().getStaggeredDelay(server.getServerId(), delay));
+		}
+		else {
+			getScheduler().cancel(server.getServerId());
 		}
 	}
 
+	/**
+	 * Sets the interval before the next refresh, and resets the backoff, as
+	 * setting an interval follows activity on the server.
+	 */
 	public void setInterval(long interval) {
 		this.interval = interval;
+		this.delay = interval;
 	}
 
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
+		if (interval <= 0) {
+			return Status.OK_STATUS;
+		}
+
+		if (!CloudFoundryPlugin.getCallback().isServerShown(server)) {
+			// Check again later, without querying the controller
+			schedule(PAUSED_INTERVAL);
+			return Status.OK_STATUS;
+		}
+
 		try {
-			server.getBehaviour().refreshModules(monitor);
+			server.getBehaviour().refreshModulesInBackground(monitor);
+
+			String modulesSignature = getModulesSignature();
+			if (modulesSignature.equals(lastModulesSignature)) {
+				delay = Math.min(delay * 2, Math.max(interval, MAX_INTERVAL));
+			}
+			else {
+				delay = interval;
+			}
+			lastModulesSignature = modulesSignature;
 
 			if (server.getServer().getServerState() == IServer.STATE_STARTED && interval > 0) {
-				schedule(interval);
+				schedule(getScheduler().getStaggeredDelay(server.getServerId(), delay));
 			}
 		}
 		catch (CoreException e) {
@@ -71,4 +128,32 @@ public class RefreshJob extends Job {
 
 		return Status.OK_STATUS;
 	}
+
+	/**
+	 * 
+	 * @return value that changes when the state, instances, URIs, memory or
+	 * services of an application of the server change
+	 */
+	protected String getModulesSignature() {
+		List<String> signatures = new ArrayList<String>();
+		for (ApplicationModule module : server.getApplications()) {
+			StringBuilder signature = new StringBuilder();
+			signature.append(module.getApplicationId()).append(' ').append(module.getState()).append(' ')
+					.append(module.getErrorMessage());
+			CloudApplication application = module.getApplication();
+			if (application != null) {
+				signature.append(' ').append(application.getState()).append(' ')
+						.append(application.getRunningInstances()).append('/').append(application.getInstances())
+						.append(' ').append(application.getMemory()).append(' ').append(application.getUris())
+						.append(' ').append(application.getServices());
+			}
+			signatures.add(signature.toString());
+		}
+		Collections.sort(signatures);
+		return signatures.toString();
+	}
+
+	protected RefreshScheduler getScheduler() {
+		return CloudFoundryPlugin.getRefreshScheduler();
+	}
 }
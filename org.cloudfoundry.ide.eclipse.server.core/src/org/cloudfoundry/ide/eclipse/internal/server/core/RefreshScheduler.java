@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Staggers the automatic refresh of all servers, so that servers whose
+ * refresh is due at the same time do not query their controllers at once.
+ * Each server refresh is planned at least {@link #STAGGER_INTERVAL} apart
+ * from the planned refresh of any other server.
+ */
+public class RefreshScheduler {
+
+	public static final long STAGGER_INTERVAL = 2000;
+
+	private final Map<String, Long> plannedTimes = new HashMap<String, Long>();
+
+	/**
+	 * Plans the next refresh of the given server.
+	 * @param serverId
+	 * @param delay requested delay in milliseconds before the refresh
+	 * @return delay in milliseconds to use instead, which is at least the
+	 * requested delay
+	 */
+	public synchronized long getStaggeredDelay(String serverId, long delay) {
+		long now = currentTime();
+		plannedTimes.remove(serverId);
+		for (Iterator<Long> it = plannedTimes.values().iterator(); it.hasNext();) {
+			if (it.next() < now - STAGGER_INTERVAL) {
+				it.remove();
+			}
+		}
+
+		long time = now + Math.max(0, delay);
+		boolean moved = true;
+		while (moved) {
+			moved = false;
+			for (Long plannedTime : plannedTimes.values()) {
+				if (Math.abs(plannedTime - time) < STAGGER_INTERVAL) {
+					time = plannedTime + STAGGER_INTERVAL;
+					moved = true;
+				}
+			}
+		}
+
+		plannedTimes.put(serverId, time);
+		return time - now;
+	}
+
+	/**
+	 * Discards the planned refresh of the given server.
+	 */
+	public synchronized void cancel(String serverId) {
+		plannedTimes.remove(serverId);
+	}
+
+	protected long currentTime() {
+		return System.currentTimeMillis();
+	}
+
+}
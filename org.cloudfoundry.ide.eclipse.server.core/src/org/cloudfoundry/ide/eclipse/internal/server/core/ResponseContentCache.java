@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudService;
+import org.cloudfoundry.client.lib.domain.Staging;
+
+/**
+ * Remembers a hash of the content last received from each endpoint of a
+ * cloud controller, so that callers can tell when a response is identical to
+ * the previous one and skip processing it.
+ * <p/>
+ * The cloud controller does not return ETags for application and service
+ * listings, and the client library always parses response bodies, so the hash
+ * is computed over the attributes of the parsed entities.
+ */
+public class ResponseContentCache {
+
+	public static final String APPLICATIONS = "applications";
+
+	public static final String SERVICES = "services";
+
+	private final Map<String, String> hashes = new HashMap<String, String>();
+
+	private final Map<String, Object> responses = new HashMap<String, Object>();
+
+	/**
+	 * 
+	 * @param endpoint
+	 * @param content
+	 * @return true if the given content is identical to the content last
+	 * recorded for the endpoint
+	 */
+	public synchronized boolean matches(String endpoint, String content) {
+		String hash = hashes.get(endpoint);
+		return hash != null && hash.equals(getHash(content));
+	}
+
+	/**
+	 * Records the content received from the given endpoint.
+	 */
+	public synchronized void put(String endpoint, String content) {
+		hashes.put(endpoint, getHash(content));
+		responses.remove(endpoint);
+	}
+
+	/**
+	 * Returns the response last received from the given endpoint if its
+	 * content is identical to the given content, so that callers can detect
+	 * an unchanged response by identity. Otherwise records and returns the
+	 * given response.
+	 * @param endpoint
+	 * @param response response just received
+	 * @param content content of the response
+	 * @return previous response if unchanged, or the given response
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T getResponse(String endpoint, T response, String content) {
+		String hash = getHash(content);
+		if (hash.equals(hashes.get(endpoint)) && responses.containsKey(endpoint)) {
+			return (T) responses.get(endpoint);
+		}
+		hashes.put(endpoint, hash);
+		responses.put(endpoint, response);
+		return response;
+	}
+
+	public synchronized void invalidate(String endpoint) {
+		hashes.remove(endpoint);
+		responses.remove(endpoint);
+	}
+
+	public synchronized void clear() {
+		hashes.clear();
+		responses.clear();
+	}
+
+	public static String getApplicationsContent(List<CloudApplication> applications) {
+		StringBuilder content = new StringBuilder();
+		if (applications != null) {
+			for (CloudApplication application : applications) {
+				content.append(getApplicationContent(application)).append('\n');
+			}
+		}
+		return content.toString();
+	}
+
+	public static String getApplicationContent(CloudApplication application) {
+		if (application == null) {
+			return "";
+		}
+		StringBuilder content = new StringBuilder();
+		content.append(application.getName()).append('|').append(application.getState()).append('|')
+				.append(application.getInstances()).append('|').append(application.getRunningInstances()).append('|')
+				.append(application.getMemory()).append('|').append(application.getUris()).append('|')
+				.append(application.getServices()).append('|').append(application.getDebug()).append('|')
+				.append(application.getEnv()).append('|');
+		if (application.getResources() != null) {
+			content.append(new TreeMap<String, Integer>(application.getResources()));
+		}
+		Staging staging = application.getStaging();
+		if (staging != null) {
+			content.append('|').append(staging.getFramework()).append('|').append(staging.getRuntime()).append('|')
+					.append(staging.getCommand());
+		}
+		return content.toString();
+	}
+
+	public static String getServicesContent(List<CloudService> services) {
+		StringBuilder content = new StringBuilder();
+		if (services != null) {
+			for (CloudService service : services) {
+				content.append(service.getName()).append('|').append(service.getType()).append('|')
+						.append(service.getVendor()).append('|').append(service.getVersion()).append('|')
+						.append(service.getTier()).append('|').append(service.getLabel()).append('|')
+						.append(service.getProvider()).append('|').append(service.getPlan()).append('|');
+				if (service.getOptions() != null) {
+					content.append(new TreeMap<String, String>(service.getOptions()));
+				}
+				content.append('\n');
+			}
+		}
+		return content.toString();
+	}
+
+	protected static String getHash(String content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] hash = digest.digest(content.getBytes("UTF-8"));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : hash) {
+				hex.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			// Fall back to the content itself
+			return content;
+		}
+		catch (UnsupportedEncodingException e) {
+			return content;
+		}
+	}
+
+}
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive.Entry;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.osgi.util.NLS;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Uploads an application archive in checksummed chunks so that an upload that
+ * fails part way through, for example due to a dropped connection, can resume
+ * from the last chunk acknowledged by the server rather than starting over.
+ * <p/>
+ * The Cloud Foundry upload protocol has no notion of partial uploads, but the
+ * server keeps a pool of previously uploaded resources that it matches by sha1
+ * before each upload. This upload therefore sends a sequence of cumulative
+ * archives: the archive for chunk N contains all the file entries of chunks 1
+ * to N, so that the server matches the entries of earlier chunks and only the
+ * contents of chunk N are transferred. Once all chunks are acknowledged, the
+ * full archive is uploaded, which only transfers entries the server does not
+ * pool (e.g. entries without a sha1).
+ * <p/>
+ * Acknowledged chunks are recorded in a progress file, typically in the
+ * plugin state location, so that a later attempt to upload the same
+ * application content skips chunks that were already acknowledged, even
+ * across IDE sessions. The progress file is deleted once the upload completes.
+ */
+public class ResumableApplicationUpload {
+
+	public static final long DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	public static final int DEFAULT_ATTEMPTS = 3;
+
+	/**
+	 * Time in milliseconds to wait before the first retry of a failed
+	 * request. The wait doubles for each further retry.
+	 */
+	public static final long DEFAULT_RETRY_DELAY = 1000;
+
+	private static final long CANCEL_CHECK_INTERVAL = 100;
+
+	private static final String ACKNOWLEDGED = "acknowledged";
+
+	private final CloudFoundryOperations client;
+
+	private final String appName;
+
+	private final ApplicationArchive archive;
+
+	private final UploadStatusCallback callback;
+
+	private final File progressFile;
+
+	private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private int attempts = DEFAULT_ATTEMPTS;
+
+	private long retryDelay = DEFAULT_RETRY_DELAY;
+
+	/**
+	 *
+	 * @param client used to upload each chunk
+	 * @param appName name of the application to upload
+	 * @param archive full application archive
+	 * @param callback callback that is notified only for the final, full
+	 * archive upload. May be null.
+	 * @param progressFile file where acknowledged chunks are recorded. If
+	 * null, progress is only kept for the duration of this upload.
+	 */
+	public ResumableApplicationUpload(CloudFoundryOperations client, String appName, ApplicationArchive archive,
+			UploadStatusCallback callback, File progressFile) {
+		this.client = client;
+		this.appName = appName;
+		this.archive = archive;
+		this.callback = callback != null ? callback : UploadStatusCallback.NONE;
+		this.progressFile = progressFile;
+	}
+
+	public void setChunkSize(long chunkSize) {
+		this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts > 0 ? attempts : 1;
+	}
+
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay >= 0 ? retryDelay : DEFAULT_RETRY_DELAY;
+	}
+
+	public void upload(IProgressMonitor monitor) throws IOException {
+		if (monitor == null) {
+			monitor = new NullProgressMonitor();
+		}
+
+		List<Entry> directories = new ArrayList<Entry>();
+		List<Chunk> chunks = getChunks(directories);
+		Properties progress = loadProgress();
+
+		monitor.beginTask(NLS.bind("Uploading {0}", appName), chunks.size() + 1);
+		try {
+			List<Entry> cumulativeEntries = new ArrayList<Entry>(directories);
+			int index = 0;
+			for (Chunk chunk : chunks) {
+				index++;
+				cumulativeEntries.addAll(chunk.entries);
+
+				if (progress.containsKey(chunk.checksum)) {
+					monitor.worked(1);
+					continue;
+				}
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+
+				monitor.subTask(NLS.bind("Uploading part {0} of {1} of {2}",
+						new Object[] { index, chunks.size(), appName }));
+
+				final List<Entry> chunkEntries = new ArrayList<Entry>(cumulativeEntries);
+				ApplicationArchive chunkArchive = new ApplicationArchive() {
+
+					public String getFilename() {
+						return archive.getFilename();
+					}
+
+					public Iterable<Entry> getEntries() {
+						return chunkEntries;
+					}
+				};
+
+				uploadWithRetry(chunkArchive, UploadStatusCallback.NONE, monitor);
+
+				progress.setProperty(chunk.checksum, ACKNOWLEDGED);
+				saveProgress(progress);
+				monitor.worked(1);
+			}
+
+			// All chunks are pooled in the server. Upload the full archive,
+			// which only transfers entries that could not be matched.
+			monitor.subTask(NLS.bind("Completing upload of {0}", appName));
+			uploadWithRetry(archive, callback, monitor);
+			monitor.worked(1);
+
+			clearProgress();
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	protected void uploadWithRetry(ApplicationArchive uploadArchive, UploadStatusCallback uploadCallback,
+			IProgressMonitor monitor) throws IOException {
+		long delay = retryDelay;
+		for (int attempt = 1;; attempt++) {
+			try {
+				client.uploadApplication(appName, uploadArchive, uploadCallback);
+				return;
+			}
+			catch (IOException e) {
+				if (attempt >= attempts) {
+					throw e;
+				}
+				CloudFoundryPlugin.trace("Upload of " + appName + " failed, retrying: " + e.getMessage());
+			}
+			catch (ResourceAccessException e) {
+				// I/O errors in the underlying rest template
+				if (attempt >= attempts) {
+					throw e;
+				}
+				CloudFoundryPlugin.trace("Upload of " + appName + " failed, retrying: " + e.getMessage());
+			}
+			waitBeforeRetry(delay, monitor);
+			delay *= 2;
+		}
+	}
+
+	/**
+	 * Waits for the given time before a failed request is sent again, so that
+	 * a server or connection that is briefly unavailable is not hit with
+	 * immediate retries.
+	 * @param delay time to wait in milliseconds
+	 * @param monitor
+	 * @throws OperationCanceledException if the monitor is cancelled before or
+	 * while waiting
+	 */
+	protected void waitBeforeRetry(long delay, IProgressMonitor monitor) {
+		long end = System.currentTimeMillis() + delay;
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			long remaining = end - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return;
+			}
+			try {
+				Thread.sleep(Math.min(remaining, CANCEL_CHECK_INTERVAL));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+	}
+
+	/**
+	 * Splits the file entries of the archive into chunks of approximately the
+	 * chunk size. Entries without a sha1 digest are not added to any chunk, as
+	 * the server cannot match them, and are uploaded with the full archive.
+	 * @param directories collects the directory entries of the archive
+	 * @return non-null list of chunks
+	 */
+	protected List<Chunk> getChunks(List<Entry> directories) throws IOException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		Chunk current = null;
+
+		for (Entry entry : archive.getEntries()) {
+			if (entry.isDirectory()) {
+				directories.add(entry);
+				continue;
+			}
+			byte[] sha1 = entry.getSha1Digest();
+			if (sha1 == null) {
+				continue;
+			}
+			if (current == null) {
+				current = new Chunk();
+			}
+			current.add(entry, sha1);
+			if (current.size >= chunkSize) {
+				chunks.add(current.complete());
+				current = null;
+			}
+		}
+		if (current != null) {
+			chunks.add(current.complete());
+		}
+		return chunks;
+	}
+
+	protected Properties loadProgress() {
+		Properties progress = new Properties();
+		if (progressFile != null && progressFile.exists()) {
+			InputStream in = null;
+			try {
+				in = new FileInputStream(progressFile);
+				progress.load(in);
+			}
+			catch (IOException e) {
+				// Start over if the progress cannot be read
+				CloudFoundryPlugin.logError(NLS.bind("Unable to read upload progress for {0}", appName), e);
+			}
+			finally {
+				close(in);
+			}
+		}
+		return progress;
+	}
+
+	protected void saveProgress(Properties progress) {
+		if (progressFile == null) {
+			return;
+		}
+		File parent = progressFile.getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(progressFile);
+			progress.store(out, appName);
+		}
+		catch (IOException e) {
+			// Not fatal, as the upload itself succeeded
+			CloudFoundryPlugin.logError(NLS.bind("Unable to record upload progress for {0}", appName), e);
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	protected void clearProgress() {
+		if (progressFile != null && progressFile.exists()) {
+			progressFile.delete();
+		}
+	}
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private static void close(OutputStream out) {
+		if (out != null) {
+			try {
+				out.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Group of archive file entries that is uploaded in one request. The
+	 * checksum is computed from the entry names and sha1 digests, so a chunk
+	 * is only considered acknowledged if the same content was uploaded before.
+	 */
+	protected static class Chunk {
+
+		final List<Entry> entries = new ArrayList<Entry>();
+
+		long size;
+
+		String checksum;
+
+		private final MessageDigest digest;
+
+		Chunk() {
+			try {
+				digest = MessageDigest.getInstance("SHA-1");
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		void add(Entry entry, byte[] sha1) {
+			entries.add(entry);
+			long entrySize = entry.getSize();
+			if (entrySize > 0) {
+				size += entrySize;
+			}
+			try {
+				digest.update(entry.getName().getBytes("UTF-8"));
+			}
+			catch (IOException e) {
+				digest.update(entry.getName().getBytes());
+			}
+			digest.update(sha1);
+		}
+
+		Chunk complete() {
+			byte[] bytes = digest.digest();
+			StringBuilder builder = new StringBuilder(bytes.length * 2);
+			for (byte b : bytes) {
+				String hex = Integer.toHexString(b & 0xff);
+				if (hex.length() == 1) {
+					builder.append('0');
+				}
+				builder.append(hex);
+			}
+			checksum = builder.toString();
+			return this;
+		}
+	}
+
+}
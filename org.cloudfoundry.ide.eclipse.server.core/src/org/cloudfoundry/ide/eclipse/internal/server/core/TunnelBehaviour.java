@@ -10,13 +10,18 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.core;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.cloudfoundry.caldecott.TunnelException;
 import org.cloudfoundry.caldecott.client.HttpTunnelFactory;
@@ -27,17 +32,25 @@ import org.cloudfoundry.client.lib.CloudFoundryClient;
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.client.lib.HttpProxyConfiguration;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
 import org.cloudfoundry.client.lib.domain.CloudService;
 import org.cloudfoundry.client.lib.domain.DeploymentInfo;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottAppState;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottAppStateCache;
 import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottTunnelDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.MeteredTunnelFactory;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelConnectionPool;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelExecutor.TunnelTaskExecutor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelMetrics;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelPortAllocator;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
 import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Primary handler for all Caldecott operations, like starting and stopping a
@@ -65,9 +78,12 @@ public class TunnelBehaviour {
 
 	private final CloudFoundryServer cloudServer;
 
-	public static final int BASE_PORT = 10100;
-
-	public static final int MAX_PORT = 49150;
+	/**
+	 * Number of attempts to bind a tunnel server to a local port, in case a
+	 * free port is taken by another process before the tunnel server binds to
+	 * it.
+	 */
+	public static final int MAX_BIND_ATTEMPTS = 5;
 
 	public TunnelBehaviour(CloudFoundryServer cloudServer) {
 		this.cloudServer = cloudServer;
@@ -75,32 +91,57 @@ public class TunnelBehaviour {
 
 	protected boolean bindServiceToCaldecottApp(String serviceName, CloudFoundryOperations client, SubMonitor monitor)
 			throws CoreException {
-
 		CloudApplication caldecottApp = getCaldecottApp(client);
+		List<String> serviceNames = new ArrayList<String>();
+		serviceNames.add(serviceName);
+		bindServicesToCaldecottApp(serviceNames, caldecottApp, monitor);
+		return getCaldecottApp(client).getServices().contains(serviceName);
+	}
+
+	/**
+	 * Binds all the given services that are not yet bound to the Caldecott
+	 * application with a single services update, so that the application is
+	 * stopped at most once regardless of the number of services.
+	 * @param serviceNames
+	 * @param caldecottApp
+	 * @param monitor
+	 * @return services that were newly bound. Empty if all services were
+	 * already bound.
+	 * @throws CoreException
+	 */
+	protected List<String> bindServicesToCaldecottApp(List<String> serviceNames, CloudApplication caldecottApp,
+			SubMonitor monitor) throws CoreException {
+
 		List<String> updateCaldecottServices = new ArrayList<String>();
 		List<String> existingServices = caldecottApp.getServices();
 		if (existingServices != null) {
 			updateCaldecottServices.addAll(existingServices);
 		}
 
-		IModule caldecottModule = getCaldecottModule(monitor.newChild(1));
+		List<String> toBind = new ArrayList<String>();
+		for (String serviceName : serviceNames) {
+			if (!updateCaldecottServices.contains(serviceName) && !toBind.contains(serviceName)) {
+				toBind.add(serviceName);
+			}
+		}
+
+		if (!toBind.isEmpty()) {
+			monitor.setTaskName("Binding services " + toBind + " to tunnel application");
 
-		if (!updateCaldecottServices.contains(serviceName)) {
-			monitor.setTaskName("Binding service " + serviceName + " to tunnel application");
+			IModule caldecottModule = getCaldecottModule(monitor.newChild(1));
 
-			updateCaldecottServices.add(serviceName);
+			updateCaldecottServices.addAll(toBind);
 			CloudFoundryServerBehaviour behaviour = cloudServer.getBehaviour();
 			behaviour.stopModule(new IModule[] { caldecottModule }, monitor.newChild(1));
 			behaviour.updateServices(TunnelHelper.getTunnelAppName(), updateCaldecottServices, monitor.newChild(1));
+			invalidateCaldecottAppState();
 
-			setDeploymentServices(serviceName, monitor.newChild(1));
-
-			return caldecottApp.getServices().contains(serviceName);
-		}
-		else {
-			return true;
+			for (String serviceName : toBind) {
+				setDeploymentServices(serviceName, monitor.newChild(1));
+			}
 		}
 
+		return toBind;
 	}
 
 	public static boolean isCaldecottApp(String appName) {
@@ -113,10 +154,20 @@ public class TunnelBehaviour {
 		CloudApplication caldecottApp = getCaldecottApp(client);
 
 		new StartApplicationInWaitOperation(cloudServer).run(progress, caldecottApp);
+		invalidateCaldecottAppState();
 
 	}
 
+	/**
+	 * Returns the tunnel URI, which is resolved only once for as long as the
+	 * Caldecott application URIs do not change.
+	 */
 	protected String getTunnelUri(final CloudFoundryOperations client, IProgressMonitor progress) throws CoreException {
+		CaldecottAppState state = getCaldecottAppState(client);
+		if (state != null && state.getTunnelUri() != null) {
+			return state.getTunnelUri();
+		}
+
 		int ticks = 10;
 		long sleep = 3000;
 
@@ -133,25 +184,74 @@ public class TunnelBehaviour {
 
 		}.run(progress);
 
+		if (state != null) {
+			state.setTunnelUri(url);
+		}
 		return url;
 	}
 
 	protected String getTunnelAuthorisation(CloudFoundryOperations operations) {
+		CaldecottAppState state = CloudFoundryPlugin.getCaldecottAppStateCache().getState(cloudServer);
+		if (state != null && state.getAuthToken() != null) {
+			return state.getAuthToken();
+		}
 		if (operations instanceof CloudFoundryClient) {
 			return TunnelHelper.getTunnelAuth((CloudFoundryClient) operations);
 		}
 		return null;
 	}
 
-	public synchronized CaldecottTunnelDescriptor startCaldecottTunnel(final String serviceName,
+	/**
+	 * Opens a tunnel to the given service. If the service is already bound
+	 * and the Caldecott application is running, the application is not
+	 * restarted.
+	 * @param serviceName
+	 * @param monitor
+	 * @return descriptor of the opened tunnel, or null if it could not be
+	 * opened
+	 * @throws CoreException
+	 * @see #startCaldecottTunnels(List, IProgressMonitor)
+	 */
+	public synchronized CaldecottTunnelDescriptor startCaldecottTunnel(String serviceName, IProgressMonitor monitor)
+			throws CoreException {
+		List<String> serviceNames = new ArrayList<String>(1);
+		serviceNames.add(serviceName);
+		List<CaldecottTunnelDescriptor> descriptors = startCaldecottTunnels(serviceNames, monitor);
+		return descriptors.size() > 0 ? descriptors.get(0) : null;
+	}
+
+	/**
+	 * Opens tunnels to all the given services. Services not yet bound to the
+	 * Caldecott application are bound in a single update, and the application
+	 * is restarted at most once. Lookups that do not depend on the services
+	 * being bound, like the tunnel URL and the service vendors, run
+	 * concurrently with binding the services, and the tunnel servers for all
+	 * services are then opened concurrently. All opened tunnels are
+	 * registered in the tunnel cache together.
+	 * <p/>
+	 * A failure to open a tunnel to one service does not prevent tunnels to
+	 * the other services being opened. The failure is logged, and only thrown
+	 * if no tunnel could be opened.
+	 * @param serviceNames
+	 * @param monitor
+	 * @return non-null list of descriptors of the opened tunnels. May be
+	 * empty if no tunnels could be opened.
+	 * @throws CoreException
+	 */
+	public synchronized List<CaldecottTunnelDescriptor> startCaldecottTunnels(final List<String> serviceNames,
 			IProgressMonitor monitor) throws CoreException {
 
-		final List<CaldecottTunnelDescriptor> tunnel = new ArrayList<CaldecottTunnelDescriptor>(1);
+		final List<CaldecottTunnelDescriptor> tunnels = new ArrayList<CaldecottTunnelDescriptor>(serviceNames.size());
 
-		cloudServer.getBehaviour().new Request<CaldecottTunnelDescriptor>("Opening Tunnel") {
+		if (serviceNames.isEmpty()) {
+			return tunnels;
+		}
+
+		cloudServer.getBehaviour().new Request<List<CaldecottTunnelDescriptor>>(
+				serviceNames.size() > 1 ? "Opening Tunnels" : "Opening Tunnel") {
 
 			@Override
-			protected CaldecottTunnelDescriptor doRun(final CloudFoundryOperations client, SubMonitor progress)
+			protected List<CaldecottTunnelDescriptor> doRun(final CloudFoundryOperations client, SubMonitor progress)
 					throws CoreException {
 				int totalWorkTicks = 100;
 				int worked = 10;
@@ -161,104 +261,237 @@ public class TunnelBehaviour {
 				CloudApplication caldecottApp = getOrDeployCaldecottApp(getSubMonitor(worked, progress), client);
 
 				if (caldecottApp == null) {
-					return null;
+					return tunnels;
 				}
 
-				bindServiceToCaldecottApp(serviceName, client, getSubMonitor(worked, progress));
+				// Lookups running concurrently only check the parent monitor
+				// for cancellation, as progress monitors are not thread safe.
+				final SubMonitor parentProgress = progress;
+				final IProgressMonitor lookupMonitor = new NullProgressMonitor() {
+					@Override
+					public boolean isCanceled() {
+						return parentProgress.isCanceled();
+					}
+				};
 
-				// The application must be started before creating a tunnel
+				final FutureTask<String> urlLookup = startLookup("URL", new Callable<String>() {
+					public String call() throws Exception {
+						return getTunnelUri(client, lookupMonitor);
+					}
+				});
 
-				startCaldecottApp(getSubMonitor(worked, progress), client);
+				final FutureTask<Map<String, String>> vendorLookup = startLookup("service vendor",
+						new Callable<Map<String, String>>() {
+							public Map<String, String> call() throws Exception {
+								return getServiceVendors(client, serviceNames);
+							}
+						});
 
-				CaldecottTunnelDescriptor oldDescriptor = CloudFoundryPlugin.getCaldecottTunnelCache().getDescriptor(
-						cloudServer, serviceName);
+				List<FutureTask<CaldecottTunnelDescriptor>> tunnelLookups = new ArrayList<FutureTask<CaldecottTunnelDescriptor>>();
 
-				if (oldDescriptor != null) {
-					try {
-						progress.setTaskName("Stopping existing tunnel");
-						stopAndDeleteCaldecottTunnel(serviceName, getSubMonitor(worked, progress));
+				// Tunnels created by the lookups until they are no longer
+				// waited for. Tunnels created by lookups that complete
+				// afterwards are disposed by the lookups themselves
+				final List<CaldecottTunnelDescriptor> createdTunnels = new ArrayList<CaldecottTunnelDescriptor>();
+				final boolean[] lookupsAbandoned = new boolean[1];
+				boolean registered = false;
 
-					}
-					catch (CoreException e) {
-						CloudFoundryPlugin.logError(NLS.bind(
-								"Failed to stop existing tunnel for service {0}. Unable to create new tunnel.",
-								new Object[] { serviceName }));
-						return null;
-					}
-				}
-
-				String url = getTunnelUri(client, getSubMonitor(worked, progress));
+				try {
+					List<String> bound = bindServicesToCaldecottApp(serviceNames, caldecottApp,
+							getSubMonitor(worked, progress));
 
-				Map<String, String> info = getTunnelInfo(client, serviceName, getSubMonitor(worked, progress));
-				if (info == null) {
-					CloudFoundryPlugin.logError(NLS.bind("Failed to obtain tunnel information for {0}.",
-							new Object[] { serviceName }));
+					// The application must be started before creating a tunnel
+					if (!bound.isEmpty() || caldecottApp.getState() != AppState.STARTED) {
+						startCaldecottApp(getSubMonitor(worked, progress), client);
+					}
 
-					return null;
-				}
+					for (String serviceName : serviceNames) {
+						if (CloudFoundryPlugin.getCaldecottTunnelCache().getDescriptor(cloudServer, serviceName) != null) {
+							try {
+								progress.setTaskName("Stopping existing tunnel");
+								stopAndDeleteCaldecottTunnel(serviceName, getSubMonitor(1, progress));
+							}
+							catch (CoreException e) {
+								CloudFoundryPlugin.logError(NLS.bind(
+										"Failed to stop existing tunnel for service {0}. Unable to create new tunnel.",
+										new Object[] { serviceName }));
+								return tunnels;
+							}
+						}
+					}
 
-				String host = info.get("hostname");
-				int port = Integer.valueOf(info.get("port"));
-				String auth = getTunnelAuthorisation(client);
-				String serviceUserName = info.get("username");
-				String servicePassword = info.get("password");
-				String dataBase = getServiceVendor(serviceName, getSubMonitor(worked, progress));
+					progress.setTaskName("Getting tunnel information");
+
+					for (final String serviceName : serviceNames) {
+						tunnelLookups.add(startLookup(serviceName, new Callable<CaldecottTunnelDescriptor>() {
+							public CaldecottTunnelDescriptor call() throws Exception {
+								Map<String, String> info = getTunnelInfo(client, serviceName, lookupMonitor);
+								if (info == null) {
+									// The cached Caldecott application state
+									// may be out of date
+									invalidateCaldecottAppState();
+									CloudFoundryPlugin.logError(NLS.bind(
+											"Failed to obtain tunnel information for {0}.",
+											new Object[] { serviceName }));
+									return null;
+								}
+								String url = getLookupResult(urlLookup);
+								String dataBase = getLookupResult(vendorLookup).get(serviceName);
+								CaldecottTunnelDescriptor descriptor = createTunnel(client, serviceName, url,
+										dataBase, info);
+								synchronized (lookupsAbandoned) {
+									if (!lookupsAbandoned[0]) {
+										if (descriptor != null) {
+											createdTunnels.add(descriptor);
+										}
+										return descriptor;
+									}
+								}
+								if (descriptor != null) {
+									disposeTunnel(descriptor);
+								}
+								return null;
+							}
+						}));
+					}
 
-				String name = info.get("vhost");
-				if (name == null) {
-					name = info.get("db") != null ? info.get("db") : info.get("name");
-				}
+					Exception error = null;
+					for (FutureTask<CaldecottTunnelDescriptor> lookup : tunnelLookups) {
+						try {
+							CaldecottTunnelDescriptor descriptor = getLookupResult(lookup);
+							if (descriptor != null) {
+								tunnels.add(descriptor);
+							}
+						}
+						catch (CoreException e) {
+							error = e;
+						}
+						catch (OperationCanceledException e) {
+							// Tunnel servers already created are disposed
+							// below, as they are not registered
+							tunnels.clear();
+							throw e;
+						}
+						catch (RuntimeException e) {
+							error = e;
+						}
+					}
 
-				// Use proxy settings if they exist
+					if (error != null && !tunnels.isEmpty()) {
+						CloudFoundryPlugin.logError(error);
+					}
 
-				HttpProxyConfiguration proxyConfiguration = null;
+					if (!tunnels.isEmpty()) {
+						progress.setTaskName("Starting tunnel servers");
+						for (CaldecottTunnelDescriptor descriptor : tunnels) {
+							descriptor.getTunnelServer().start();
+						}
+						CloudFoundryPlugin.getCaldecottTunnelCache().addDescriptors(cloudServer, tunnels);
+						registered = true;
+
+						// Update any UI that needs to be notified that tunnels
+						// were created
+						CloudFoundryPlugin.getCallback().displayCaldecottTunnelConnections(cloudServer,
+								new ArrayList<CaldecottTunnelDescriptor>(tunnels));
+					}
+					else if (error instanceof CoreException) {
+						throw (CoreException) error;
+					}
+					else if (error instanceof RuntimeException) {
+						throw (RuntimeException) error;
+					}
 
-				try {
-					URL urlOb = new URL(url);
-					proxyConfiguration = CloudFoundryClientFactory.getProxy(urlOb);
-				}
-				catch (MalformedURLException e) {
-					// Unable to handle proxy URL. Attempt to connect anyway.
+					return tunnels;
 				}
+				finally {
+					synchronized (lookupsAbandoned) {
+						lookupsAbandoned[0] = true;
+					}
+					urlLookup.cancel(true);
+					vendorLookup.cancel(true);
+					for (FutureTask<CaldecottTunnelDescriptor> lookup : tunnelLookups) {
+						lookup.cancel(true);
+					}
 
-				TunnelFactory tunnelFactory = new HttpTunnelFactory(url, host, port, auth, proxyConfiguration);
-
-				List<TunnelServer> tunnelServers = new ArrayList<TunnelServer>(1);
-				int localPort = getTunnelServer(tunnelFactory, tunnelServers);
-
-				if (tunnelServers.isEmpty() || localPort == -1) {
-					CloudFoundryPlugin
-							.logError(NLS
-									.bind("Tunnel information obtained for {0}, but failed to create tunnel server for ports between: {1} and {2}",
-											new Object[] { serviceName, new Integer(BASE_PORT), new Integer(MAX_PORT) }));
-					return null;
+					// Close the tunnel servers, ports and connection pools of
+					// the completed lookups, whether their result was collected
+					// or not, unless they were registered
+					if (!registered) {
+						for (CaldecottTunnelDescriptor descriptor : createdTunnels) {
+							disposeTunnel(descriptor);
+						}
+					}
 				}
+			}
 
-				TunnelServer tunnelServer = tunnelServers.get(0);
+		}.run(monitor);
 
-				progress.setTaskName("Starting tunnel server");
-				tunnelServer.start();
+		return tunnels;
+	}
 
-				CaldecottTunnelDescriptor descriptor = new CaldecottTunnelDescriptor(serviceUserName, servicePassword,
-						name, serviceName, dataBase, tunnelServer, localPort);
+	/**
+	 * Creates a tunnel server once all information required for a tunnel has
+	 * been obtained. The tunnel server is not started, nor registered in the
+	 * tunnel cache.
+	 * @return descriptor for the created tunnel, or null if no tunnel server
+	 * could be created
+	 */
+	protected CaldecottTunnelDescriptor createTunnel(CloudFoundryOperations client, String serviceName, String url,
+			String dataBase, Map<String, String> info) throws CoreException {
+
+		String host = info.get("hostname");
+		int port = Integer.valueOf(info.get("port"));
+		String auth = getTunnelAuthorisation(client);
+		String serviceUserName = info.get("username");
+		String servicePassword = info.get("password");
+
+		String name = info.get("vhost");
+		if (name == null) {
+			name = info.get("db") != null ? info.get("db") : info.get("name");
+		}
 
-				CloudFoundryPlugin.getCaldecottTunnelCache().addDescriptor(cloudServer, descriptor);
-				tunnel.add(descriptor);
+		// Use proxy settings if they exist
 
-				CloudFoundryCallback callBack = CloudFoundryPlugin.getCallback();
-				List<CaldecottTunnelDescriptor> descriptors = new ArrayList<CaldecottTunnelDescriptor>();
-				descriptors.add(descriptor);
+		HttpProxyConfiguration proxyConfiguration = null;
 
-				// Update any UI that needs to be notified that a tunnel was
-				// created
-				callBack.displayCaldecottTunnelConnections(cloudServer, descriptors);
+		try {
+			URL urlOb = new URL(url);
+			proxyConfiguration = CloudFoundryClientFactory.getProxy(urlOb);
+		}
+		catch (MalformedURLException e) {
+			// Unable to handle proxy URL. Attempt to connect anyway.
+		}
 
-				return descriptor;
+		// Share kept-alive HTTP connections between all connections through
+		// the tunnel, and record their traffic
+		TunnelConnectionPool connectionPool = new TunnelConnectionPool(CloudFoundryPlugin.getDefault()
+				.getTunnelMaxLocalConnections(), proxyConfiguration);
+		TunnelMetrics metrics = new TunnelMetrics();
+		TunnelFactory tunnelFactory = new MeteredTunnelFactory(new HttpTunnelFactory(url, host, port, auth,
+				connectionPool.getRestOperations()), metrics);
+
+		List<TunnelServer> tunnelServers = new ArrayList<TunnelServer>(1);
+		TunnelTaskExecutor executor = getTunnelServerThreadExecutor(serviceName);
+		int localPort = -1;
+		try {
+			localPort = getTunnelServer(serviceName, tunnelFactory, executor, tunnelServers);
+		}
+		finally {
+			if (tunnelServers.isEmpty() || localPort == -1) {
+				executor.dispose();
+				connectionPool.shutdown();
 			}
+		}
 
-		}.run(monitor);
+		if (tunnelServers.isEmpty() || localPort == -1) {
+			CloudFoundryPlugin.logError(NLS.bind(
+					"Tunnel information obtained for {0}, but failed to create tunnel server on a local port",
+					new Object[] { serviceName }));
+			return null;
+		}
 
-		return tunnel.size() > 0 ? tunnel.get(0) : null;
+		return new CaldecottTunnelDescriptor(serviceUserName, servicePassword, name, serviceName, dataBase,
+				tunnelServers.get(0), executor, metrics, connectionPool, localPort);
 	}
 
 	/**
@@ -278,40 +511,58 @@ public class TunnelBehaviour {
 	}
 
 	/**
-	 * 
+	 * Creates a tunnel server bound to a local port. The port last used by a
+	 * tunnel for the same service is tried first, so that connection URLs
+	 * remain the same when a tunnel is reopened. Otherwise, a free ephemeral
+	 * port is obtained from the operating system, so that opening a tunnel
+	 * normally costs a single bind.
+	 * @param serviceName
 	 * @param tunnelFactory
+	 * @param executor executor for the tunnel server I/O tasks
 	 * @param server non null, where created tunnel will be stored.
 	 * @return -1 if port failed to open
-	 * @throws CoreException
+	 * @throws CoreException if binding to a local port failed on all attempts
 	 */
-	protected int getTunnelServer(TunnelFactory tunnelFactory, List<TunnelServer> tunnelServers) throws CoreException {
+	protected int getTunnelServer(String serviceName, TunnelFactory tunnelFactory, TaskExecutor executor,
+			List<TunnelServer> tunnelServers) throws CoreException {
 
-		RuntimeException se = null;
+		TunnelPortAllocator allocator = CloudFoundryPlugin.getTunnelPortAllocator();
+		String serverId = cloudServer.getServerId();
 
-		int port = -1;
-		TunnelServer tunnelServer = null;
-		for (int i = BASE_PORT; i <= MAX_PORT; i++) {
+		Exception error = null;
+		int port = allocator.getPreferredPort(serverId, serviceName);
+
+		for (int attempt = 0; attempt < MAX_BIND_ATTEMPTS; attempt++) {
+			if (port == -1) {
+				try {
+					port = allocator.getEphemeralPort(LOCAL_HOST);
+				}
+				catch (IOException e) {
+					error = e;
+					continue;
+				}
+			}
 
 			try {
-				InetSocketAddress local = new InetSocketAddress(LOCAL_HOST, i);
-				tunnelServer = new TunnelServer(local, tunnelFactory, getTunnelServerThreadExecutor());
+				InetSocketAddress local = new InetSocketAddress(LOCAL_HOST, port);
+				TunnelServer tunnelServer = new TunnelServer(local, tunnelFactory, executor);
+				allocator.register(serverId, serviceName, port);
 				tunnelServers.add(tunnelServer);
-				port = i;
-				break;
+				return port;
 			}
 			catch (TunnelException e) {
-				se = e;
+				error = e;
 			}
 			catch (SecurityException e) {
-				se = e;
+				error = e;
 			}
-
+			port = -1;
 		}
-		// Only rethrow security exception if all ports have failed
-		if (tunnelServer == null && se != null) {
-			throw new CoreException(CloudFoundryPlugin.getErrorStatus(se));
+
+		if (error != null) {
+			throw new CoreException(CloudFoundryPlugin.getErrorStatus(error));
 		}
-		return port;
+		return -1;
 
 	}
 
@@ -354,25 +605,87 @@ public class TunnelBehaviour {
 		return serviceChanges;
 	}
 
-	protected TaskExecutor getTunnelServerThreadExecutor() {
-		int defaultPoolSize = 20;
-		ThreadPoolTaskExecutor te = new ThreadPoolTaskExecutor();
-		te.setCorePoolSize(defaultPoolSize);
-		te.setMaxPoolSize(defaultPoolSize * 2);
-		te.setQueueCapacity(100);
-		return te;
+	/**
+	 * Tunnel servers share a single I/O thread pool, rather than each tunnel
+	 * server creating its own. The returned executor must be disposed when the
+	 * tunnel server is stopped.
+	 * @param serviceName
+	 * @return non-null executor for a new tunnel server
+	 */
+	protected TunnelTaskExecutor getTunnelServerThreadExecutor(String serviceName) {
+		return CloudFoundryPlugin.getTunnelExecutor().createTunnelExecutor(serviceName);
 	}
 
-	protected String getServiceVendor(String serviceName, IProgressMonitor monitor) throws CoreException {
-		List<CloudService> services = cloudServer.getBehaviour().getServices(monitor);
+	/**
+	 * Looks up the vendors of the given services. A single service is looked
+	 * up on its own, rather than listing all services.
+	 * @param client
+	 * @param serviceNames
+	 * @return map of service name to vendor or label of the service. Services
+	 * that are not found are not included.
+	 */
+	protected Map<String, String> getServiceVendors(CloudFoundryOperations client, List<String> serviceNames) {
+		Map<String, String> vendors = new HashMap<String, String>();
+		List<CloudService> services = null;
+		if (serviceNames.size() == 1) {
+			CloudService service = client.getService(serviceNames.get(0));
+			if (service != null) {
+				services = new ArrayList<CloudService>(1);
+				services.add(service);
+			}
+		}
+		else {
+			services = client.getServices();
+		}
 		if (services != null) {
 			for (CloudService service : services) {
-				if (serviceName.equals(service.getName())) {
-					return cloudServer.supportsCloudSpaces() ? service.getLabel() : service.getVendor();
+				if (serviceNames.contains(service.getName())) {
+					vendors.put(service.getName(), cloudServer.supportsCloudSpaces() ? service.getLabel() : service
+							.getVendor());
 				}
 			}
 		}
-		return null;
+		return vendors;
+	}
+
+	/**
+	 * Starts a lookup that does not depend on other steps of opening a
+	 * tunnel, so that it runs concurrently with those steps.
+	 * @param name used for the lookup thread name
+	 * @param lookup
+	 * @return started lookup task
+	 */
+	protected <T> FutureTask<T> startLookup(String name, Callable<T> lookup) {
+		FutureTask<T> task = new FutureTask<T>(lookup);
+		Thread thread = new Thread(task, "Caldecott tunnel " + name + " lookup");
+		thread.setDaemon(true);
+		thread.start();
+		return task;
+	}
+
+	/**
+	 * Waits for a lookup started by {@link #startLookup(String, Callable)}.
+	 * Runtime exceptions thrown by the lookup, like client errors, are
+	 * rethrown as is, so that they are handled like errors in the calling
+	 * request.
+	 */
+	protected <T> T getLookupResult(FutureTask<T> lookup) throws CoreException {
+		try {
+			return lookup.get();
+		}
+		catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CoreException) {
+				throw (CoreException) cause;
+			}
+			else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new CoreException(CloudFoundryPlugin.getErrorStatus(cause));
+		}
 	}
 
 	protected Map<String, String> getTunnelInfo(final CloudFoundryOperations client, final String serviceName,
@@ -432,11 +745,32 @@ public class TunnelBehaviour {
 		CaldecottTunnelDescriptor tunnelDescriptor = CloudFoundryPlugin.getCaldecottTunnelCache().getDescriptor(
 				cloudServer, serviceName);
 		if (tunnelDescriptor != null) {
-			tunnelDescriptor.getTunnelServer().stop();
+			disposeTunnel(tunnelDescriptor);
 		}
 		return tunnelDescriptor;
 	}
 
+	/**
+	 * Stops the tunnel server of the given tunnel, and releases its local
+	 * port, its share of the tunnel I/O pool and its HTTP connections.
+	 */
+	protected void disposeTunnel(CaldecottTunnelDescriptor tunnelDescriptor) {
+		tunnelDescriptor.getTunnelServer().stop();
+
+		// Release the tunnel's share of the tunnel I/O pool
+		TunnelTaskExecutor executor = tunnelDescriptor.getTunnelExecutor();
+		if (executor != null) {
+			executor.dispose();
+		}
+
+		// Close the kept-alive connections to the Caldecott application
+		TunnelConnectionPool connectionPool = tunnelDescriptor.getConnectionPool();
+		if (connectionPool != null) {
+			connectionPool.shutdown();
+		}
+		CloudFoundryPlugin.getTunnelPortAllocator().release(tunnelDescriptor.tunnelPort());
+	}
+
 	public synchronized boolean hasCaldecottTunnels() {
 		Collection<CaldecottTunnelDescriptor> descriptors = CloudFoundryPlugin.getCaldecottTunnelCache()
 				.getDescriptors(cloudServer);
@@ -458,16 +792,45 @@ public class TunnelBehaviour {
 		return getCaldecottTunnel(serviceName) != null;
 	}
 
-	protected synchronized CloudApplication getCaldecottApp(CloudFoundryOperations client) throws CoreException {
-
-		CloudApplication caldecottApp = null;
-		try {
-			caldecottApp = client.getApplication(TunnelHelper.getTunnelAppName());
-		}
-		catch (Throwable e) {
-			throw new CoreException(CloudFoundryPlugin.getErrorStatus(e));
+	/**
+	 * Returns the state of the Caldecott application from the Caldecott
+	 * application cache, and only queries the controller if the state is not
+	 * cached.
+	 * @param client
+	 * @return state of the Caldecott application, or null if it is not
+	 * deployed
+	 * @throws CoreException if the Caldecott application could not be
+	 * obtained
+	 */
+	protected CaldecottAppState getCaldecottAppState(CloudFoundryOperations client) throws CoreException {
+		CaldecottAppStateCache cache = CloudFoundryPlugin.getCaldecottAppStateCache();
+		CaldecottAppState state = cache.getState(cloudServer);
+		if (state == null) {
+			CloudApplication caldecottApp = null;
+			try {
+				caldecottApp = client.getApplication(TunnelHelper.getTunnelAppName());
+			}
+			catch (Throwable e) {
+				throw new CoreException(CloudFoundryPlugin.getErrorStatus(e));
+			}
+			if (caldecottApp != null) {
+				state = cache.putState(cloudServer, caldecottApp);
+			}
 		}
-		return caldecottApp;
+		return state;
+	}
+
+	/**
+	 * Discards the cached Caldecott application state. Must be called after
+	 * any change to the Caldecott application.
+	 */
+	protected void invalidateCaldecottAppState() {
+		CloudFoundryPlugin.getCaldecottAppStateCache().invalidate(cloudServer);
+	}
+
+	protected CloudApplication getCaldecottApp(CloudFoundryOperations client) throws CoreException {
+		CaldecottAppState state = getCaldecottAppState(client);
+		return state != null ? state.getApplication() : null;
 	}
 
 	/**
@@ -491,15 +854,11 @@ public class TunnelBehaviour {
 		}
 
 		if (caldecottApp == null) {
+			invalidateCaldecottAppState();
 			deployCaldecottApp(monitor, client);
+			caldecottApp = getCaldecottApp(client);
 		}
 
-		try {
-			caldecottApp = client.getApplication(TunnelHelper.getTunnelAppName());
-		}
-		catch (Throwable e) {
-			throw new CoreException(CloudFoundryPlugin.getErrorStatus(e));
-		}
 		return caldecottApp;
 	}
 
@@ -531,7 +890,7 @@ public class TunnelBehaviour {
 
 	}
 
-	public synchronized ApplicationModule getCaldecottModule(IProgressMonitor monitor) throws CoreException {
+	public ApplicationModule getCaldecottModule(IProgressMonitor monitor) throws CoreException {
 		return cloudServer.getApplicationModule(TunnelHelper.getTunnelAppName());
 	}
 
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+
+/**
+ * Table of zip-relative names for module resources, built once per publish
+ * operation. The same zip-relative name is requested several times for each
+ * module resource during an incremental publish (when computing changed
+ * resources, creating archive entries and writing the partial war file), and
+ * this table ensures that each name is only computed once.
+ * <p/>
+ * Names of folder members are derived from the name of their parent folder
+ * rather than building a new path for each member, so that member names share
+ * the same computation as the parent prefix.
+ * <p/>
+ * Resources are keyed by identity, as module resources are not guaranteed to
+ * implement equals and hashCode. Resources not known to the table are computed
+ * on demand and added to the table.
+ */
+public class ZipRelativeNameTable {
+
+	private final Map<IModuleResource, String> names = new IdentityHashMap<IModuleResource, String>();
+
+	public ZipRelativeNameTable(List<IModuleResource> resources) {
+		if (resources != null) {
+			for (IModuleResource resource : resources) {
+				addResource(resource, null);
+			}
+		}
+	}
+
+	protected void addResource(IModuleResource resource, String parentName) {
+		String name = parentName != null ? getMemberName(parentName, resource) : CloudUtil
+				.getZipRelativeName(resource);
+		names.put(resource, name);
+
+		if (resource instanceof IModuleFolder) {
+			IModuleResource[] members = ((IModuleFolder) resource).members();
+			if (members != null) {
+				for (IModuleResource member : members) {
+					addResource(member, name);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param resource
+	 * @return zip-relative name of the given resource. Never null.
+	 */
+	public synchronized String getZipRelativeName(IModuleResource resource) {
+		// Delta wrappers are different instances than the module resources in
+		// the table, so look up the wrapped resource instead
+		IModuleResource key = resource instanceof ModuleResourceDeltaWrapper ? ((ModuleResourceDeltaWrapper) resource)
+				.getResourceDelta().getModuleResource() : resource;
+
+		String name = names.get(key);
+		if (name == null) {
+			name = CloudUtil.getZipRelativeName(key);
+			names.put(key, name);
+		}
+		return name;
+	}
+
+	public synchronized int size() {
+		return names.size();
+	}
+
+	protected String getMemberName(String parentName, IModuleResource member) {
+		String memberName = member.getName();
+
+		// Portable path strings escape device separators, so fall back to the
+		// path computation in that case
+		if (memberName == null || memberName.indexOf(':') >= 0) {
+			return CloudUtil.getZipRelativeName(member);
+		}
+
+		StringBuilder builder = new StringBuilder(parentName.length() + memberName.length() + 1);
+		builder.append(parentName);
+		builder.append(memberName);
+		if (member instanceof IModuleFolder) {
+			builder.append('/');
+		}
+		return builder.toString();
+	}
+
+}
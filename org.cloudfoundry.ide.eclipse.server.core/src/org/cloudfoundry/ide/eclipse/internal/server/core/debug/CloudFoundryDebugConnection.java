@@ -12,12 +12,12 @@ package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
-import org.cloudfoundry.client.lib.domain.InstanceInfo;
 import org.cloudfoundry.client.lib.domain.InstancesInfo;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
-import org.cloudfoundry.ide.eclipse.internal.server.core.WaitWithProgressJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.wst.server.core.IModule;
@@ -36,68 +36,60 @@ public class CloudFoundryDebugConnection {
 		this.modules = modules;
 	}
 
-	public List<DebugConnectionDescriptor> getDebugConnectionDescriptors(IProgressMonitor monitor) {
-		final List<List<DebugConnectionDescriptor>> resolvedDescriptors = new ArrayList<List<DebugConnectionDescriptor>>();
+	/**
+	 * Notifies the listener of each application instance as soon as it can be
+	 * connected to a debugger. Instance information from the last refresh of
+	 * the application is used first, if available.
+	 * @param listener
+	 * @param monitor
+	 * @return number of instances that can be connected to a debugger
+	 */
+	public int trackDebugReadiness(IDebugReadinessListener listener, IProgressMonitor monitor) {
+		return new DebugReadinessTracker() {
 
-		try {
-			new WaitWithProgressJob(5, 3000) {
+			protected InstancesInfo getRefreshedInstancesInfo() {
+				ApplicationModule appModule = getApplicationModule();
+				return appModule != null ? appModule.getInstancesInfo() : null;
+			}
 
-				protected boolean internalRunInWait(IProgressMonitor monitor) {
-					List<DebugConnectionDescriptor> descriptors = null;
+			protected InstancesInfo fetchInstancesInfo(IProgressMonitor monitor) {
+				ApplicationModule appModule = getApplicationModule();
+				if (appModule != null) {
 					try {
-						ApplicationModule appModule = cloudFoundryServer.getApplication(modules);
 						InstancesInfo instancesInfo = cloudFoundryServer.getBehaviour().getInstancesInfo(
 								appModule.getApplicationId(), monitor);
-
-						if (instancesInfo != null) {
-							List<InstanceInfo> infos = instancesInfo.getInstances();
-							if (infos != null) {
-								// make sure list of descriptors is same size as
-								// the
-								// number of instance infos, as the descriptor
-								// is
-								// added to the same
-								// info index
-								descriptors = new ArrayList<DebugConnectionDescriptor>(infos.size());
-								for (int i = 0; i < infos.size(); i++) {
-									InstanceInfo info = infos.get(i);
-									String debugIP = info.getDebugIp();
-									int debugPort = info.getDebugPort();
-									DebugConnectionDescriptor descriptor = new DebugConnectionDescriptor(debugIP,
-											debugPort);
-									if (descriptor.areValidIPandPort() && !descriptors.contains(descriptor)) {
-										descriptors.add(i, descriptor);
-									}
-								}
-
-								// keep trying again until all instances are
-								// launched. Since each instance is on a
-								// different
-								// port
-								// checking the size of successfully connected
-								// instances
-								// with the total instances is sufficient
-								if (descriptors.size() == infos.size()) {
-									resolvedDescriptors.add(descriptors);
-									return true;
-								}
-							}
-						}
+						appModule.setInstancesInfo(instancesInfo);
+						return instancesInfo;
 					}
 					catch (CoreException e) {
-						// ignore
+						// ignore and try again
 					}
-					// Try again
-					return false;
 				}
+				return null;
+			}
 
-			}.run(monitor);
-		}
-		catch (Exception e) {
-			// Ignore
-		}
+		}.track(listener, monitor);
+	}
 
-		return !resolvedDescriptors.isEmpty() ? resolvedDescriptors.get(0) : null;
+	/**
+	 * 
+	 * @param monitor
+	 * @return debug connection descriptors of the instances that can be
+	 * connected to a debugger, ordered by instance index, or null if none can
+	 * be connected
+	 */
+	public List<DebugConnectionDescriptor> getDebugConnectionDescriptors(IProgressMonitor monitor) {
+		final Map<Integer, DebugConnectionDescriptor> descriptors = new TreeMap<Integer, DebugConnectionDescriptor>();
+		trackDebugReadiness(new IDebugReadinessListener() {
+			public void instanceReady(int instanceIndex, DebugConnectionDescriptor descriptor) {
+				descriptors.put(instanceIndex, descriptor);
+			}
+		}, monitor);
+
+		return !descriptors.isEmpty() ? new ArrayList<DebugConnectionDescriptor>(descriptors.values()) : null;
+	}
 
+	protected ApplicationModule getApplicationModule() {
+		return cloudFoundryServer.getApplication(modules);
 	}
 }
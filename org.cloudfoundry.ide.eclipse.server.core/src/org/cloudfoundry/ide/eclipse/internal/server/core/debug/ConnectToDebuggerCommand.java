@@ -10,7 +10,11 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.InstanceStats;
@@ -18,21 +22,16 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationAction;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
-import org.cloudfoundry.ide.eclipse.internal.server.core.WaitWithProgressJob;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationType;
-import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.debug.ui.DebugUITools;
 import org.eclipse.debug.ui.IDebugUIConstants;
-import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
 import org.eclipse.wst.server.core.IModule;
 
 /**
@@ -52,6 +51,17 @@ public class ConnectToDebuggerCommand extends DebugCommand {
 
 	protected static final String DEBUG_JOB = "Connecting to debugger";
 
+	/**
+	 * Maximum time in milliseconds to wait for the debug port of an instance
+	 * to accept connections before launching the debugger, including the time
+	 * spent in connection attempts.
+	 */
+	protected static final int DEBUG_PORT_WAIT = 5000;
+
+	private static final int PROBE_INTERVAL = 250;
+
+	private static final int PROBE_TIMEOUT = 1000;
+
 	private final CloudFoundryDebugConnection connection;
 
 	/**
@@ -95,41 +105,25 @@ public class ConnectToDebuggerCommand extends DebugCommand {
 
 	}
 
-	protected ILaunchConfiguration getLaunchConfiguration(String host, int port, int timeout, String appName,
-			String launchName) {
+	/**
+	 * Returns the launch configuration of the given instance, reusing the
+	 * configuration of a previous connection to the same instance, if any.
+	 */
+	protected ILaunchConfiguration getLaunchConfiguration(int instanceIndex, String host, int port, int timeout,
+			String appName, String launchName) {
 		try {
-			ILaunchConfigurationType launchConfigType = DebugPlugin.getDefault().getLaunchManager()
-					.getLaunchConfigurationType(CloudFoundryDebuggingLaunchConfigDelegate.LAUNCH_CONFIGURATION_ID);
-			if (launchConfigType != null) {
-
-				IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(appName);
-
-				// Create the launch configuration, whether the project exists
-				// or not, as there may
-				// not be a local project associated with the deployed app
-				ILaunchConfiguration configuration = launchConfigType.newInstance(project, launchName);
-				ILaunchConfigurationWorkingCopy wc = configuration.getWorkingCopy();
-
-				if (project != null && project.isAccessible()) {
-					wc.setAttribute(IJavaLaunchConfigurationConstants.ATTR_PROJECT_NAME, project.getName());
-
+			ILaunchConfiguration configuration = CloudFoundryPlugin.getDebugLaunchConfigurationRegistry()
+					.getLaunchConfiguration(getDebuggerConnectionIdentifier(), instanceIndex, appName, launchName,
+							host, port, timeout);
+			if (configuration != null) {
+				ILaunchConfigurationType launchConfigType = configuration.getType();
+				if (!IDebugUIConstants.ID_DEBUG_PERSPECTIVE.equals(DebugUITools.getLaunchPerspective(
+						launchConfigType, ILaunchManager.DEBUG_MODE))) {
+					DebugUITools.setLaunchPerspective(launchConfigType, ILaunchManager.DEBUG_MODE,
+							IDebugUIConstants.ID_DEBUG_PERSPECTIVE);
 				}
-
-				// Convert all to String to make it consistent when reading the
-				// attributes later.
-				wc.setAttribute(CloudFoundryDebuggingLaunchConfigDelegate.HOST_NAME, host);
-				wc.setAttribute(CloudFoundryDebuggingLaunchConfigDelegate.PORT, port + "");
-				wc.setAttribute(CloudFoundryDebuggingLaunchConfigDelegate.TIME_OUT, timeout + "");
-				wc.setAttribute(CloudFoundryDebuggingLaunchConfigDelegate.DEBUGGER_CONNECTION_ID,
-						getDebuggerConnectionIdentifier());
-				configuration = wc.doSave();
-
-				DebugUITools.setLaunchPerspective(launchConfigType, ILaunchManager.DEBUG_MODE,
-						IDebugUIConstants.ID_DEBUG_PERSPECTIVE);
-
-				return configuration;
 			}
-
+			return configuration;
 		}
 		catch (CoreException e) {
 			CloudFoundryPlugin.logError(e);
@@ -137,68 +131,95 @@ public class ConnectToDebuggerCommand extends DebugCommand {
 		return null;
 	}
 
-	protected IStatus connect(String debugIP, int debugPort, final IProgressMonitor monitor, String launchLabel) {
-
-		final ILaunchConfiguration launchConfiguration = getLaunchConfiguration(debugIP, debugPort, 5000,
-				getApplicationID(), launchLabel);
-		boolean successful = false;
-		IStatus status = Status.OK_STATUS;
-		if (launchConfiguration != null) {
-			try {
-				Boolean result = new WaitWithProgressJob(5, 1000) {
+	/**
+	 * Launches the debugger once the debug port of the instance accepts
+	 * connections. If the debug port does not accept connections in time, the
+	 * debugger is launched anyway, and reports the connection error itself.
+	 * @param launchConfiguration
+	 * @param debugIP
+	 * @param debugPort
+	 * @param monitor
+	 * @return status of the launch
+	 */
+	protected IStatus launch(ILaunchConfiguration launchConfiguration, String debugIP, int debugPort,
+			IProgressMonitor monitor) {
+		if (launchConfiguration == null) {
+			return CloudFoundryPlugin.getErrorStatus("Failed to connect to Cloud Foundry server - IP: " + debugIP
+					+ " Port: " + debugPort + " Application: " + getApplicationID());
+		}
 
-					private boolean firstTry = true;
+		new DebugPortProbe(PROBE_TIMEOUT).waitUntilListening(debugIP, debugPort, DEBUG_PORT_WAIT, PROBE_INTERVAL,
+				monitor);
 
-					protected boolean internalRunInWait(IProgressMonitor monitor) {
-						// If it is the first try, wait first as it may take a
-						// while
-						// to connect to the JVM.
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
 
-						if (!firstTry) {
-							DebugUITools.launch(launchConfiguration, ILaunchManager.DEBUG_MODE);
-							return true;
-						}
-						else {
-							firstTry = false;
-						}
+		DebugUITools.launch(launchConfiguration, ILaunchManager.DEBUG_MODE);
+		return Status.OK_STATUS;
+	}
 
-						// Failed to connect. Continue retrying.
-						return false;
-					}
+	public String getCommandName() {
+		return DEBUG_JOB;
+	}
 
-				}.run(monitor);
+	protected void connect(final IProgressMonitor monitor) {
 
-				successful = result.booleanValue();
+		// Attach to each instance as soon as it reports its debug port, while
+		// the other instances are still starting. Each attach waits for its
+		// own debug port in a separate thread. Launch configurations are
+		// created in this thread.
+		final IProgressMonitor attachMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
 			}
-			catch (CoreException e) {
-				successful = false;
-				status = CloudFoundryPlugin.getErrorStatus(e);
+		};
+
+		final List<FutureTask<IStatus>> attachments = new ArrayList<FutureTask<IStatus>>();
+		connection.trackDebugReadiness(new IDebugReadinessListener() {
+			public void instanceReady(int instanceIndex, DebugConnectionDescriptor descriptor) {
+				String launchLabel = getLaunchLabel(instanceIndex);
+				ILaunchConfiguration launchConfiguration = getLaunchConfiguration(instanceIndex,
+						descriptor.getIp(), descriptor.getPort(), 5000, getApplicationID(), launchLabel);
+				attachments.add(startAttach(launchConfiguration, descriptor, launchLabel, attachMonitor));
 			}
-		}
+		}, monitor);
 
-		if (!successful && status == null) {
-			status = CloudFoundryPlugin.getErrorStatus("Failed to connect to Cloud Foundry server - IP: " + debugIP
-					+ " Port: " + debugPort + " Application: " + getApplicationID());
+		for (FutureTask<IStatus> attachment : attachments) {
+			IStatus status = getAttachResult(attachment);
+			if (status.getSeverity() == IStatus.ERROR) {
+				CloudFoundryPlugin.logError(status);
+			}
 		}
-
-		return status;
-
 	}
 
-	public String getCommandName() {
-		return DEBUG_JOB;
+	/**
+	 * Launches the debugger for one application instance in a separate thread.
+	 */
+	protected FutureTask<IStatus> startAttach(final ILaunchConfiguration launchConfiguration,
+			final DebugConnectionDescriptor descriptor, String launchLabel, final IProgressMonitor monitor) {
+		FutureTask<IStatus> task = new FutureTask<IStatus>(new Callable<IStatus>() {
+			public IStatus call() throws Exception {
+				return launch(launchConfiguration, descriptor.getIp(), descriptor.getPort(), monitor);
+			}
+		});
+		Thread thread = new Thread(task, DEBUG_JOB + " - " + launchLabel);
+		thread.setDaemon(true);
+		thread.start();
+		return task;
 	}
 
-	protected void connect(IProgressMonitor monitor) {
-		List<DebugConnectionDescriptor> descriptors = connection.getDebugConnectionDescriptors(monitor);
-		if (descriptors != null) {
-
-			for (int i = 0; i < descriptors.size(); ++i) {
-				DebugConnectionDescriptor descriptor = descriptors.get(i);
-				if (descriptor != null) {
-					connect(descriptor.getIp(), descriptor.getPort(), monitor, getLaunchLabel(i));
-				}
-			}
+	protected IStatus getAttachResult(FutureTask<IStatus> attachment) {
+		try {
+			return attachment.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		}
+		catch (ExecutionException e) {
+			return CloudFoundryPlugin.getErrorStatus(e.getCause());
 		}
 	}
 
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
+
+/**
+ * Keeps one debug launch configuration per application instance, so that
+ * connecting to the debugger again reuses the configuration of the instance
+ * instead of creating a new one each time.
+ * <p/>
+ * Configurations are keyed by debugger connection ID, which identifies the
+ * server and application, and instance index. Configurations saved in a
+ * previous session are found through the key stored in their attributes.
+ * A configuration is only written to disk when it is created or its debug
+ * connection attributes change, like a new debug port after a restart, so
+ * that it is always launched saved, and reconnecting to an unchanged instance
+ * does not write it again.
+ */
+public class DebugLaunchConfigurationRegistry {
+
+	public static final String LAUNCH_KEY = "launchkey";
+
+	private final Map<String, ILaunchConfiguration> configurations = new HashMap<String, ILaunchConfiguration>();
+
+	/**
+	 * Returns the launch configuration of the given application instance,
+	 * updated with the given debug connection attributes. The configuration
+	 * is created if it does not exist yet.
+	 * @param connectionID debugger connection ID of the server and
+	 * application
+	 * @param instanceIndex
+	 * @param appName name of the local project of the application, if any
+	 * @param launchName name of the configuration, if a new one is created
+	 * @param host
+	 * @param port
+	 * @param timeout
+	 * @return saved launch configuration, or null if the launch configuration
+	 * type is not available
+	 * @throws CoreException if the configuration could not be created or
+	 * updated
+	 */
+	public synchronized ILaunchConfiguration getLaunchConfiguration(String connectionID, int instanceIndex,
+			String appName, String launchName, String host, int port, int timeout) throws CoreException {
+		ILaunchConfigurationType launchConfigType = getLaunchManager().getLaunchConfigurationType(
+				CloudFoundryDebuggingLaunchConfigDelegate.LAUNCH_CONFIGURATION_ID);
+		if (launchConfigType == null) {
+			return null;
+		}
+
+		String key = connectionID + "#" + instanceIndex;
+		ILaunchConfiguration configuration = configurations.get(key);
+
+		// The configuration may have been deleted by the user
+		if (configuration != null && !configuration.exists()) {
+			configuration = null;
+		}
+		if (configuration == null) {
+			configuration = findSavedConfiguration(launchConfigType, key);
+		}
+
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(appName);
+		boolean hasProject = project != null && project.isAccessible();
+		if (configuration == null) {
+			// Create the launch configuration, whether the project exists
+			// or not, as there may not be a local project associated with
+			// the deployed app
+			ILaunchConfigurationWorkingCopy wc = launchConfigType.newInstance(hasProject ? project : null,
+					getLaunchManager().generateLaunchConfigurationName(launchName));
+			wc.setAttribute(LAUNCH_KEY, key);
+			configuration = wc;
+		}
+
+		// Convert all to String to make it consistent when reading the
+		// attributes later.
+		Map<String, String> attributes = new HashMap<String, String>();
+		attributes.put(CloudFoundryDebuggingLaunchConfigDelegate.HOST_NAME, host);
+		attributes.put(CloudFoundryDebuggingLaunchConfigDelegate.PORT, port + "");
+		attributes.put(CloudFoundryDebuggingLaunchConfigDelegate.TIME_OUT, timeout + "");
+		attributes.put(CloudFoundryDebuggingLaunchConfigDelegate.DEBUGGER_CONNECTION_ID, connectionID);
+		if (hasProject) {
+			attributes.put(IJavaLaunchConfigurationConstants.ATTR_PROJECT_NAME, project.getName());
+		}
+
+		if (configuration.isWorkingCopy() || !hasAttributes(configuration, attributes)) {
+			ILaunchConfigurationWorkingCopy wc = configuration.isWorkingCopy() ? (ILaunchConfigurationWorkingCopy) configuration
+					: configuration.getWorkingCopy();
+			for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+				wc.setAttribute(attribute.getKey(), attribute.getValue());
+			}
+			configuration = wc.doSave();
+		}
+
+		configurations.put(key, configuration);
+		return configuration;
+	}
+
+	protected ILaunchConfiguration findSavedConfiguration(ILaunchConfigurationType launchConfigType, String key)
+			throws CoreException {
+		for (ILaunchConfiguration configuration : getLaunchManager().getLaunchConfigurations(launchConfigType)) {
+			if (key.equals(configuration.getAttribute(LAUNCH_KEY, (String) null))) {
+				return configuration;
+			}
+		}
+		return null;
+	}
+
+	protected boolean hasAttributes(ILaunchConfiguration configuration, Map<String, String> attributes)
+			throws CoreException {
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			if (!attribute.getValue().equals(configuration.getAttribute(attribute.getKey(), (String) null))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected ILaunchManager getLaunchManager() {
+		return DebugPlugin.getDefault().getLaunchManager();
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Checks whether the debug port of an application instance accepts
+ * connections, so that the debugger is only launched once the instance JVM is
+ * listening, instead of after a fixed delay.
+ */
+public class DebugPortProbe {
+
+	private final int connectTimeout;
+
+	/**
+	 *
+	 * @param connectTimeout maximum time in milliseconds to wait for a
+	 * connection to the debug port
+	 */
+	public DebugPortProbe(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 *
+	 * @param host
+	 * @param port
+	 * @return true if a TCP connection to the given debug port was
+	 * established. False if the connection was refused or timed out.
+	 */
+	public boolean isListening(String host, int port) {
+		return isListening(host, port, connectTimeout);
+	}
+
+	/**
+	 * Probes the given debug port until it accepts connections, or the given
+	 * time elapsed. Connection attempts are shortened so that they do not run
+	 * past the deadline.
+	 * @param host
+	 * @param port
+	 * @param maxWait maximum time in milliseconds to wait, including the time
+	 * spent connecting
+	 * @param interval time in milliseconds between two attempts
+	 * @param monitor
+	 * @return true if the debug port accepted a connection before the
+	 * deadline. False if it did not, or the monitor was cancelled.
+	 */
+	public boolean waitUntilListening(String host, int port, long maxWait, long interval, IProgressMonitor monitor) {
+		long deadline = System.currentTimeMillis() + maxWait;
+		while (!monitor.isCanceled()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			if (isListening(host, port, (int) Math.min(connectTimeout, remaining))) {
+				return true;
+			}
+			remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			try {
+				Thread.sleep(Math.min(interval, remaining));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return false;
+	}
+
+	protected boolean isListening(String host, int port, int timeout) {
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(host, port), timeout);
+			return true;
+		}
+		catch (IOException e) {
+			return false;
+		}
+		finally {
+			try {
+				socket.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.domain.InstanceInfo;
+import org.cloudfoundry.client.lib.domain.InstancesInfo;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Tracks the instances of an application running in debug mode until each
+ * instance reports a debug IP and port, and notifies a listener per instance
+ * as soon as it is ready, so that the debugger can be connected to ready
+ * instances while the others are still starting.
+ * <p/>
+ * Instance information obtained by the last refresh of the application is
+ * used first, if available. The instances are then polled with an increasing
+ * delay until all are ready, the maximum wait time is reached, or the
+ * operation is cancelled. Instances that are already ready are skipped on
+ * each poll.
+ */
+public abstract class DebugReadinessTracker {
+
+	protected static final long INITIAL_POLL_DELAY = 500;
+
+	protected static final long MAX_POLL_DELAY = 4000;
+
+	protected static final long MAX_WAIT = 15000;
+
+	private static final long SLEEP_INTERVAL = 250;
+
+	/**
+	 * 
+	 * @return instance information obtained by the last refresh, or null if
+	 * not available
+	 */
+	abstract protected InstancesInfo getRefreshedInstancesInfo();
+
+	/**
+	 * 
+	 * @param monitor
+	 * @return current instance information, or null if it could not be
+	 * obtained
+	 */
+	abstract protected InstancesInfo fetchInstancesInfo(IProgressMonitor monitor);
+
+	/**
+	 * Notifies the listener of each instance as soon as it is ready to be
+	 * connected to a debugger. Blocks until all instances are ready, the
+	 * maximum wait time is reached, or the monitor is cancelled.
+	 * @param listener
+	 * @param monitor
+	 * @return number of instances that became ready
+	 */
+	public int track(IDebugReadinessListener listener, IProgressMonitor monitor) {
+		Set<Integer> readyInstances = new HashSet<Integer>();
+		Set<DebugConnectionDescriptor> descriptors = new HashSet<DebugConnectionDescriptor>();
+
+		boolean allReady = notifyReadyInstances(getRefreshedInstancesInfo(), readyInstances, descriptors, listener);
+
+		long delay = INITIAL_POLL_DELAY;
+		long waited = 0;
+		boolean firstPoll = true;
+		while (!allReady && !monitor.isCanceled()) {
+			if (!firstPoll) {
+				if (waited >= MAX_WAIT) {
+					break;
+				}
+				sleep(delay, monitor);
+				waited += delay;
+				delay = Math.min(delay * 2, MAX_POLL_DELAY);
+			}
+			firstPoll = false;
+
+			allReady = notifyReadyInstances(fetchInstancesInfo(monitor), readyInstances, descriptors, listener);
+		}
+		return readyInstances.size();
+	}
+
+	/**
+	 * @return true if all instances in the given information are ready
+	 */
+	protected boolean notifyReadyInstances(InstancesInfo instancesInfo, Set<Integer> readyInstances,
+			Set<DebugConnectionDescriptor> descriptors, IDebugReadinessListener listener) {
+		List<InstanceInfo> infos = instancesInfo != null ? instancesInfo.getInstances() : null;
+		if (infos == null || infos.isEmpty()) {
+			return false;
+		}
+
+		for (InstanceInfo info : infos) {
+			if (readyInstances.contains(info.getIndex())) {
+				continue;
+			}
+			DebugConnectionDescriptor descriptor = new DebugConnectionDescriptor(info.getDebugIp(),
+					info.getDebugPort());
+
+			// Each instance is on a different port, so a descriptor already
+			// notified is not for a new instance
+			if (descriptor.areValidIPandPort() && descriptors.add(descriptor)) {
+				readyInstances.add(info.getIndex());
+				listener.instanceReady(info.getIndex(), descriptor);
+			}
+		}
+		return readyInstances.size() >= infos.size();
+	}
+
+	protected void sleep(long delay, IProgressMonitor monitor) {
+		long slept = 0;
+		while (slept < delay && !monitor.isCanceled()) {
+			try {
+				Thread.sleep(SLEEP_INTERVAL);
+			}
+			catch (InterruptedException e) {
+				// Ignore and proceed
+			}
+			slept += SLEEP_INTERVAL;
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.debug;
+
+/**
+ * Listener that is invoked when an application instance running in debug mode
+ * can be connected to a debugger.
+ */
+public interface IDebugReadinessListener {
+
+	/**
+	 * Invoked once per instance, as soon as the instance reports its debug IP
+	 * and port.
+	 * @param instanceIndex index of the application instance
+	 * @param descriptor valid debug IP and port of the instance
+	 */
+	public void instanceReady(int instanceIndex, DebugConnectionDescriptor descriptor);
+}
@@ -26,8 +26,10 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.CloudUtil;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.springframework.web.client.RestClientException;
 
@@ -108,8 +110,65 @@ public class CloudSpaceServerLookup {
 		return getCloudSpaceDescriptor(getCredentials(), url, monitor);
 	}
 
+	/**
+	 * Returns the cached descriptor of the given URL and credentials, if any,
+	 * and revalidates it in the background if it is stale. Otherwise the orgs
+	 * and spaces are looked up, and cached for subsequent calls.
+	 * @param credentials
+	 * @param url
+	 * @param monitor
+	 * @return cloud spaces descriptor, or null if it could not be determined
+	 * @throws CoreException if the lookup failed
+	 */
 	public static CloudSpacesDescriptor getCloudSpaceDescriptor(CloudCredentials credentials, String url,
 			IProgressMonitor monitor) throws CoreException {
+		CloudSpacesDescriptorCache cache = CloudFoundryPlugin.getCloudSpacesDescriptorCache();
+		CloudSpacesDescriptor descriptor = cache.getDescriptor(url, credentials);
+		if (descriptor != null) {
+			if (cache.isStale(url, credentials) && cache.startRevalidation(url, credentials)) {
+				revalidateCloudSpaceDescriptor(credentials, url);
+			}
+			return descriptor;
+		}
+
+		descriptor = lookupCloudSpaceDescriptor(credentials, url, monitor);
+		if (descriptor != null) {
+			cache.put(url, credentials, descriptor);
+		}
+		return descriptor;
+	}
+
+	private static void revalidateCloudSpaceDescriptor(final CloudCredentials credentials, final String url) {
+		Job job = new Job(NLS.bind("Updating organizations and spaces of {0}", url)) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				CloudSpacesDescriptorCache cache = CloudFoundryPlugin.getCloudSpacesDescriptorCache();
+				try {
+					CloudSpacesDescriptor descriptor = lookupCloudSpaceDescriptor(credentials, url, monitor);
+					if (descriptor != null) {
+						cache.put(url, credentials, descriptor);
+					}
+					else {
+						cache.invalidate(url, credentials);
+					}
+				}
+				catch (CoreException e) {
+					// Look up the spaces again the next time they are
+					// requested, which reports the error
+					cache.invalidate(url, credentials);
+				}
+				catch (OperationCanceledException e) {
+					cache.invalidate(url, credentials);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	private static CloudSpacesDescriptor lookupCloudSpaceDescriptor(CloudCredentials credentials, String url,
+			IProgressMonitor monitor) throws CoreException {
 		CloudFoundryOperations operations = CloudFoundryServerBehaviour.createClient(url, credentials.getEmail(),
 				credentials.getPassword());
 		try {
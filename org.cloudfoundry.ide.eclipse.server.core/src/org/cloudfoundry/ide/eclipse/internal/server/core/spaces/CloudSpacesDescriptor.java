@@ -11,11 +11,13 @@
 package org.cloudfoundry.ide.eclipse.internal.server.core.spaces;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudfoundry.client.lib.domain.CloudEntity;
 import org.cloudfoundry.client.lib.domain.CloudOrganization;
 import org.cloudfoundry.client.lib.domain.CloudSpace;
 import org.eclipse.core.runtime.CoreException;
@@ -40,6 +42,14 @@ public class CloudSpacesDescriptor {
 
 	private Map<String, CloudOrganization> orgs;
 
+	private List<CloudOrganization> sortedOrgs;
+
+	/**
+	 * Lower case names of the orgs and spaces, to filter them without
+	 * converting each name again for every typed character
+	 */
+	private Map<CloudEntity, String> filterNames;
+
 	/**
 	 * 
 	 * @param cloudServer
@@ -68,15 +78,44 @@ public class CloudSpacesDescriptor {
 		return null;
 	}
 
+	/**
+	 * 
+	 * @return orgs sorted by name
+	 */
 	public List<CloudOrganization> getOrgs() {
+		return new ArrayList<CloudOrganization>(sortedOrgs);
+	}
+
+	/**
+	 * 
+	 * @param filter text to search in the names of the orgs and spaces. May
+	 * be null or empty.
+	 * @return orgs sorted by name, whose name contains the given text or that
+	 * have a space whose name contains it, ignoring case. All orgs if the
+	 * filter is empty.
+	 */
+	public List<CloudOrganization> getOrgs(String filter) {
+		String text = getFilterText(filter);
+		if (text == null) {
+			return getOrgs();
+		}
+		List<CloudOrganization> matchingOrgs = new ArrayList<CloudOrganization>();
+		for (CloudOrganization org : sortedOrgs) {
+			if (filterNames.get(org).contains(text) || !getOrgSpaces(org.getName(), filter).isEmpty()) {
+				matchingOrgs.add(org);
+			}
+		}
+		return matchingOrgs;
+	}
 
-		Collection<CloudOrganization> orgList = orgs.values();
-		return new ArrayList<CloudOrganization>(orgList);
+	public CloudOrganization getOrg(String orgName) {
+		return orgs.get(orgName);
 	}
 
 	protected void setValues() {
 		orgSpaces = new HashMap<String, List<CloudSpace>>();
 		orgs = new HashMap<String, CloudOrganization>();
+		filterNames = new HashMap<CloudEntity, String>();
 		for (CloudSpace clSpace : spaces) {
 			CloudOrganization org = clSpace.getOrganization();
 			List<CloudSpace> spaces = orgSpaces.get(org.getName());
@@ -84,21 +123,69 @@ public class CloudSpacesDescriptor {
 				spaces = new ArrayList<CloudSpace>();
 				orgSpaces.put(org.getName(), spaces);
 				orgs.put(org.getName(), org);
+				filterNames.put(org, org.getName().toLowerCase());
 			}
 
 			spaces.add(clSpace);
+			filterNames.put(clSpace, clSpace.getName().toLowerCase());
 
 		}
+
+		Comparator<CloudEntity> nameComparator = new Comparator<CloudEntity>() {
+			public int compare(CloudEntity entity1, CloudEntity entity2) {
+				return entity1.getName().compareTo(entity2.getName());
+			}
+		};
+		sortedOrgs = new ArrayList<CloudOrganization>(orgs.values());
+		Collections.sort(sortedOrgs, nameComparator);
+		for (List<CloudSpace> spaces : orgSpaces.values()) {
+			Collections.sort(spaces, nameComparator);
+		}
+	}
+
+	protected String getFilterText(String filter) {
+		if (filter == null || filter.trim().length() == 0) {
+			return null;
+		}
+		return filter.trim().toLowerCase();
 	}
 
 	/**
 	 * @param orgName
-	 * @return
+	 * @return spaces of the given org sorted by name, or null if the org is
+	 * not known
 	 */
 	public List<CloudSpace> getOrgSpaces(String orgName) {
 		return orgSpaces.get(orgName);
 	}
 
+	/**
+	 * 
+	 * @param orgName
+	 * @param filter text to search in the names of the orgs and spaces. May
+	 * be null or empty.
+	 * @return spaces of the given org sorted by name, whose name contains the
+	 * given text, ignoring case. All the spaces of the org if the filter is
+	 * empty or the org name contains it. Never null.
+	 */
+	public List<CloudSpace> getOrgSpaces(String orgName, String filter) {
+		List<CloudSpace> spaces = orgSpaces.get(orgName);
+		if (spaces == null) {
+			return new ArrayList<CloudSpace>();
+		}
+		String text = getFilterText(filter);
+		if (text == null || filterNames.get(orgs.get(orgName)).contains(text)) {
+			return new ArrayList<CloudSpace>(spaces);
+		}
+		List<CloudSpace> matchingSpaces = new ArrayList<CloudSpace>();
+		for (CloudSpace space : spaces) {
+			if (filterNames.get(space).contains(text)) {
+				matchingSpaces.add(space);
+			}
+		}
+		return matchingSpaces;
+	}
+
 	public CloudSpace getDefaultCloudSpace() {
 		// Only return a default if there is one org and one space. Otherwise,
 		// force the user
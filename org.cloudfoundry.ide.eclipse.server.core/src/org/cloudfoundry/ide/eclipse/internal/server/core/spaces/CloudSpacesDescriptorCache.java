@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.spaces;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.CloudCredentials;
+
+/**
+ * Cloud spaces descriptors of each URL and user, shared by all wizards and
+ * servers, so that the orgs and spaces of a user are not enumerated again
+ * each time a server is created or a space is selected.
+ * <p/>
+ * A descriptor younger than {@link #FRESH_AGE} is used as it is. An older
+ * descriptor is still used, but should be revalidated in the background.
+ * Descriptors older than {@link #MAX_AGE} are not used anymore, and must be
+ * fetched again before being shown. A descriptor is only returned for the
+ * password it was fetched with, so that a wrong password is never accepted
+ * because of a cached descriptor. Passwords are not kept, only a salted
+ * digest to check them against.
+ */
+public class CloudSpacesDescriptorCache {
+
+	/**
+	 * Age in milliseconds under which a descriptor is not revalidated.
+	 */
+	public static final long FRESH_AGE = 60 * 1000;
+
+	/**
+	 * Age in milliseconds after which a descriptor is discarded.
+	 */
+	public static final long MAX_AGE = 15 * 60 * 1000;
+
+	private static class Entry {
+
+		final CloudSpacesDescriptor descriptor;
+
+		final byte[] salt;
+
+		final byte[] passwordHash;
+
+		final long time;
+
+		Entry(CloudSpacesDescriptor descriptor, byte[] salt, byte[] passwordHash, long time) {
+			this.descriptor = descriptor;
+			this.salt = salt;
+			this.passwordHash = passwordHash;
+			this.time = time;
+		}
+
+	}
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	private final Set<String> revalidatingKeys = new HashSet<String>();
+
+	private final SecureRandom random = new SecureRandom();
+
+	/**
+	 *
+	 * @param url
+	 * @param credentials
+	 * @return cached descriptor of the given URL and credentials, or null if
+	 * none was fetched in the last {@link #MAX_AGE} milliseconds
+	 */
+	public synchronized CloudSpacesDescriptor getDescriptor(String url, CloudCredentials credentials) {
+		Entry entry = getEntry(url, credentials);
+		return entry != null ? entry.descriptor : null;
+	}
+
+	/**
+	 *
+	 * @param url
+	 * @param credentials
+	 * @return true if the cached descriptor of the given URL and credentials
+	 * is older than {@link #FRESH_AGE}, or there is none
+	 */
+	public synchronized boolean isStale(String url, CloudCredentials credentials) {
+		Entry entry = getEntry(url, credentials);
+		return entry == null || currentTime() - entry.time > FRESH_AGE;
+	}
+
+	public synchronized void put(String url, CloudCredentials credentials, CloudSpacesDescriptor descriptor) {
+		String key = getKey(url, credentials);
+		byte[] salt = new byte[16];
+		random.nextBytes(salt);
+		byte[] passwordHash = getPasswordHash(salt, credentials.getPassword());
+		if (passwordHash != null) {
+			entries.put(key, new Entry(descriptor, salt, passwordHash, currentTime()));
+		}
+		else {
+			// The password could not be checked later
+			entries.remove(key);
+		}
+		revalidatingKeys.remove(key);
+	}
+
+	/**
+	 * Discards the cached descriptor of the given URL and credentials, for
+	 * instance after it failed to be revalidated.
+	 */
+	public synchronized void invalidate(String url, CloudCredentials credentials) {
+		String key = getKey(url, credentials);
+		entries.remove(key);
+		revalidatingKeys.remove(key);
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		revalidatingKeys.clear();
+	}
+
+	/**
+	 * Marks the descriptor of the given URL and credentials as being
+	 * revalidated, until a descriptor is put or invalidated.
+	 * @param url
+	 * @param credentials
+	 * @return true if the descriptor was not already being revalidated, and
+	 * the caller should revalidate it
+	 */
+	public synchronized boolean startRevalidation(String url, CloudCredentials credentials) {
+		return revalidatingKeys.add(getKey(url, credentials));
+	}
+
+	private Entry getEntry(String url, CloudCredentials credentials) {
+		String key = getKey(url, credentials);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (currentTime() - entry.time > MAX_AGE) {
+			entries.remove(key);
+			return null;
+		}
+		if (!MessageDigest.isEqual(entry.passwordHash, getPasswordHash(entry.salt, credentials.getPassword()))) {
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 *
+	 * @param salt
+	 * @param password
+	 * @return digest of the given salt and password, or null if it could not
+	 * be computed
+	 */
+	protected static byte[] getPasswordHash(byte[] salt, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			if (password != null) {
+				// Distinguishes an empty password from no password
+				digest.update((byte) 1);
+				digest.update(password.getBytes("UTF-8"));
+			}
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		catch (UnsupportedEncodingException e) {
+			return null;
+		}
+	}
+
+	protected String getKey(String url, CloudCredentials credentials) {
+		return url + "#" + credentials.getEmail();
+	}
+
+	protected long currentTime() {
+		return System.currentTimeMillis();
+	}
+
+}
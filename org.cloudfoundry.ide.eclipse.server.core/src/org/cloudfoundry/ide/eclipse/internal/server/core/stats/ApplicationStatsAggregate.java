@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats.Usage;
+
+/**
+ * Usage of all instances of an application, computed from one application
+ * stats sample.
+ * <p/>
+ * An instance is considered hot if its CPU usage is at least
+ * {@link #HOT_CPU}, if its memory usage is at least {@link #HOT_MEMORY_RATIO}
+ * of its quota, or if, among at least three instances, its CPU usage is more
+ * than twice the median and at least {@link #HOT_CPU_DEVIATION} above it.
+ */
+public class ApplicationStatsAggregate {
+
+	public static final double HOT_CPU = 80;
+
+	public static final double HOT_MEMORY_RATIO = 0.9;
+
+	public static final double HOT_CPU_DEVIATION = 10;
+
+	private final int instanceCount;
+
+	private final double totalCpu;
+
+	private final double totalMemory;
+
+	private final double totalMemoryQuota;
+
+	private final double totalDisk;
+
+	private final double medianCpu;
+
+	private final double percentile90Cpu;
+
+	private final double maxCpu;
+
+	private final List<String> hotInstanceIds;
+
+	public ApplicationStatsAggregate(ApplicationStats stats) {
+		List<InstanceStats> records = stats != null && stats.getRecords() != null ? stats.getRecords() : Collections
+				.<InstanceStats> emptyList();
+
+		int count = records.size();
+		double[] cpu = new double[count];
+		double[] memory = new double[count];
+		double cpuSum = 0;
+		double memorySum = 0;
+		double quotaSum = 0;
+		double diskSum = 0;
+
+		for (int i = 0; i < count; i++) {
+			InstanceStats record = records.get(i);
+			Usage usage = record.getUsage();
+			if (usage != null) {
+				cpu[i] = usage.getCpu();
+				// Memory usage is reported in KB
+				memory[i] = usage.getMem() * 1024;
+				diskSum += usage.getDisk();
+			}
+			cpuSum += cpu[i];
+			memorySum += memory[i];
+			quotaSum += record.getMemQuota();
+		}
+
+		double[] sortedCpu = cpu.clone();
+		Arrays.sort(sortedCpu);
+
+		instanceCount = count;
+		totalCpu = cpuSum;
+		totalMemory = memorySum;
+		totalMemoryQuota = quotaSum;
+		totalDisk = diskSum;
+		medianCpu = getPercentile(sortedCpu, 50);
+		percentile90Cpu = getPercentile(sortedCpu, 90);
+		maxCpu = count > 0 ? sortedCpu[count - 1] : 0;
+
+		List<String> hotIds = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			long quota = records.get(i).getMemQuota();
+			boolean hot = cpu[i] >= HOT_CPU || (quota > 0 && memory[i] >= quota * HOT_MEMORY_RATIO)
+					|| (count >= 3 && cpu[i] > medianCpu * 2 && cpu[i] - medianCpu >= HOT_CPU_DEVIATION);
+			if (hot) {
+				hotIds.add(records.get(i).getId());
+			}
+		}
+		hotInstanceIds = Collections.unmodifiableList(hotIds);
+	}
+
+	/**
+	 * 
+	 * @param sortedValues values in ascending order
+	 * @param percentile between 0 and 100
+	 * @return nearest rank percentile of the given values, or 0 if there are
+	 * no values
+	 */
+	public static double getPercentile(double[] sortedValues, double percentile) {
+		if (sortedValues.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100 * sortedValues.length);
+		return sortedValues[Math.min(Math.max(rank, 1), sortedValues.length) - 1];
+	}
+
+	public int getInstanceCount() {
+		return instanceCount;
+	}
+
+	/**
+	 * 
+	 * @return sum of the CPU usage of all instances, in percent
+	 */
+	public double getTotalCpu() {
+		return totalCpu;
+	}
+
+	/**
+	 * 
+	 * @return sum of the memory usage of all instances, in bytes
+	 */
+	public double getTotalMemory() {
+		return totalMemory;
+	}
+
+	/**
+	 * 
+	 * @return sum of the memory quota of all instances, in bytes
+	 */
+	public double getTotalMemoryQuota() {
+		return totalMemoryQuota;
+	}
+
+	/**
+	 * 
+	 * @return sum of the disk usage of all instances, in bytes
+	 */
+	public double getTotalDisk() {
+		return totalDisk;
+	}
+
+	public double getMedianCpu() {
+		return medianCpu;
+	}
+
+	public double getPercentile90Cpu() {
+		return percentile90Cpu;
+	}
+
+	public double getMaxCpu() {
+		return maxCpu;
+	}
+
+	public List<String> getHotInstanceIds() {
+		return hotInstanceIds;
+	}
+
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats.Usage;
+
+/**
+ * Usage history of the instances of one application, built from successive
+ * application stats. Instances that are no longer reported are dropped.
+ */
+public class ApplicationStatsHistory {
+
+	public static final int DEFAULT_CAPACITY = 60;
+
+	private final int capacity;
+
+	private final Map<String, InstanceStatsHistory> instances = new LinkedHashMap<String, InstanceStatsHistory>();
+
+	public ApplicationStatsHistory() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 
+	 * @param capacity maximum number of samples kept per instance
+	 */
+	public ApplicationStatsHistory(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds the usage of each instance in the given stats to its history.
+	 * @param stats
+	 * @param time time of the sample in milliseconds
+	 * @return true if the usage of any instance differs from its previous
+	 * sample, or if instances were added or removed
+	 */
+	public synchronized boolean addSample(ApplicationStats stats, long time) {
+		List<InstanceStats> records = stats != null ? stats.getRecords() : null;
+		boolean changed = false;
+		Set<String> reportedIds = new HashSet<String>();
+
+		if (records != null) {
+			for (InstanceStats record : records) {
+				String id = record.getId();
+				if (id == null) {
+					continue;
+				}
+				reportedIds.add(id);
+
+				Usage usage = record.getUsage();
+				double cpu = usage != null ? usage.getCpu() : 0;
+				// Memory usage is reported in KB
+				double memory = usage != null ? usage.getMem() * 1024 : 0;
+				double disk = usage != null ? usage.getDisk() : 0;
+
+				InstanceStatsHistory history = instances.get(id);
+				if (history == null) {
+					history = new InstanceStatsHistory(capacity);
+					instances.put(id, history);
+					changed = true;
+				}
+				else if (history.getLatestCpu() != cpu || history.getLatestMemory() != memory
+						|| history.getLatestDisk() != disk) {
+					changed = true;
+				}
+				history.add(time, cpu, memory, disk);
+			}
+		}
+
+		if (instances.keySet().retainAll(reportedIds)) {
+			changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * 
+	 * @param instanceId
+	 * @return history of the given instance, or null if the instance was not
+	 * reported by the last sample
+	 */
+	public synchronized InstanceStatsHistory getInstanceHistory(String instanceId) {
+		return instances.get(instanceId);
+	}
+
+	public synchronized List<String> getInstanceIds() {
+		return new ArrayList<String>(instances.keySet());
+	}
+
+	/**
+	 * 
+	 * @return sum of the most recent CPU usage of all instances, in percent
+	 */
+	public synchronized double getTotalCpu() {
+		double total = 0;
+		for (InstanceStatsHistory history : instances.values()) {
+			total += history.getLatestCpu();
+		}
+		return total;
+	}
+
+	/**
+	 * 
+	 * @return sum of the most recent memory usage of all instances, in bytes
+	 */
+	public synchronized double getTotalMemory() {
+		double total = 0;
+		for (InstanceStatsHistory history : instances.values()) {
+			total += history.getLatestMemory();
+		}
+		return total;
+	}
+
+}
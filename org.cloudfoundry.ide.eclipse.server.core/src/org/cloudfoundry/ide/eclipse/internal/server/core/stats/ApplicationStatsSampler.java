@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Periodically fetches the stats of a running application and records them
+ * in an {@link ApplicationStatsHistory}.
+ * <p/>
+ * The sampling interval starts at {@link #MIN_INTERVAL} and doubles, up to
+ * {@link #MAX_INTERVAL}, while the usage of the instances does not change. It
+ * is reset as soon as a change is seen. Sampling stops when
+ * {@link #shouldSample()} returns false, for example when the view showing
+ * the stats is hidden, and can be started again with {@link #start()}.
+ */
+public abstract class ApplicationStatsSampler extends Job {
+
+	public static final long MIN_INTERVAL = 2000;
+
+	public static final long MAX_INTERVAL = 30000;
+
+	private final CloudFoundryServer server;
+
+	private final String appName;
+
+	private final ApplicationStatsHistory history;
+
+	private long interval = MIN_INTERVAL;
+
+	private volatile boolean stopped = true;
+
+	private boolean failing;
+
+	public ApplicationStatsSampler(CloudFoundryServer server, String appName, ApplicationStatsHistory history) {
+		super(NLS.bind("Sampling statistics of {0}", appName));
+		setSystem(true);
+		this.server = server;
+		this.appName = appName;
+		this.history = history;
+	}
+
+	public String getAppName() {
+		return appName;
+	}
+
+	public ApplicationStatsHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Starts sampling right away, if not already sampling.
+	 */
+	public synchronized void start() {
+		if (stopped) {
+			stopped = false;
+			interval = MIN_INTERVAL;
+			schedule();
+		}
+	}
+
+	/**
+	 * Stops sampling. A sample being fetched is discarded.
+	 */
+	public synchronized void stop() {
+		stopped = true;
+		cancel();
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * 
+	 * @return true if the stats should still be sampled. If false, sampling
+	 * stops until started again.
+	 */
+	abstract protected boolean shouldSample();
+
+	/**
+	 * Invoked after each sample is recorded, in the job thread.
+	 * @param stats stats that were sampled
+	 * @param history history of the application, including the sample
+	 */
+	abstract protected void statsSampled(ApplicationStats stats, ApplicationStatsHistory history);
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		if (stopped || monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		if (!shouldSample()) {
+			stop();
+			return Status.OK_STATUS;
+		}
+
+		try {
+			ApplicationStats stats = server.getBehaviour().getApplicationStats(appName, monitor);
+			if (stopped || monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+
+			boolean changed = history.addSample(stats, System.currentTimeMillis());
+			interval = changed ? MIN_INTERVAL : Math.min(interval * 2, MAX_INTERVAL);
+			failing = false;
+			statsSampled(stats, history);
+		}
+		catch (CoreException e) {
+			// Keep sampling, less often, as the application may be restarting.
+			// Only log the first of consecutive failures.
+			interval = MAX_INTERVAL;
+			if (!failing) {
+				failing = true;
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+
+		synchronized (this) {
+			if (!stopped) {
+				schedule(interval);
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+/**
+ * Notified when the aggregated stats of an application change.
+ */
+public interface IStatsAggregateListener {
+
+	/**
+	 * 
+	 * @param serverId ID of the server of the application
+	 * @param appName
+	 * @param aggregate new aggregate, or null if the aggregate of the
+	 * application was removed
+	 */
+	public void statsAggregated(String serverId, String appName, ApplicationStatsAggregate aggregate);
+
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+/**
+ * Most recent usage samples of one application instance. Samples are kept in
+ * a fixed size ring buffer, and the oldest sample is overwritten once the
+ * buffer is full.
+ */
+public class InstanceStatsHistory {
+
+	private final long[] times;
+
+	private final double[] cpu;
+
+	private final double[] memory;
+
+	private final double[] disk;
+
+	private int next;
+
+	private int size;
+
+	/**
+	 * 
+	 * @param capacity maximum number of samples kept
+	 */
+	public InstanceStatsHistory(int capacity) {
+		times = new long[capacity];
+		cpu = new double[capacity];
+		memory = new double[capacity];
+		disk = new double[capacity];
+	}
+
+	/**
+	 * 
+	 * @param time time of the sample in milliseconds
+	 * @param cpuUsage CPU usage in percent
+	 * @param memoryUsage memory usage in bytes
+	 * @param diskUsage disk usage in bytes
+	 */
+	public synchronized void add(long time, double cpuUsage, double memoryUsage, double diskUsage) {
+		times[next] = time;
+		cpu[next] = cpuUsage;
+		memory[next] = memoryUsage;
+		disk[next] = diskUsage;
+		next = (next + 1) % times.length;
+		if (size < times.length) {
+			size++;
+		}
+	}
+
+	public int getCapacity() {
+		return times.length;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * @return sample times, oldest first
+	 */
+	public synchronized long[] getTimes() {
+		long[] values = new long[size];
+		int first = getFirst();
+		for (int i = 0; i < size; i++) {
+			values[i] = times[(first + i) % times.length];
+		}
+		return values;
+	}
+
+	/**
+	 * 
+	 * @return CPU usage in percent, oldest first
+	 */
+	public synchronized double[] getCpu() {
+		return getValues(cpu);
+	}
+
+	/**
+	 * 
+	 * @return memory usage in bytes, oldest first
+	 */
+	public synchronized double[] getMemory() {
+		return getValues(memory);
+	}
+
+	/**
+	 * 
+	 * @return disk usage in bytes, oldest first
+	 */
+	public synchronized double[] getDisk() {
+		return getValues(disk);
+	}
+
+	/**
+	 * 
+	 * @return most recent CPU usage in percent, or 0 if there is no sample
+	 */
+	public synchronized double getLatestCpu() {
+		return getLatest(cpu);
+	}
+
+	/**
+	 * 
+	 * @return most recent memory usage in bytes, or 0 if there is no sample
+	 */
+	public synchronized double getLatestMemory() {
+		return getLatest(memory);
+	}
+
+	/**
+	 * 
+	 * @return most recent disk usage in bytes, or 0 if there is no sample
+	 */
+	public synchronized double getLatestDisk() {
+		return getLatest(disk);
+	}
+
+	/**
+	 * 
+	 * @return average CPU usage of the kept samples, or 0 if there is no
+	 * sample
+	 */
+	public synchronized double getAverageCpu() {
+		if (size == 0) {
+			return 0;
+		}
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += cpu[i];
+		}
+		return total / size;
+	}
+
+	protected double[] getValues(double[] buffer) {
+		double[] values = new double[size];
+		int first = getFirst();
+		for (int i = 0; i < size; i++) {
+			values[i] = buffer[(first + i) % buffer.length];
+		}
+		return values;
+	}
+
+	protected double getLatest(double[] buffer) {
+		if (size == 0) {
+			return 0;
+		}
+		return buffer[(next - 1 + buffer.length) % buffer.length];
+	}
+
+	protected int getFirst() {
+		return size < times.length ? 0 : next;
+	}
+
+}
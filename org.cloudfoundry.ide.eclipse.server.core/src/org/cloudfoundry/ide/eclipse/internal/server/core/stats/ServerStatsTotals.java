@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+/**
+ * Usage of all applications of a server whose stats have been aggregated.
+ */
+public class ServerStatsTotals {
+
+	private final int applicationCount;
+
+	private final int instanceCount;
+
+	private final int hotInstanceCount;
+
+	private final double totalCpu;
+
+	private final double totalMemory;
+
+	public ServerStatsTotals(int applicationCount, int instanceCount, int hotInstanceCount, double totalCpu,
+			double totalMemory) {
+		this.applicationCount = applicationCount;
+		this.instanceCount = instanceCount;
+		this.hotInstanceCount = hotInstanceCount;
+		this.totalCpu = totalCpu;
+		this.totalMemory = totalMemory;
+	}
+
+	public int getApplicationCount() {
+		return applicationCount;
+	}
+
+	public int getInstanceCount() {
+		return instanceCount;
+	}
+
+	public int getHotInstanceCount() {
+		return hotInstanceCount;
+	}
+
+	/**
+	 * 
+	 * @return sum of the CPU usage of all instances, in percent
+	 */
+	public double getTotalCpu() {
+		return totalCpu;
+	}
+
+	/**
+	 * 
+	 * @return sum of the memory usage of all instances, in bytes
+	 */
+	public double getTotalMemory() {
+		return totalMemory;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.stats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerEvent;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerListener;
+
+/**
+ * Aggregates the stats of applications as they are fetched, per application
+ * and per server.
+ * <p/>
+ * Each new sample of an application replaces the previous aggregate of that
+ * application, and the server totals are adjusted by the difference between
+ * the two, so that the totals are not computed again over all applications
+ * each time. Aggregates of applications that no longer exist are removed when
+ * the modules of the server are refreshed.
+ */
+public class StatsAggregator implements CloudServerListener {
+
+	private static class ServerAggregates {
+
+		final Map<String, ApplicationStatsAggregate> applications = new HashMap<String, ApplicationStatsAggregate>();
+
+		int instanceCount;
+
+		int hotInstanceCount;
+
+		double totalCpu;
+
+		double totalMemory;
+
+		void add(ApplicationStatsAggregate aggregate, int sign) {
+			instanceCount += sign * aggregate.getInstanceCount();
+			hotInstanceCount += sign * aggregate.getHotInstanceIds().size();
+			totalCpu += sign * aggregate.getTotalCpu();
+			totalMemory += sign * aggregate.getTotalMemory();
+		}
+
+	}
+
+	private final Map<String, ServerAggregates> servers = new HashMap<String, ServerAggregates>();
+
+	private final List<IStatsAggregateListener> listeners = new CopyOnWriteArrayList<IStatsAggregateListener>();
+
+	public void addListener(IStatsAggregateListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IStatsAggregateListener listener) {
+		listeners.remove(listener);
+	}
+
+	public ApplicationStatsAggregate update(CloudFoundryServer server, String appName, ApplicationStats stats) {
+		return update(server.getServerId(), appName, stats);
+	}
+
+	/**
+	 * Replaces the aggregate of the given application with one computed from
+	 * the given stats, and notifies listeners.
+	 * @param serverId
+	 * @param appName
+	 * @param stats new stats sample of the application. May be null if the
+	 * application has no running instances.
+	 * @return new aggregate of the application
+	 */
+	public ApplicationStatsAggregate update(String serverId, String appName, ApplicationStats stats) {
+		ApplicationStatsAggregate aggregate = new ApplicationStatsAggregate(stats);
+		synchronized (this) {
+			ServerAggregates serverAggregates = servers.get(serverId);
+			if (serverAggregates == null) {
+				serverAggregates = new ServerAggregates();
+				servers.put(serverId, serverAggregates);
+			}
+			ApplicationStatsAggregate oldAggregate = serverAggregates.applications.put(appName, aggregate);
+			if (oldAggregate != null) {
+				serverAggregates.add(oldAggregate, -1);
+			}
+			serverAggregates.add(aggregate, 1);
+		}
+		fireStatsAggregated(serverId, appName, aggregate);
+		return aggregate;
+	}
+
+	public ApplicationStatsAggregate getAggregate(CloudFoundryServer server, String appName) {
+		return getAggregate(server.getServerId(), appName);
+	}
+
+	/**
+	 * 
+	 * @param serverId
+	 * @param appName
+	 * @return aggregate of the last stats sample of the application, or null
+	 * if its stats have not been fetched
+	 */
+	public synchronized ApplicationStatsAggregate getAggregate(String serverId, String appName) {
+		ServerAggregates serverAggregates = servers.get(serverId);
+		return serverAggregates != null ? serverAggregates.applications.get(appName) : null;
+	}
+
+	public ServerStatsTotals getTotals(CloudFoundryServer server) {
+		return getTotals(server.getServerId());
+	}
+
+	/**
+	 * 
+	 * @param serverId
+	 * @return totals of the applications of the server whose stats have been
+	 * fetched
+	 */
+	public synchronized ServerStatsTotals getTotals(String serverId) {
+		ServerAggregates serverAggregates = servers.get(serverId);
+		if (serverAggregates == null) {
+			return new ServerStatsTotals(0, 0, 0, 0, 0);
+		}
+		return new ServerStatsTotals(serverAggregates.applications.size(), serverAggregates.instanceCount,
+				serverAggregates.hotInstanceCount, serverAggregates.totalCpu, serverAggregates.totalMemory);
+	}
+
+	/**
+	 * Removes the aggregates of the applications of the given server that are
+	 * not in the given list of application names.
+	 */
+	public void retain(String serverId, Set<String> appNames) {
+		List<String> removed = new ArrayList<String>();
+		synchronized (this) {
+			ServerAggregates serverAggregates = servers.get(serverId);
+			if (serverAggregates == null) {
+				return;
+			}
+			for (String appName : new ArrayList<String>(serverAggregates.applications.keySet())) {
+				if (!appNames.contains(appName)) {
+					serverAggregates.add(serverAggregates.applications.remove(appName), -1);
+					removed.add(appName);
+				}
+			}
+			if (serverAggregates.applications.isEmpty()) {
+				servers.remove(serverId);
+			}
+		}
+		for (String appName : removed) {
+			fireStatsAggregated(serverId, appName, null);
+		}
+	}
+
+	public void serverChanged(CloudServerEvent event) {
+		CloudFoundryServer server = event.getServer();
+		if (server != null && event.getType() == CloudServerEvent.EVENT_SERVER_REFRESHED) {
+			// Modules have been refreshed
+			Set<String> appNames = new HashSet<String>();
+			for (ApplicationModule module : server.getApplications()) {
+				if (module.getApplicationId() != null) {
+					appNames.add(module.getApplicationId());
+				}
+			}
+			retain(server.getServerId(), appNames);
+		}
+	}
+
+	protected void fireStatsAggregated(String serverId, String appName, ApplicationStatsAggregate aggregate) {
+		for (IStatsAggregateListener listener : listeners) {
+			listener.statsAggregated(serverId, appName, aggregate);
+		}
+	}
+
+}
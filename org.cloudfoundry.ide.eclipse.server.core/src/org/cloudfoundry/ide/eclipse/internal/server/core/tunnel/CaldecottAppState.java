@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+
+/**
+ * Snapshot of the Caldecott application of a server, as last obtained from
+ * the controller. The tunnel URI is resolved lazily, as resolving it requires
+ * probing the Caldecott application, and is kept as long as the application
+ * URIs do not change.
+ */
+public class CaldecottAppState {
+
+	private static final String AUTH_ENV_VARIABLE = "CALDECOTT_AUTH";
+
+	private final CloudApplication application;
+
+	private final List<String> services;
+
+	private volatile String tunnelUri;
+
+	public CaldecottAppState(CloudApplication application) {
+		this.application = application;
+		List<String> appServices = application.getServices();
+		this.services = appServices != null ? Collections.unmodifiableList(new ArrayList<String>(appServices))
+				: Collections.<String> emptyList();
+	}
+
+	public CloudApplication getApplication() {
+		return application;
+	}
+
+	/**
+	 *
+	 * @return non-null list of services bound to the Caldecott application
+	 */
+	public List<String> getServices() {
+		return services;
+	}
+
+	public boolean isBound(String serviceName) {
+		return services.contains(serviceName);
+	}
+
+	public boolean isStarted() {
+		return application.getState() == AppState.STARTED;
+	}
+
+	/**
+	 *
+	 * @return authorisation token of the Caldecott application, or null if
+	 * not set
+	 */
+	public String getAuthToken() {
+		Map<String, String> env = application.getEnvAsMap();
+		return env != null ? env.get(AUTH_ENV_VARIABLE) : null;
+	}
+
+	/**
+	 *
+	 * @return resolved tunnel URI, or null if not yet resolved
+	 */
+	public String getTunnelUri() {
+		return tunnelUri;
+	}
+
+	public void setTunnelUri(String tunnelUri) {
+		this.tunnelUri = tunnelUri;
+	}
+
+	/**
+	 *
+	 * @param other
+	 * @return true if both states are for an application with the same URIs,
+	 * in which case the resolved tunnel URI can be shared
+	 */
+	protected boolean hasSameUris(CaldecottAppState other) {
+		List<String> uris = application.getUris();
+		List<String> otherUris = other.application.getUris();
+		return uris != null ? uris.equals(otherUris) : otherUris == null;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cloudfoundry.caldecott.client.TunnelHelper;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerEvent;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerListener;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Caches the state of the Caldecott application of each server, so that
+ * tunnel operations do not query the controller for the Caldecott
+ * application each time.
+ * <p/>
+ * The cache is kept up to date through server events. When the modules of a
+ * server are refreshed, the state is updated from the refreshed Caldecott
+ * application module, without querying the controller again. When services
+ * are updated, the state is discarded. Operations that change the Caldecott
+ * application must invalidate its state.
+ */
+public class CaldecottAppStateCache implements CloudServerListener {
+
+	private final Map<String, CaldecottAppState> states = new HashMap<String, CaldecottAppState>();
+
+	/**
+	 *
+	 * @param server
+	 * @return cached state of the Caldecott application, or null if not
+	 * cached
+	 */
+	public synchronized CaldecottAppState getState(CloudFoundryServer server) {
+		return states.get(server.getServerId());
+	}
+
+	/**
+	 * Caches the given Caldecott application. A tunnel URI already resolved
+	 * for the application is kept if the application URIs have not changed.
+	 * @param server
+	 * @param application
+	 * @return new cached state
+	 */
+	public synchronized CaldecottAppState putState(CloudFoundryServer server, CloudApplication application) {
+		CaldecottAppState state = new CaldecottAppState(application);
+		CaldecottAppState oldState = states.put(server.getServerId(), state);
+		if (oldState != null && oldState.getTunnelUri() != null && state.hasSameUris(oldState)) {
+			state.setTunnelUri(oldState.getTunnelUri());
+		}
+		return state;
+	}
+
+	public synchronized void invalidate(CloudFoundryServer server) {
+		states.remove(server.getServerId());
+	}
+
+	public void serverChanged(CloudServerEvent event) {
+		CloudFoundryServer server = event.getServer();
+		if (server == null) {
+			return;
+		}
+
+		if (event.getType() == CloudServerEvent.EVENT_UPDATE_SERVICES) {
+			invalidate(server);
+		}
+		else if (event.getType() == CloudServerEvent.EVENT_SERVER_REFRESHED) {
+			// Modules have been refreshed
+			CloudApplication application = null;
+			try {
+				ApplicationModule module = server.getApplicationModule(TunnelHelper.getTunnelAppName());
+				application = module != null ? module.getApplication() : null;
+			}
+			catch (CoreException e) {
+				// Discard the state below
+			}
+
+			if (application != null) {
+				putState(server, application);
+			}
+			else {
+				invalidate(server);
+			}
+		}
+	}
+
+}
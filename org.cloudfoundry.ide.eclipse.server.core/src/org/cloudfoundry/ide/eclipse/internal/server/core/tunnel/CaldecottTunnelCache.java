@@ -45,6 +45,18 @@ public class CaldecottTunnelCache {
 		return null;
 	}
 
+	/**
+	 * Returns the traffic counters of the tunnel for the given service.
+	 * @param server
+	 * @param serviceName
+	 * @return traffic counters, or null if no tunnel is open for the service
+	 * or its traffic is not recorded.
+	 */
+	public synchronized TunnelMetrics getMetrics(CloudFoundryServer server, String serviceName) {
+		CaldecottTunnelDescriptor descriptor = getDescriptor(server, serviceName);
+		return descriptor != null ? descriptor.getMetrics() : null;
+	}
+
 	public synchronized CaldecottTunnelDescriptor removeDescriptor(CloudFoundryServer server, String serviceName) {
 		String id = server.getServerId();
 		Map<String, CaldecottTunnelDescriptor> descriptors = caldecottTunnels.get(id);
@@ -67,4 +79,16 @@ public class CaldecottTunnelCache {
 		descriptors.put(descriptor.getServiceName(), descriptor);
 	}
 
+	/**
+	 * Adds all the given tunnels at once, so that other threads see either
+	 * none or all of them.
+	 * @param server
+	 * @param tunnels
+	 */
+	public synchronized void addDescriptors(CloudFoundryServer server, Collection<CaldecottTunnelDescriptor> tunnels) {
+		for (CaldecottTunnelDescriptor descriptor : tunnels) {
+			addDescriptor(server, descriptor);
+		}
+	}
+
 }
@@ -12,6 +12,7 @@ package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
 
 import org.cloudfoundry.caldecott.client.TunnelServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelBehaviour;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelExecutor.TunnelTaskExecutor;
 
 public class CaldecottTunnelDescriptor {
 
@@ -29,9 +30,24 @@ public class CaldecottTunnelDescriptor {
 
 	private final String databaseName;
 
+	private final TunnelTaskExecutor executor;
+
+	private final TunnelMetrics metrics;
+
+	private final TunnelConnectionPool connectionPool;
+
 	public CaldecottTunnelDescriptor(String userName, String password, String databaseName, String serviceName,
 			String serviceVendor, TunnelServer server, int tunnelPort) {
+		this(userName, password, databaseName, serviceName, serviceVendor, server, null, null, null, tunnelPort);
+	}
+
+	public CaldecottTunnelDescriptor(String userName, String password, String databaseName, String serviceName,
+			String serviceVendor, TunnelServer server, TunnelTaskExecutor executor, TunnelMetrics metrics,
+			TunnelConnectionPool connectionPool, int tunnelPort) {
 		this.server = server;
+		this.executor = executor;
+		this.metrics = metrics;
+		this.connectionPool = connectionPool;
 		this.userName = userName;
 		this.password = password;
 		this.tunnelPort = tunnelPort;
@@ -134,6 +150,33 @@ public class CaldecottTunnelDescriptor {
 		return server;
 	}
 
+	/**
+	 * 
+	 * @return executor of the tunnel server in the shared tunnel I/O pool, or
+	 * null if the tunnel server uses its own executor
+	 */
+	public TunnelTaskExecutor getTunnelExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 
+	 * @return traffic counters of the tunnel, or null if the tunnel traffic is
+	 * not recorded
+	 */
+	public TunnelMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 
+	 * @return pooled HTTP connections used by the tunnel, or null if each
+	 * connection through the tunnel uses its own HTTP connections
+	 */
+	public TunnelConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
 	public enum ServiceVendor {
 		postgresql, mysql, mongodb
 	}
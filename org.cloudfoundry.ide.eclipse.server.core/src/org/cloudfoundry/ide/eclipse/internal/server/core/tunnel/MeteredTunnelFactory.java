@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.cloudfoundry.caldecott.client.Tunnel;
+import org.cloudfoundry.caldecott.client.TunnelFactory;
+
+/**
+ * Tunnel factory that records the traffic of all tunnels it creates in a
+ * {@link TunnelMetrics}. A tunnel server creates one tunnel for each local
+ * client connection.
+ */
+public class MeteredTunnelFactory implements TunnelFactory {
+
+	private final TunnelFactory factory;
+
+	private final TunnelMetrics metrics;
+
+	public MeteredTunnelFactory(TunnelFactory factory, TunnelMetrics metrics) {
+		this.factory = factory;
+		this.metrics = metrics;
+	}
+
+	public Tunnel createTunnel() {
+		Tunnel tunnel = factory.createTunnel();
+		metrics.connectionOpened();
+		return new MeteredTunnel(tunnel);
+	}
+
+	public TunnelMetrics getMetrics() {
+		return metrics;
+	}
+
+	protected class MeteredTunnel implements Tunnel {
+
+		private final Tunnel tunnel;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		protected MeteredTunnel(Tunnel tunnel) {
+			this.tunnel = tunnel;
+		}
+
+		public void write(byte[] data) {
+			long start = System.nanoTime();
+			tunnel.write(data);
+			metrics.recordLatency(System.nanoTime() - start);
+			if (data != null) {
+				metrics.addBytesSent(data.length);
+			}
+		}
+
+		public byte[] read(boolean retry) {
+			byte[] data = tunnel.read(retry);
+			if (data != null) {
+				metrics.addBytesReceived(data.length);
+			}
+			return data;
+		}
+
+		public void close() {
+			try {
+				tunnel.close();
+			}
+			finally {
+				// Both the reader and writer of a connection may close the
+				// tunnel
+				if (closed.compareAndSet(false, true)) {
+					metrics.connectionClosed();
+				}
+			}
+		}
+	}
+
+}
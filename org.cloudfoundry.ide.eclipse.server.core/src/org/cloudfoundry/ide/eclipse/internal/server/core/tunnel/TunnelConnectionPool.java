@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.cloudfoundry.client.lib.HttpProxyConfiguration;
+import org.springframework.http.client.CommonsClientHttpRequestFactory;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Persistent HTTP connections to the Caldecott application, shared by all
+ * local connections through one tunnel.
+ * <p/>
+ * By default, a Caldecott tunnel factory creates a new HTTP client for each
+ * local connection, so every connection a database tool opens pays for new
+ * HTTP connections to the Caldecott application. Tunnels created with the
+ * rest operations of this pool instead reuse kept-alive connections, which
+ * are only opened once per pool slot.
+ * <p/>
+ * Each open local connection uses up to two pooled connections at a time, one
+ * held by a long polling read for up to the read timeout, and one writing, so
+ * the pool is sized per local connection. A request waiting for a pooled
+ * connection fails after {@link #CONNECTION_MANAGER_TIMEOUT} instead of
+ * stalling the tunnel when more local connections than expected are open.
+ */
+public class TunnelConnectionPool {
+
+	public static final int DEFAULT_MAX_LOCAL_CONNECTIONS = 16;
+
+	/**
+	 * Pooled connections used by each local connection, one to read and one
+	 * to write
+	 */
+	public static final int CONNECTIONS_PER_LOCAL_CONNECTION = 2;
+
+	/**
+	 * Time in milliseconds a request waits for a pooled connection
+	 */
+	public static final long CONNECTION_MANAGER_TIMEOUT = 5000;
+
+	private static final int TIMEOUT = 20000;
+
+	private final MultiThreadedHttpConnectionManager connectionManager;
+
+	private final RestTemplate restTemplate;
+
+	private final int maxLocalConnections;
+
+	private final int maxConnections;
+
+	/**
+	 *
+	 * @param maxLocalConnections maximum number of local connections through
+	 * the tunnel that transfer data at the same time. Values lower than 1 are
+	 * ignored.
+	 * @param proxyConfiguration optional proxy to the Caldecott application.
+	 * May be null.
+	 */
+	public TunnelConnectionPool(int maxLocalConnections, HttpProxyConfiguration proxyConfiguration) {
+		this.maxLocalConnections = Math.max(1, maxLocalConnections);
+		this.maxConnections = this.maxLocalConnections * CONNECTIONS_PER_LOCAL_CONNECTION;
+
+		connectionManager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setDefaultMaxConnectionsPerHost(this.maxConnections);
+		params.setMaxTotalConnections(this.maxConnections);
+		params.setStaleCheckingEnabled(true);
+
+		HttpClient httpClient = new HttpClient(connectionManager);
+		httpClient.getParams().setConnectionManagerTimeout(CONNECTION_MANAGER_TIMEOUT);
+		if (proxyConfiguration != null) {
+			httpClient.getHostConfiguration().setProxy(proxyConfiguration.getProxyHost(),
+					proxyConfiguration.getProxyPort());
+		}
+
+		// Same timeouts as the Caldecott tunnel factory
+		CommonsClientHttpRequestFactory requestFactory = new CommonsClientHttpRequestFactory(httpClient);
+		requestFactory.setConnectTimeout(TIMEOUT);
+		requestFactory.setReadTimeout(TIMEOUT);
+		restTemplate = new RestTemplate(requestFactory);
+	}
+
+	/**
+	 *
+	 * @return rest operations that send tunnel requests over the pooled
+	 * connections
+	 */
+	public RestOperations getRestOperations() {
+		return restTemplate;
+	}
+
+	public int getMaxLocalConnections() {
+		return maxLocalConnections;
+	}
+
+	/**
+	 *
+	 * @return maximum number of HTTP connections kept open to the Caldecott
+	 * application
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 *
+	 * @return number of HTTP connections currently open, whether in use or
+	 * idle
+	 */
+	public int getConnectionsInPool() {
+		return connectionManager.getConnectionsInPool();
+	}
+
+	/**
+	 * Closes all pooled connections. Tunnels using the pool can no longer
+	 * transfer data after the pool is shut down.
+	 */
+	public void shutdown() {
+		connectionManager.shutdown();
+	}
+
+}
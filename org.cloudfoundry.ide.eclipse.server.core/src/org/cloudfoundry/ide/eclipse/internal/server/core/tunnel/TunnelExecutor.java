@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Shared I/O thread pool for all Caldecott tunnel servers. Each tunnel server
+ * runs its connection acceptor and, for each local connection, a blocking
+ * reader and writer task. Rather than each tunnel owning a thread pool, all
+ * tunnels obtain a {@link TunnelTaskExecutor} from this pool, which limits the
+ * number of tasks a single tunnel may run concurrently.
+ * <p/>
+ * The pool keeps no idle core threads, so threads only exist while tunnels
+ * have active connections. Tasks that exceed a tunnel's quota, or that arrive
+ * while the pool is at its thread limit, are queued for that tunnel and run as
+ * soon as a thread becomes available. Queued tasks are scheduled round-robin
+ * across tunnels, so one busy tunnel cannot starve the others.
+ * <p/>
+ * The tunnel executors are plain {@link TaskExecutor}s rather than Spring
+ * executor beans, so that stopping a tunnel server does not shut down the
+ * shared pool. Each tunnel executor must instead be disposed when its tunnel
+ * is stopped.
+ */
+public class TunnelExecutor {
+
+	public static final int DEFAULT_MAX_THREADS = 100;
+
+	/**
+	 * One acceptor task plus a reader and writer task for each of up to 20
+	 * concurrent local connections.
+	 */
+	public static final int DEFAULT_TASKS_PER_TUNNEL = 41;
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private final ThreadPoolExecutor pool;
+
+	private final List<TunnelTaskExecutor> tunnelExecutors = new CopyOnWriteArrayList<TunnelTaskExecutor>();
+
+	private final int tasksPerTunnel;
+
+	private final AtomicInteger drainIndex = new AtomicInteger();
+
+	public TunnelExecutor() {
+		this(DEFAULT_MAX_THREADS, DEFAULT_TASKS_PER_TUNNEL);
+	}
+
+	public TunnelExecutor(int maxThreads, int tasksPerTunnel) {
+		this.tasksPerTunnel = tasksPerTunnel;
+		this.pool = new ThreadPoolExecutor(0, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "Caldecott tunnel I/O " + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Creates an executor for a new tunnel server. The executor must be
+	 * disposed when the tunnel server is stopped.
+	 * @param tunnelName used for tracing
+	 * @return non-null tunnel executor
+	 */
+	public TunnelTaskExecutor createTunnelExecutor(String tunnelName) {
+		TunnelTaskExecutor executor = new TunnelTaskExecutor(tunnelName, tasksPerTunnel);
+		tunnelExecutors.add(executor);
+		return executor;
+	}
+
+	/**
+	 *
+	 * @return number of threads currently in the pool, including idle threads
+	 * that have not yet timed out.
+	 */
+	public int getPoolSize() {
+		return pool.getPoolSize();
+	}
+
+	public int getActiveCount() {
+		return pool.getActiveCount();
+	}
+
+	/**
+	 * Disposes all tunnel executors and stops the pool. Running tasks are
+	 * interrupted.
+	 */
+	public void shutdown() {
+		for (TunnelTaskExecutor executor : tunnelExecutors) {
+			executor.dispose();
+		}
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Submits queued tasks of all tunnels, starting from a different tunnel
+	 * each time.
+	 */
+	protected void drain() {
+		Object[] executors = tunnelExecutors.toArray();
+		if (executors.length == 0) {
+			return;
+		}
+		int start = (drainIndex.getAndIncrement() & Integer.MAX_VALUE) % executors.length;
+		for (int i = 0; i < executors.length; i++) {
+			TunnelTaskExecutor executor = (TunnelTaskExecutor) executors[(start + i) % executors.length];
+			if (!executor.submitPending()) {
+				// Pool is saturated
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Task executor of a single tunnel server, backed by the shared pool.
+	 */
+	public class TunnelTaskExecutor implements TaskExecutor {
+
+		private final String tunnelName;
+
+		private final int quota;
+
+		private final LinkedList<Runnable> pending = new LinkedList<Runnable>();
+
+		private int active;
+
+		private boolean disposed;
+
+		protected TunnelTaskExecutor(String tunnelName, int quota) {
+			this.tunnelName = tunnelName;
+			this.quota = quota;
+		}
+
+		public void execute(Runnable task) {
+			synchronized (this) {
+				if (disposed) {
+					throw new TaskRejectedException("Tunnel " + tunnelName + " is stopped");
+				}
+				pending.add(task);
+			}
+			submitPending();
+		}
+
+		/**
+		 * Submits queued tasks to the shared pool while the tunnel is within
+		 * its quota.
+		 * @return false if the shared pool is saturated, true otherwise
+		 */
+		protected synchronized boolean submitPending() {
+			while (!disposed && active < quota && !pending.isEmpty()) {
+				final Runnable task = pending.getFirst();
+				try {
+					pool.execute(new Runnable() {
+						public void run() {
+							try {
+								task.run();
+							}
+							finally {
+								taskCompleted();
+							}
+						}
+					});
+				}
+				catch (RejectedExecutionException e) {
+					return false;
+				}
+				pending.removeFirst();
+				active++;
+			}
+			return true;
+		}
+
+		protected void taskCompleted() {
+			synchronized (this) {
+				active--;
+			}
+			drain();
+		}
+
+		public synchronized int getActiveCount() {
+			return active;
+		}
+
+		public synchronized int getPendingCount() {
+			return pending.size();
+		}
+
+		/**
+		 * Discards queued tasks and releases this tunnel from the shared
+		 * pool. Running tasks complete once the tunnel server closes its
+		 * sockets.
+		 */
+		public void dispose() {
+			synchronized (this) {
+				disposed = true;
+				pending.clear();
+			}
+			tunnelExecutors.remove(this);
+		}
+
+		public String toString() {
+			return tunnelName;
+		}
+	}
+
+}
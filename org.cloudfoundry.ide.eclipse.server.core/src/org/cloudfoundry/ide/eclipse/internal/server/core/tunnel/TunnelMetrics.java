@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Traffic counters of a single Caldecott tunnel. Counters are updated by the
+ * tunnel I/O tasks, and may be read at any time from any thread.
+ * <p/>
+ * Round-trip latency is recorded for each write to the tunnel, which is a
+ * single HTTP request to the Caldecott application. Reads are long polls that
+ * wait for data from the service, so their duration is not a measure of
+ * latency.
+ */
+public class TunnelMetrics {
+
+	/**
+	 * Upper bounds, in milliseconds, of the latency histogram buckets. The
+	 * last bucket holds all latencies above the last bound.
+	 */
+	public static final long[] LATENCY_BUCKET_BOUNDS = { 10, 25, 50, 100, 250, 500, 1000, 2500 };
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private final AtomicInteger openConnections = new AtomicInteger();
+
+	private final AtomicLong totalConnections = new AtomicLong();
+
+	private final AtomicLongArray latencyCounts = new AtomicLongArray(LATENCY_BUCKET_BOUNDS.length + 1);
+
+	public void connectionOpened() {
+		openConnections.incrementAndGet();
+		totalConnections.incrementAndGet();
+	}
+
+	public void connectionClosed() {
+		openConnections.decrementAndGet();
+	}
+
+	public void addBytesSent(long bytes) {
+		bytesSent.addAndGet(bytes);
+	}
+
+	public void addBytesReceived(long bytes) {
+		bytesReceived.addAndGet(bytes);
+	}
+
+	/**
+	 *
+	 * @param nanos round-trip time of a single tunnel request
+	 */
+	public void recordLatency(long nanos) {
+		long millis = nanos / 1000000;
+		int bucket = 0;
+		while (bucket < LATENCY_BUCKET_BOUNDS.length && millis > LATENCY_BUCKET_BOUNDS[bucket]) {
+			bucket++;
+		}
+		latencyCounts.incrementAndGet(bucket);
+	}
+
+	/**
+	 *
+	 * @return bytes sent from local clients to the service
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 *
+	 * @return bytes received from the service for local clients
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	public int getOpenConnections() {
+		return openConnections.get();
+	}
+
+	public long getTotalConnections() {
+		return totalConnections.get();
+	}
+
+	/**
+	 *
+	 * @return copy of the number of latencies recorded in each bucket of
+	 * {@link #LATENCY_BUCKET_BOUNDS}, plus one bucket for latencies above the
+	 * last bound.
+	 */
+	public long[] getLatencyCounts() {
+		long[] counts = new long[latencyCounts.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = latencyCounts.get(i);
+		}
+		return counts;
+	}
+
+	public long getLatencyCount() {
+		long total = 0;
+		for (long count : getLatencyCounts()) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the upper bound of the histogram bucket that contains the given
+	 * percentile of all recorded latencies.
+	 * @param percentile between 0 and 100
+	 * @return latency in milliseconds, -1 if no latencies were recorded, or
+	 * {@link Long#MAX_VALUE} if the percentile is above the last bucket bound.
+	 */
+	public long getLatencyPercentile(double percentile) {
+		long[] counts = getLatencyCounts();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return -1;
+		}
+		long rank = (long) Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < LATENCY_BUCKET_BOUNDS.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return LATENCY_BUCKET_BOUNDS[i];
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core.tunnel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allocates local ports for Caldecott tunnel servers. Rather than scanning a
+ * port range until a bind succeeds, a tunnel for a service is first offered
+ * the port it last used, so that connection URLs stay the same when a tunnel
+ * is reopened, and otherwise an ephemeral port chosen by the operating system.
+ * <p/>
+ * Ports used by open tunnels are kept in a registry, so that a port is never
+ * offered to two tunnels at the same time.
+ */
+public class TunnelPortAllocator {
+
+	private final Map<String, Integer> lastPorts = new HashMap<String, Integer>();
+
+	private final Set<Integer> portsInUse = new HashSet<Integer>();
+
+	/**
+	 *
+	 * @param serverId
+	 * @param serviceName
+	 * @return port last used by a tunnel for the given service, if it is not
+	 * in use by another open tunnel, or -1 otherwise.
+	 */
+	public synchronized int getPreferredPort(String serverId, String serviceName) {
+		Integer port = lastPorts.get(getKey(serverId, serviceName));
+		return port != null && !portsInUse.contains(port) ? port.intValue() : -1;
+	}
+
+	/**
+	 * Obtains a free port from the operating system. The port is free at the
+	 * time it is returned, but may be taken by another process before the
+	 * tunnel server binds to it, in which case a new port should be requested.
+	 * @param host local address to bind to
+	 * @return free ephemeral port, not in use by an open tunnel
+	 * @throws IOException if no local port can be bound
+	 */
+	public int getEphemeralPort(String host) throws IOException {
+		ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(host));
+		try {
+			int port = socket.getLocalPort();
+			synchronized (this) {
+				if (portsInUse.contains(port)) {
+					// Only possible if a tunnel released the port but has not
+					// been unregistered yet. Let the caller retry.
+					throw new IOException("Port " + port + " is already in use by a tunnel");
+				}
+			}
+			return port;
+		}
+		finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Registers a port as in use by an open tunnel, and remembers it as the
+	 * preferred port for the given service.
+	 */
+	public synchronized void register(String serverId, String serviceName, int port) {
+		portsInUse.add(port);
+		lastPorts.put(getKey(serverId, serviceName), port);
+	}
+
+	/**
+	 * Releases a port once its tunnel is stopped. The port remains the
+	 * preferred port for its service.
+	 */
+	public synchronized void release(int port) {
+		portsInUse.remove(port);
+	}
+
+	public synchronized boolean isInUse(int port) {
+		return portsInUse.contains(port);
+	}
+
+	protected String getKey(String serverId, String serviceName) {
+		return serverId + '/' + serviceName;
+	}
+
+}
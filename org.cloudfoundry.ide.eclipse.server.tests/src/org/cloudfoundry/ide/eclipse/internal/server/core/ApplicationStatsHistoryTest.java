@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ApplicationStatsHistory;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.InstanceStatsHistory;
+
+public class ApplicationStatsHistoryTest extends TestCase {
+
+	protected InstanceStats createInstanceStats(String id, double cpu, double memKB) {
+		Map<String, Object> usage = new HashMap<String, Object>();
+		usage.put("cpu", cpu);
+		usage.put("mem", memKB);
+		usage.put("disk", 1024);
+		usage.put("time", "2012-10-10 10:10:10 +0000");
+
+		Map<String, Object> stats = new HashMap<String, Object>();
+		stats.put("cores", 1);
+		stats.put("name", "app");
+		stats.put("usage", usage);
+		stats.put("disk_quota", 2048L);
+		stats.put("port", 8080);
+		stats.put("mem_quota", 4096L);
+		stats.put("uris", Collections.<String> emptyList());
+		stats.put("fds_quota", 256);
+		stats.put("host", "10.0.0.1");
+		stats.put("uptime", 10.0);
+
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		attributes.put("state", "RUNNING");
+		attributes.put("stats", stats);
+		return new InstanceStats(id, attributes);
+	}
+
+	protected ApplicationStats createStats(InstanceStats... records) {
+		return new ApplicationStats(new ArrayList<InstanceStats>(Arrays.asList(records)));
+	}
+
+	public void testRingBuffer() throws Exception {
+		InstanceStatsHistory history = new InstanceStatsHistory(3);
+		assertEquals(0, history.size());
+		assertEquals(0.0, history.getLatestCpu());
+
+		history.add(1, 10, 100, 1000);
+		history.add(2, 20, 200, 2000);
+		assertEquals(2, history.size());
+		assertTrue(Arrays.equals(new double[] { 10, 20 }, history.getCpu()));
+
+		history.add(3, 30, 300, 3000);
+		history.add(4, 40, 400, 4000);
+		assertEquals(3, history.size());
+		assertTrue(Arrays.equals(new long[] { 2, 3, 4 }, history.getTimes()));
+		assertTrue(Arrays.equals(new double[] { 20, 30, 40 }, history.getCpu()));
+		assertTrue(Arrays.equals(new double[] { 200, 300, 400 }, history.getMemory()));
+		assertTrue(Arrays.equals(new double[] { 2000, 3000, 4000 }, history.getDisk()));
+		assertEquals(40.0, history.getLatestCpu());
+		assertEquals(30.0, history.getAverageCpu());
+	}
+
+	public void testAddSample() throws Exception {
+		ApplicationStatsHistory history = new ApplicationStatsHistory(10);
+
+		assertTrue(history.addSample(createStats(createInstanceStats("0", 5, 1024),
+				createInstanceStats("1", 10, 2048)), 1));
+		assertEquals(Arrays.asList("0", "1"), history.getInstanceIds());
+		assertEquals(15.0, history.getTotalCpu());
+		// Memory is reported in KB and kept in bytes
+		assertEquals(3.0 * 1024 * 1024, history.getTotalMemory());
+
+		assertFalse(history.addSample(createStats(createInstanceStats("0", 5, 1024),
+				createInstanceStats("1", 10, 2048)), 2));
+		assertEquals(2, history.getInstanceHistory("0").size());
+
+		assertTrue(history.addSample(createStats(createInstanceStats("0", 7, 1024),
+				createInstanceStats("1", 10, 2048)), 3));
+		assertEquals(7.0, history.getInstanceHistory("0").getLatestCpu());
+	}
+
+	public void testRemovedInstances() throws Exception {
+		ApplicationStatsHistory history = new ApplicationStatsHistory(10);
+		history.addSample(createStats(createInstanceStats("0", 5, 1024), createInstanceStats("1", 10, 2048)), 1);
+
+		assertTrue(history.addSample(createStats(createInstanceStats("0", 5, 1024)), 2));
+		assertEquals(Collections.singletonList("0"), history.getInstanceIds());
+		assertNull(history.getInstanceHistory("1"));
+
+		assertTrue(history.addSample(null, 3));
+		assertTrue(history.getInstanceIds().isEmpty());
+	}
+
+}
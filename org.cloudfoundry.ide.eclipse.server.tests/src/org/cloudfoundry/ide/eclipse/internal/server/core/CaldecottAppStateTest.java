@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottAppState;
+
+public class CaldecottAppStateTest extends TestCase {
+
+	protected CloudApplication createApplication(List<String> uris, List<String> services, AppState appState) {
+		return new CloudApplication("caldecott", "node", "node", 64, 1, uris, services, appState);
+	}
+
+	public void testBoundServices() throws Exception {
+		CloudApplication app = createApplication(Arrays.asList("caldecott.cloudfoundry.com"),
+				Arrays.asList("mysql", "mongodb"), AppState.STARTED);
+		CaldecottAppState state = new CaldecottAppState(app);
+
+		assertTrue(state.isBound("mysql"));
+		assertFalse(state.isBound("postgresql"));
+		assertTrue(state.isStarted());
+		assertEquals(2, state.getServices().size());
+		assertNull(state.getTunnelUri());
+	}
+
+	public void testNoServices() throws Exception {
+		CloudApplication app = createApplication(Arrays.asList("caldecott.cloudfoundry.com"), null,
+				AppState.STOPPED);
+		CaldecottAppState state = new CaldecottAppState(app);
+
+		assertTrue(state.getServices().isEmpty());
+		assertFalse(state.isStarted());
+	}
+
+	public void testAuthToken() throws Exception {
+		CloudApplication app = createApplication(Arrays.asList("caldecott.cloudfoundry.com"),
+				Collections.<String> emptyList(), AppState.STARTED);
+		Map<String, String> env = new HashMap<String, String>();
+		env.put("CALDECOTT_AUTH", "token");
+		app.setEnv(env);
+
+		assertEquals("token", new CaldecottAppState(app).getAuthToken());
+	}
+
+}
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.cloudfoundry.caldecott.client.TunnelHelper;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.CloudService;
@@ -19,6 +22,7 @@ import org.cloudfoundry.ide.eclipse.server.tests.util.CloudFoundryTestFixture;
 import org.cloudfoundry.ide.eclipse.server.tests.util.CloudFoundryTestFixture.Harness;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.server.core.IModule;
 
 public class CaldecottTunnelTest extends AbstractCloudFoundryServicesTest {
 	public static final String MYSQL_SERVICE_NAME = "mysqlCaldecottTestService";
@@ -107,6 +111,37 @@ public class CaldecottTunnelTest extends AbstractCloudFoundryServicesTest {
 		assertServiceNotExist(MONGODB_SERVICE_NAME);
 	}
 
+	public void testCreateMultipleTunnels() throws Exception {
+		CloudService mysqlService = getMysqlService();
+		CloudService mongodbService = getMongodbService();
+
+		List<String> serviceNames = new ArrayList<String>();
+		serviceNames.add(MYSQL_SERVICE_NAME);
+		serviceNames.add(MONGODB_SERVICE_NAME);
+
+		TunnelBehaviour handler = new TunnelBehaviour(cloudServer);
+		List<CaldecottTunnelDescriptor> descriptors = handler.startCaldecottTunnels(serviceNames,
+				new NullProgressMonitor());
+		assertEquals(2, descriptors.size());
+		assertTunnel(MYSQL_SERVICE_NAME);
+		assertTunnel(MONGODB_SERVICE_NAME);
+		assertTrue(descriptors.get(0).tunnelPort() != descriptors.get(1).tunnelPort());
+
+		CloudApplication caldecottApp = getCaldecottApplication();
+		assertTrue(caldecottApp.getServices().contains(MYSQL_SERVICE_NAME));
+		assertTrue(caldecottApp.getServices().contains(MONGODB_SERVICE_NAME));
+
+		stopTunnel(MYSQL_SERVICE_NAME);
+		stopTunnel(MONGODB_SERVICE_NAME);
+		assertNoTunnel(MYSQL_SERVICE_NAME);
+		assertNoTunnel(MONGODB_SERVICE_NAME);
+
+		deleteService(mysqlService);
+		deleteService(mongodbService);
+		assertServiceNotExist(MYSQL_SERVICE_NAME);
+		assertServiceNotExist(MONGODB_SERVICE_NAME);
+	}
+
 	public void testCreatePostgresqlTunnel() throws Exception {
 		CloudService service = getPostgresqlService();
 		CaldecottTunnelDescriptor descriptor = createCaldecottTunnel(POSTGRESQL_SERVICE_NAME);
@@ -211,6 +246,55 @@ public class CaldecottTunnelTest extends AbstractCloudFoundryServicesTest {
 		assertServiceNotExist(MYSQL_SERVICE_NAME);
 	}
 
+	public void testTunnelAfterCaldecottStop() throws Exception {
+		CloudService service = getMysqlService();
+		assertServiceExists(MYSQL_SERVICE_NAME);
+
+		assertNotNull(createCaldecottTunnel(MYSQL_SERVICE_NAME));
+		stopTunnel(MYSQL_SERVICE_NAME);
+		// Caches the started Caldecott app
+		serverBehavior.refreshModules(new NullProgressMonitor());
+		assertTrue(CloudFoundryPlugin.getCaldecottAppStateCache().getState(cloudServer).isStarted());
+
+		// Stop the Caldecott app without refreshing the modules
+		IModule module = getModule(TunnelHelper.getTunnelAppName());
+		assertNotNull(module);
+		serverBehavior.stopModule(new IModule[] { module }, new NullProgressMonitor());
+		assertNull(CloudFoundryPlugin.getCaldecottAppStateCache().getState(cloudServer));
+
+		// The tunnel starts the Caldecott app again
+		assertNotNull(createCaldecottTunnel(MYSQL_SERVICE_NAME));
+		assertTunnel(MYSQL_SERVICE_NAME);
+
+		stopTunnel(MYSQL_SERVICE_NAME);
+		deleteService(service);
+		assertServiceNotExist(MYSQL_SERVICE_NAME);
+	}
+
+	public void testTunnelAfterCaldecottDeletion() throws Exception {
+		CloudService service = getMysqlService();
+		assertServiceExists(MYSQL_SERVICE_NAME);
+
+		assertNotNull(createCaldecottTunnel(MYSQL_SERVICE_NAME));
+		stopTunnel(MYSQL_SERVICE_NAME);
+		serverBehavior.refreshModules(new NullProgressMonitor());
+		assertNotNull(CloudFoundryPlugin.getCaldecottAppStateCache().getState(cloudServer));
+
+		// Delete the Caldecott app without refreshing the modules
+		IModule module = getModule(TunnelHelper.getTunnelAppName());
+		assertNotNull(module);
+		serverBehavior.deleteModules(new IModule[] { module }, false, new NullProgressMonitor());
+		assertNull(CloudFoundryPlugin.getCaldecottAppStateCache().getState(cloudServer));
+
+		// The tunnel deploys the Caldecott app again
+		assertNotNull(createCaldecottTunnel(MYSQL_SERVICE_NAME));
+		assertTunnel(MYSQL_SERVICE_NAME);
+
+		stopTunnel(MYSQL_SERVICE_NAME);
+		deleteService(service);
+		assertServiceNotExist(MYSQL_SERVICE_NAME);
+	}
+
 	public void testTunnelCloseOnCaldecottServiceUnbinding() throws Exception {
 		CloudService service = getMysqlService();
 		assertServiceExists(MYSQL_SERVICE_NAME);
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.CloudCredentials;
+import org.cloudfoundry.client.lib.domain.CloudSpace;
+import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudSpacesDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudSpacesDescriptorCache;
+
+public class CloudSpacesDescriptorCacheTest extends TestCase {
+
+	private static final String URL = "https://api.cloudfoundry.com";
+
+	private long time;
+
+	private CloudSpacesDescriptorCache cache;
+
+	private CloudCredentials credentials;
+
+	@Override
+	protected void setUp() throws Exception {
+		time = 1000;
+		cache = new CloudSpacesDescriptorCache() {
+			@Override
+			protected long currentTime() {
+				return time;
+			}
+		};
+		credentials = new CloudCredentials("user@vmware.com", "password");
+	}
+
+	protected CloudSpacesDescriptor createDescriptor() {
+		return new CloudSpacesDescriptor(new ArrayList<CloudSpace>(), true);
+	}
+
+	public void testPut() throws Exception {
+		assertNull(cache.getDescriptor(URL, credentials));
+		assertTrue(cache.isStale(URL, credentials));
+
+		CloudSpacesDescriptor descriptor = createDescriptor();
+		cache.put(URL, credentials, descriptor);
+		assertSame(descriptor, cache.getDescriptor(URL, credentials));
+		assertSame(descriptor, cache.getDescriptor(URL, new CloudCredentials("user@vmware.com", "password")));
+		assertFalse(cache.isStale(URL, credentials));
+
+		assertNull(cache.getDescriptor("https://api.other.com", credentials));
+		assertNull(cache.getDescriptor(URL, new CloudCredentials("other@vmware.com", "password")));
+	}
+
+	public void testWrongPassword() throws Exception {
+		cache.put(URL, credentials, createDescriptor());
+		CloudCredentials wrongCredentials = new CloudCredentials("user@vmware.com", "wrong");
+		assertNull(cache.getDescriptor(URL, wrongCredentials));
+		assertTrue(cache.isStale(URL, wrongCredentials));
+		assertNotNull(cache.getDescriptor(URL, credentials));
+	}
+
+	public void testEmptyPassword() throws Exception {
+		CloudCredentials emptyPassword = new CloudCredentials("user@vmware.com", "");
+		cache.put(URL, emptyPassword, createDescriptor());
+		assertNotNull(cache.getDescriptor(URL, emptyPassword));
+		assertNull(cache.getDescriptor(URL, new CloudCredentials("user@vmware.com", null)));
+		assertNull(cache.getDescriptor(URL, credentials));
+	}
+
+	public void testStale() throws Exception {
+		CloudSpacesDescriptor descriptor = createDescriptor();
+		cache.put(URL, credentials, descriptor);
+
+		time += CloudSpacesDescriptorCache.FRESH_AGE + 1;
+		assertTrue(cache.isStale(URL, credentials));
+		assertSame(descriptor, cache.getDescriptor(URL, credentials));
+
+		time += CloudSpacesDescriptorCache.MAX_AGE;
+		assertNull(cache.getDescriptor(URL, credentials));
+	}
+
+	public void testRevalidation() throws Exception {
+		cache.put(URL, credentials, createDescriptor());
+		assertTrue(cache.startRevalidation(URL, credentials));
+		assertFalse(cache.startRevalidation(URL, credentials));
+
+		CloudSpacesDescriptor descriptor = createDescriptor();
+		cache.put(URL, credentials, descriptor);
+		assertSame(descriptor, cache.getDescriptor(URL, credentials));
+		assertTrue(cache.startRevalidation(URL, credentials));
+
+		cache.invalidate(URL, credentials);
+		assertNull(cache.getDescriptor(URL, credentials));
+		assertTrue(cache.startRevalidation(URL, credentials));
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudEntity;
+import org.cloudfoundry.client.lib.domain.CloudOrganization;
+import org.cloudfoundry.client.lib.domain.CloudSpace;
+import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudSpacesDescriptor;
+
+public class CloudSpacesDescriptorTest extends TestCase {
+
+	private CloudSpacesDescriptor descriptor;
+
+	@Override
+	protected void setUp() throws Exception {
+		CloudOrganization engineering = new CloudOrganization(CloudEntity.Meta.defaultMeta(), "Engineering");
+		CloudOrganization marketing = new CloudOrganization(CloudEntity.Meta.defaultMeta(), "Marketing");
+		List<CloudSpace> spaces = new ArrayList<CloudSpace>();
+		spaces.add(new CloudSpace(CloudEntity.Meta.defaultMeta(), "staging", marketing));
+		spaces.add(new CloudSpace(CloudEntity.Meta.defaultMeta(), "production", engineering));
+		spaces.add(new CloudSpace(CloudEntity.Meta.defaultMeta(), "development", engineering));
+		spaces.add(new CloudSpace(CloudEntity.Meta.defaultMeta(), "campaigns", marketing));
+		descriptor = new CloudSpacesDescriptor(spaces, true);
+	}
+
+	protected List<String> getNames(List<? extends CloudEntity> entities) {
+		List<String> names = new ArrayList<String>();
+		for (CloudEntity entity : entities) {
+			names.add(entity.getName());
+		}
+		return names;
+	}
+
+	public void testSorted() throws Exception {
+		assertEquals("[Engineering, Marketing]", getNames(descriptor.getOrgs()).toString());
+		assertEquals("[development, production]", getNames(descriptor.getOrgSpaces("Engineering")).toString());
+		assertEquals("[campaigns, staging]", getNames(descriptor.getOrgSpaces("Marketing", null)).toString());
+		assertEquals("production", descriptor.getSpace("Engineering", "production").getName());
+		assertNull(descriptor.getSpace("Marketing", "production"));
+		assertNull(descriptor.getDefaultCloudSpace());
+	}
+
+	public void testFilterSpaces() throws Exception {
+		assertEquals("[Engineering]", getNames(descriptor.getOrgs("PROD")).toString());
+		assertEquals("[production]", getNames(descriptor.getOrgSpaces("Engineering", "PROD")).toString());
+		assertTrue(descriptor.getOrgSpaces("Marketing", "PROD").isEmpty());
+
+		assertEquals("[Engineering, Marketing]", getNames(descriptor.getOrgs("ing")).toString());
+	}
+
+	public void testFilterOrgs() throws Exception {
+		// All spaces of an org are shown if the org name matches
+		assertEquals("[Marketing]", getNames(descriptor.getOrgs("market")).toString());
+		assertEquals("[campaigns, staging]", getNames(descriptor.getOrgSpaces("Marketing", "market")).toString());
+	}
+
+	public void testEmptyFilter() throws Exception {
+		assertEquals(2, descriptor.getOrgs(" ").size());
+		assertEquals(2, descriptor.getOrgSpaces("Engineering", "").size());
+		assertTrue(descriptor.getOrgSpaces("Sales", null).isEmpty());
+		assertTrue(descriptor.getOrgs("none").isEmpty());
+	}
+
+}
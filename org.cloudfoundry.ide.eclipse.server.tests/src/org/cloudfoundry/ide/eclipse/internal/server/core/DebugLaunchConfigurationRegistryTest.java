@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.CloudFoundryDebuggingLaunchConfigDelegate;
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugLaunchConfigurationRegistry;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+
+public class DebugLaunchConfigurationRegistryTest extends TestCase {
+
+	private static final String CONNECTION_ID = "DebugLaunchConfigurationRegistryTest";
+
+	private static final String APP_NAME = "registry-test-app";
+
+	private DebugLaunchConfigurationRegistry registry;
+
+	@Override
+	protected void setUp() throws Exception {
+		registry = new DebugLaunchConfigurationRegistry();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
+		ILaunchConfigurationType launchConfigType = launchManager
+				.getLaunchConfigurationType(CloudFoundryDebuggingLaunchConfigDelegate.LAUNCH_CONFIGURATION_ID);
+		for (ILaunchConfiguration configuration : launchManager.getLaunchConfigurations(launchConfigType)) {
+			String key = configuration.getAttribute(DebugLaunchConfigurationRegistry.LAUNCH_KEY, (String) null);
+			if (key != null && key.startsWith(CONNECTION_ID)) {
+				configuration.delete();
+			}
+		}
+	}
+
+	protected ILaunchConfiguration getLaunchConfiguration(String connectionID, int instanceIndex, String host,
+			int port) throws Exception {
+		return registry.getLaunchConfiguration(connectionID, instanceIndex, APP_NAME, APP_NAME + " - "
+				+ instanceIndex, host, port, 5000);
+	}
+
+	protected String getPort(ILaunchConfiguration configuration) throws Exception {
+		return configuration.getAttribute(CloudFoundryDebuggingLaunchConfigDelegate.PORT, (String) null);
+	}
+
+	protected String getHost(ILaunchConfiguration configuration) throws Exception {
+		return configuration.getAttribute(CloudFoundryDebuggingLaunchConfigDelegate.HOST_NAME, (String) null);
+	}
+
+	public void testReusedPerInstance() throws Exception {
+		ILaunchConfiguration configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertNotNull(configuration);
+		assertSame(configuration, getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000));
+
+		ILaunchConfiguration otherInstance = getLaunchConfiguration(CONNECTION_ID, 1, "localhost", 1000);
+		assertNotSame(configuration, otherInstance);
+		assertSame(otherInstance, getLaunchConfiguration(CONNECTION_ID, 1, "localhost", 1000));
+
+		ILaunchConfiguration otherApp = getLaunchConfiguration(CONNECTION_ID + "Other", 0, "localhost", 1000);
+		assertNotSame(configuration, otherApp);
+		assertNotSame(otherInstance, otherApp);
+	}
+
+	public void testPortChanged() throws Exception {
+		ILaunchConfiguration configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertEquals("1000", getPort(configuration));
+
+		// A new debug port after a restart updates the same configuration
+		ILaunchConfiguration updated = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 2000);
+		assertFalse(updated.isWorkingCopy());
+		assertEquals("2000", getPort(updated));
+		assertEquals(configuration.getName(), updated.getName());
+		assertEquals(1, getSavedConfigurationCount());
+	}
+
+	public void testHostChanged() throws Exception {
+		getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+
+		ILaunchConfiguration updated = getLaunchConfiguration(CONNECTION_ID, 0, "127.0.0.1", 1000);
+		assertFalse(updated.isWorkingCopy());
+		assertEquals("127.0.0.1", getHost(updated));
+		assertEquals("1000", getPort(updated));
+		assertEquals(1, getSavedConfigurationCount());
+	}
+
+	public void testSavedBeforeLaunch() throws Exception {
+		ILaunchConfiguration configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertFalse(configuration.isWorkingCopy());
+		assertTrue(configuration.exists());
+		assertEquals(1, getSavedConfigurationCount());
+
+		// Saved configurations are found again in a new session
+		registry = new DebugLaunchConfigurationRegistry();
+		ILaunchConfiguration found = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertFalse(found.isWorkingCopy());
+		assertEquals(configuration, found);
+	}
+
+	public void testUserChangesKept() throws Exception {
+		ILaunchConfiguration configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		ILaunchConfigurationWorkingCopy wc = configuration.getWorkingCopy();
+		wc.setAttribute("userAttribute", "edited");
+		wc.doSave();
+
+		// Reconnecting to the unchanged instance does not overwrite the
+		// changes of the user
+		configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertEquals("edited", configuration.getAttribute("userAttribute", (String) null));
+
+		configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 2000);
+		assertEquals("edited", configuration.getAttribute("userAttribute", (String) null));
+	}
+
+	public void testDeletedConfiguration() throws Exception {
+		getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000).delete();
+		assertEquals(0, getSavedConfigurationCount());
+
+		// A configuration deleted by the user is created again
+		ILaunchConfiguration configuration = getLaunchConfiguration(CONNECTION_ID, 0, "localhost", 1000);
+		assertTrue(configuration.exists());
+		assertEquals(1, getSavedConfigurationCount());
+	}
+
+	protected int getSavedConfigurationCount() throws Exception {
+		ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
+		ILaunchConfigurationType launchConfigType = launchManager
+				.getLaunchConfigurationType(CloudFoundryDebuggingLaunchConfigDelegate.LAUNCH_CONFIGURATION_ID);
+		int count = 0;
+		for (ILaunchConfiguration configuration : launchManager.getLaunchConfigurations(launchConfigType)) {
+			if ((CONNECTION_ID + "#0").equals(configuration.getAttribute(DebugLaunchConfigurationRegistry.LAUNCH_KEY,
+					(String) null))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
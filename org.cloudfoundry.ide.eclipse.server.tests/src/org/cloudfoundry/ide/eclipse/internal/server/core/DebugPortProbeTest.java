@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.net.ServerSocket;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugPortProbe;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+public class DebugPortProbeTest extends TestCase {
+
+	public void testListeningPort() throws Exception {
+		DebugPortProbe probe = new DebugPortProbe(1000);
+		ServerSocket serverSocket = new ServerSocket(0);
+		int port = serverSocket.getLocalPort();
+		try {
+			assertTrue(probe.isListening("127.0.0.1", port));
+		}
+		finally {
+			serverSocket.close();
+		}
+
+		assertFalse(probe.isListening("127.0.0.1", port));
+	}
+
+	public void testWaitUntilListening() throws Exception {
+		DebugPortProbe probe = new DebugPortProbe(1000);
+		ServerSocket serverSocket = new ServerSocket(0);
+		int port = serverSocket.getLocalPort();
+		try {
+			assertTrue(probe.waitUntilListening("127.0.0.1", port, 5000, 250, new NullProgressMonitor()));
+		}
+		finally {
+			serverSocket.close();
+		}
+	}
+
+	public void testWaitBoundedByDeadline() throws Exception {
+		DebugPortProbe probe = new DebugPortProbe(1000);
+		ServerSocket serverSocket = new ServerSocket(0);
+		int port = serverSocket.getLocalPort();
+		serverSocket.close();
+
+		long start = System.currentTimeMillis();
+		assertFalse(probe.waitUntilListening("127.0.0.1", port, 600, 250, new NullProgressMonitor()));
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue("Waited " + elapsed + " ms", elapsed >= 500 && elapsed < 1500);
+	}
+
+	public void testWaitCancelled() throws Exception {
+		DebugPortProbe probe = new DebugPortProbe(1000);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		assertFalse(probe.waitUntilListening("127.0.0.1", 1, 5000, 250, monitor));
+	}
+
+}
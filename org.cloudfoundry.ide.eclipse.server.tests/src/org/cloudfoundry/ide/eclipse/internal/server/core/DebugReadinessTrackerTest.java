@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.InstancesInfo;
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugConnectionDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugReadinessTracker;
+import org.cloudfoundry.ide.eclipse.internal.server.core.debug.IDebugReadinessListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+public class DebugReadinessTrackerTest extends TestCase {
+
+	protected static Map<String, Object> createInstance(int index, String debugIp, int debugPort) {
+		Map<String, Object> instance = new HashMap<String, Object>();
+		instance.put("index", index);
+		instance.put("since", 0L);
+		instance.put("state", "RUNNING");
+		if (debugIp != null) {
+			instance.put("debug_ip", debugIp);
+			instance.put("debug_port", debugPort);
+		}
+		return instance;
+	}
+
+	protected static InstancesInfo createInstancesInfo(Map<String, Object>... instances) {
+		List<Map<String, Object>> attributes = new ArrayList<Map<String, Object>>();
+		for (Map<String, Object> instance : instances) {
+			attributes.add(instance);
+		}
+		return new InstancesInfo(attributes);
+	}
+
+	protected static class TestTracker extends DebugReadinessTracker {
+
+		private final InstancesInfo refreshed;
+
+		private final LinkedList<InstancesInfo> polls;
+
+		protected int pollCount;
+
+		protected TestTracker(InstancesInfo refreshed, InstancesInfo... polls) {
+			this.refreshed = refreshed;
+			this.polls = new LinkedList<InstancesInfo>();
+			for (InstancesInfo poll : polls) {
+				this.polls.add(poll);
+			}
+		}
+
+		@Override
+		protected InstancesInfo getRefreshedInstancesInfo() {
+			return refreshed;
+		}
+
+		@Override
+		protected InstancesInfo fetchInstancesInfo(IProgressMonitor monitor) {
+			pollCount++;
+			return polls.size() > 1 ? polls.removeFirst() : polls.peek();
+		}
+
+		@Override
+		protected void sleep(long delay, IProgressMonitor monitor) {
+			// Do not wait in tests
+		}
+	}
+
+	protected static class RecordingListener implements IDebugReadinessListener {
+
+		protected final List<Integer> readyInstances = new ArrayList<Integer>();
+
+		public void instanceReady(int instanceIndex, DebugConnectionDescriptor descriptor) {
+			readyInstances.add(instanceIndex);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testRefreshedInstancesReady() throws Exception {
+		InstancesInfo refreshed = createInstancesInfo(createInstance(0, "10.0.0.1", 8000),
+				createInstance(1, "10.0.0.1", 8001));
+		TestTracker tracker = new TestTracker(refreshed);
+		RecordingListener listener = new RecordingListener();
+
+		assertEquals(2, tracker.track(listener, new NullProgressMonitor()));
+		assertEquals(0, tracker.pollCount);
+		assertEquals(2, listener.readyInstances.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testInstancesNotifiedOnce() throws Exception {
+		InstancesInfo refreshed = createInstancesInfo(createInstance(0, "10.0.0.1", 8000),
+				createInstance(1, null, 0));
+		InstancesInfo firstPoll = createInstancesInfo(createInstance(0, "10.0.0.1", 8000),
+				createInstance(1, null, 0));
+		InstancesInfo secondPoll = createInstancesInfo(createInstance(0, "10.0.0.1", 8000),
+				createInstance(1, "10.0.0.2", 8000));
+		TestTracker tracker = new TestTracker(refreshed, firstPoll, secondPoll);
+		RecordingListener listener = new RecordingListener();
+
+		assertEquals(2, tracker.track(listener, new NullProgressMonitor()));
+		assertEquals(2, tracker.pollCount);
+		assertEquals(0, listener.readyInstances.get(0).intValue());
+		assertEquals(1, listener.readyInstances.get(1).intValue());
+		assertEquals(2, listener.readyInstances.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testInstancesNeverReady() throws Exception {
+		TestTracker tracker = new TestTracker(null, createInstancesInfo(createInstance(0, null, 0)));
+		RecordingListener listener = new RecordingListener();
+
+		assertEquals(0, tracker.track(listener, new NullProgressMonitor()));
+		assertTrue(listener.readyInstances.isEmpty());
+
+		// Polls stop once the maximum wait time is reached
+		assertTrue(tracker.pollCount > 1);
+		assertTrue(tracker.pollCount < 20);
+	}
+
+}
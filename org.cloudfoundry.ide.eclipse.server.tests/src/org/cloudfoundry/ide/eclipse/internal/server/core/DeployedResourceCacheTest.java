@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.CacheStats;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.CachedDeployedApplication;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.DeployedResourceEntry;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCache.EntryComputer;
+
+public class DeployedResourceCacheTest extends TestCase {
+
+	private static final CachedDeployedApplication APP1 = new CachedDeployedApplication("server1", "app1");
+
+	private static final CachedDeployedApplication APP2 = new CachedDeployedApplication("server1", "app2");
+
+	private static final CachedDeployedApplication OTHER_SERVER_APP1 = new CachedDeployedApplication("server2",
+			"app1");
+
+	private static DeployedResourceEntry entry(String name) {
+		return new DeployedResourceEntry(new byte[20], 100, name);
+	}
+
+	public void testRetainEntries() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(APP1, entry("a.html"));
+		cache.add(APP1, entry("WEB-INF/b.class"));
+		cache.add(APP1, entry("WEB-INF/c.class"));
+		cache.add(APP2, entry("a.html"));
+
+		Set<String> current = new HashSet<String>();
+		current.add("a.html");
+		current.add("WEB-INF/c.class");
+		assertEquals(1, cache.retainEntries(APP1, current));
+
+		assertNull(cache.getEntry(APP1, "WEB-INF/b.class"));
+		assertNotNull(cache.getEntry(APP1, "a.html"));
+		assertNotNull(cache.getEntry(APP2, "a.html"));
+		assertEquals(3, cache.getStats().getEntryCount());
+	}
+
+	public void testRemoveApplication() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(APP1, entry("a.html"));
+		cache.add(APP1, entry("b.html"));
+		cache.add(APP2, entry("a.html"));
+
+		cache.removeApplication(new CachedDeployedApplication("server1", "app1"));
+
+		assertNull(cache.getEntry(APP1, "a.html"));
+		assertNotNull(cache.getEntry(APP2, "a.html"));
+		CacheStats stats = cache.getStats();
+		assertEquals(1, stats.getEntryCount());
+		assertEquals(entry("a.html").getMemorySize(), stats.getBytes());
+		assertEquals(0, cache.retainEntries(APP1, Collections.<String> emptySet()));
+	}
+
+	public void testApplicationsOfDifferentServers() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(APP1, entry("a.html"));
+		assertNull(cache.getEntry(OTHER_SERVER_APP1, "a.html"));
+
+		cache.add(OTHER_SERVER_APP1, entry("a.html"));
+		cache.removeApplication(APP1);
+		assertNull(cache.getEntry(APP1, "a.html"));
+		assertNotNull(cache.getEntry(OTHER_SERVER_APP1, "a.html"));
+	}
+
+	public void testRemoveServer() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		cache.add(APP1, entry("a.html"));
+		cache.add(APP2, entry("b.html"));
+		cache.add(OTHER_SERVER_APP1, entry("a.html"));
+
+		cache.removeServer("server1");
+
+		assertNull(cache.getEntry(APP1, "a.html"));
+		assertNull(cache.getEntry(APP2, "b.html"));
+		assertNotNull(cache.getEntry(OTHER_SERVER_APP1, "a.html"));
+		CacheStats stats = cache.getStats();
+		assertEquals(1, stats.getEntryCount());
+		assertEquals(entry("a.html").getMemorySize(), stats.getBytes());
+	}
+
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		long entrySize = entry("a").getMemorySize();
+		DeployedResourceCache cache = new DeployedResourceCache(3 * entrySize);
+		cache.add(APP1, entry("a"));
+		cache.add(APP1, entry("b"));
+		cache.add(APP2, entry("c"));
+
+		// Access "a" so that "b" is the least recently used
+		assertNotNull(cache.getEntry(APP1, "a"));
+		cache.add(APP2, entry("d"));
+
+		assertNull(cache.getEntry(APP1, "b"));
+		assertNotNull(cache.getEntry(APP1, "a"));
+		assertNotNull(cache.getEntry(APP2, "c"));
+		assertNotNull(cache.getEntry(APP2, "d"));
+
+		CacheStats stats = cache.getStats();
+		assertEquals(3, stats.getEntryCount());
+		assertEquals(1, stats.getEvictions());
+		assertTrue(stats.getBytes() <= stats.getMaxBytes());
+	}
+
+	public void testHitRatio() throws Exception {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		assertEquals(0d, cache.getStats().getHitRatio(), 0d);
+
+		cache.add(APP1, entry("a"));
+		cache.getEntry(APP1, "a");
+		cache.getEntry(APP1, "a");
+		cache.getEntry(APP1, "a");
+		cache.getEntry(APP1, "missing");
+
+		CacheStats stats = cache.getStats();
+		assertEquals(3, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(0.75d, stats.getHitRatio(), 0.001d);
+	}
+
+	public void testComputeIfAbsent() throws Exception {
+		final AtomicInteger computations = new AtomicInteger();
+		EntryComputer computer = new EntryComputer() {
+			public DeployedResourceEntry computeEntry() {
+				computations.incrementAndGet();
+				return entry("a");
+			}
+		};
+
+		DeployedResourceCache cache = new DeployedResourceCache();
+		DeployedResourceEntry first = cache.computeIfAbsent(APP1, "a", computer);
+		assertSame(first, cache.computeIfAbsent(APP1, "a", computer));
+		assertEquals(1, computations.get());
+
+		DeployedResourceEntry recomputed = cache.recompute(APP1, "a", computer);
+		assertNotSame(first, recomputed);
+		assertSame(recomputed, cache.getEntry(APP1, "a"));
+		assertEquals(2, computations.get());
+		assertEquals(1, cache.getStats().getEntryCount());
+	}
+
+	public void testConcurrentComputationsDeduplicated() throws Exception {
+		final DeployedResourceCache cache = new DeployedResourceCache();
+		final AtomicInteger computations = new AtomicInteger();
+		final CountDownLatch computing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final EntryComputer computer = new EntryComputer() {
+			public DeployedResourceEntry computeEntry() {
+				computations.incrementAndGet();
+				computing.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return entry("a");
+			}
+		};
+
+		final DeployedResourceEntry[] results = new DeployedResourceEntry[4];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					results[index] = cache.computeIfAbsent(APP1, "a", computer);
+				}
+			};
+		}
+
+		threads[0].start();
+		computing.await();
+
+		// Other applications are not blocked by the computation
+		cache.add(APP2, entry("b"));
+		assertNotNull(cache.getEntry(APP2, "b"));
+
+		for (int i = 1; i < threads.length; i++) {
+			threads[i].start();
+		}
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+
+		assertEquals(1, computations.get());
+		for (DeployedResourceEntry result : results) {
+			assertSame(results[0], result);
+		}
+	}
+
+}
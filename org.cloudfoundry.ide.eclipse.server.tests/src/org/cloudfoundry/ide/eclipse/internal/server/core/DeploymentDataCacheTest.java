@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudService;
+
+public class DeploymentDataCacheTest extends TestCase {
+
+	private long time;
+
+	private DeploymentDataCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		time = 1000;
+		cache = new DeploymentDataCache() {
+			@Override
+			protected long currentTime() {
+				return time;
+			}
+		};
+	}
+
+	protected DeploymentConfiguration createConfiguration(int defaultMemory) {
+		DeploymentConfiguration configuration = new DeploymentConfiguration();
+		configuration.setMemoryOptions(new int[] { 128, 256, 512 });
+		configuration.setDefaultMemory(defaultMemory);
+		return configuration;
+	}
+
+	public void testEmpty() throws Exception {
+		assertNull(cache.getDeploymentConfiguration("server", "spring"));
+		assertNull(cache.getServices("server"));
+		assertTrue(cache.isStale("server", "spring"));
+	}
+
+	public void testPut() throws Exception {
+		DeploymentConfiguration configuration = createConfiguration(512);
+		List<CloudService> services = new ArrayList<CloudService>();
+		cache.putDeploymentConfiguration("server", "spring", configuration);
+		assertTrue(cache.isStale("server", "spring"));
+
+		cache.putServices("server", services);
+		assertSame(configuration, cache.getDeploymentConfiguration("server", "spring"));
+		assertNull(cache.getDeploymentConfiguration("server", "node"));
+		assertSame(services, cache.getServices("server"));
+		assertNull(cache.getServices("other"));
+		assertFalse(cache.isStale("server", "spring"));
+		assertTrue(cache.isStale("server", "node"));
+	}
+
+	public void testStale() throws Exception {
+		cache.putDeploymentConfiguration("server", "spring", createConfiguration(512));
+		time += DeploymentDataCache.MAX_AGE;
+		cache.putServices("server", new ArrayList<CloudService>());
+		assertFalse(cache.isStale("server", "spring"));
+
+		time += 1;
+		assertTrue(cache.isStale("server", "spring"));
+		// Stale values are still returned
+		assertNotNull(cache.getDeploymentConfiguration("server", "spring"));
+
+		cache.putDeploymentConfiguration("server", "spring", createConfiguration(256));
+		assertFalse(cache.isStale("server", "spring"));
+		assertEquals(256, cache.getDeploymentConfiguration("server", "spring").getDefaultMemory());
+	}
+
+	public void testClear() throws Exception {
+		cache.putDeploymentConfiguration("server", "spring", createConfiguration(512));
+		cache.putServices("server", new ArrayList<CloudService>());
+		cache.putServices("other", new ArrayList<CloudService>());
+
+		cache.clear("server");
+		assertNull(cache.getDeploymentConfiguration("server", "spring"));
+		assertNull(cache.getServices("server"));
+		assertNotNull(cache.getServices("other"));
+
+		cache.clear();
+		assertNull(cache.getServices("other"));
+	}
+
+}
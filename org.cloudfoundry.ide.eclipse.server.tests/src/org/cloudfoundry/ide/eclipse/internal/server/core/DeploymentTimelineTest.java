@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.Collections;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentTimeline.Phase;
+
+public class DeploymentTimelineTest extends TestCase {
+
+	public void testUndefinedPhases() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline("app");
+		for (Phase phase : Phase.values()) {
+			assertEquals(DeploymentTimeline.UNDEFINED, timeline.getDuration(phase));
+		}
+		assertEquals(DeploymentTimeline.UNDEFINED, timeline.getUploadRate());
+		assertFalse(timeline.isComplete());
+
+		// Ending a phase that was not started is ignored
+		timeline.end(Phase.STAGING);
+		assertEquals(DeploymentTimeline.UNDEFINED, timeline.getDuration(Phase.STAGING));
+	}
+
+	public void testDurationsAccumulate() throws Exception {
+		DeploymentTimeline timeline = new DeploymentTimeline("app");
+		timeline.addDuration(Phase.DIGEST, 2000000);
+		timeline.addDuration(Phase.DIGEST, 3000000);
+		assertEquals(5, timeline.getDuration(Phase.DIGEST));
+
+		timeline.setUploadedBytes(1000);
+		timeline.addDuration(Phase.UPLOAD, 500000000);
+		assertEquals(2000, timeline.getUploadRate());
+
+		timeline.complete();
+		assertTrue(timeline.isComplete());
+	}
+
+	public void testTimedCallback() throws Exception {
+		final boolean[] called = new boolean[3];
+		UploadStatusCallback callback = new UploadStatusCallback() {
+
+			public void onCheckResources() {
+				called[0] = true;
+			}
+
+			public void onMatchedFileNames(Set<String> matchedFileNames) {
+				called[1] = true;
+			}
+
+			public void onProcessMatchedResources(int length) {
+				called[2] = true;
+			}
+		};
+
+		DeploymentTimeline timeline = new DeploymentTimeline("app");
+		timeline.start(Phase.RESOURCE_MATCH);
+		UploadStatusCallback timed = timeline.getTimedCallback(callback);
+		timed.onCheckResources();
+		timed.onMatchedFileNames(Collections.<String> emptySet());
+		timed.onProcessMatchedResources(4096);
+		timeline.end(Phase.UPLOAD);
+
+		assertTrue(called[0] && called[1] && called[2]);
+		assertTrue(timeline.getDuration(Phase.RESOURCE_MATCH) >= 0);
+		assertTrue(timeline.getDuration(Phase.WAR_BUILD) >= 0);
+		assertTrue(timeline.getDuration(Phase.UPLOAD) >= 0);
+		assertEquals(4096, timeline.getUploadedBytes());
+	}
+
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.ui.editor.LazyTableContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerSorter;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+public class LazyTableContentProviderTest extends TestCase {
+
+	private static class Element {
+
+		final String key;
+
+		final String value;
+
+		Element(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+	}
+
+	private Shell shell;
+
+	private TableViewer viewer;
+
+	private LazyTableContentProvider contentProvider;
+
+	private int labelCount;
+
+	@Override
+	protected void setUp() throws Exception {
+		shell = new Shell(Display.getDefault());
+		viewer = new TableViewer(shell, SWT.VIRTUAL);
+		contentProvider = new LazyTableContentProvider(viewer, new ViewerSorter() {
+			@Override
+			public int compare(Viewer viewer, Object e1, Object e2) {
+				return ((Element) e1).key.compareTo(((Element) e2).key);
+			}
+		}) {
+			@Override
+			protected String getKey(Object element) {
+				return ((Element) element).key;
+			}
+
+			@Override
+			protected String getSignature(Object element) {
+				return ((Element) element).value;
+			}
+		};
+		viewer.setContentProvider(contentProvider);
+		viewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public String getText(Object element) {
+				labelCount++;
+				return ((Element) element).key + " " + ((Element) element).value;
+			}
+		});
+		viewer.setInput(new Object());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		shell.dispose();
+	}
+
+	public void testSorted() throws Exception {
+		Element a = new Element("a", "1");
+		Element b = new Element("b", "1");
+		Element c = new Element("c", "1");
+		contentProvider.setElements(new Object[] { c, a, b });
+
+		Object[] elements = contentProvider.getElements();
+		assertEquals(3, elements.length);
+		assertSame(a, elements[0]);
+		assertSame(b, elements[1]);
+		assertSame(c, elements[2]);
+		assertEquals(3, viewer.getTable().getItemCount());
+	}
+
+	public void testNullElements() throws Exception {
+		contentProvider.setElements(new Object[] { new Element("a", "1") });
+		contentProvider.setElements(null);
+		assertEquals(0, contentProvider.getElements().length);
+		assertEquals(0, viewer.getTable().getItemCount());
+	}
+
+	public void testUnchangedElementsKept() throws Exception {
+		Element a = new Element("a", "1");
+		Element b = new Element("b", "1");
+		contentProvider.setElements(new Object[] { a, b });
+
+		Element newA = new Element("a", "1");
+		Element newB = new Element("b", "2");
+		contentProvider.setElements(new Object[] { newA, newB });
+
+		// Only the element whose signature changed is replaced
+		Object[] elements = contentProvider.getElements();
+		assertSame(a, elements[0]);
+		assertSame(newB, elements[1]);
+	}
+
+	public void testSignaturesDoNotLabelRows() throws Exception {
+		Element[] elements = new Element[100];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new Element("element" + (1000 + i), "1");
+		}
+		contentProvider.setElements(elements);
+		contentProvider.setElements(elements.clone());
+
+		// Rows of the hidden table are not created, so none is labelled
+		assertEquals(0, labelCount);
+	}
+
+	public void testSelectionKeptWhenRowsMove() throws Exception {
+		Element b = new Element("b", "1");
+		Element c = new Element("c", "1");
+		contentProvider.setElements(new Object[] { b, c });
+		viewer.getTable().select(1);
+		contentProvider.updateElement(1);
+
+		// Adding an element before the selected one moves its row
+		Element a = new Element("a", "1");
+		contentProvider.setElements(new Object[] { a, b, c });
+
+		assertEquals(1, viewer.getTable().getSelectionCount());
+		assertEquals(2, viewer.getTable().getSelectionIndex());
+		IStructuredSelection selection = (IStructuredSelection) viewer.getSelection();
+		assertSame(c, selection.getFirstElement());
+	}
+
+	public void testSelectionDroppedWhenElementRemoved() throws Exception {
+		Element a = new Element("a", "1");
+		Element b = new Element("b", "1");
+		contentProvider.setElements(new Object[] { a, b });
+		viewer.getTable().select(0);
+
+		contentProvider.setElements(new Object[] { b });
+
+		assertEquals(0, viewer.getTable().getSelectionCount());
+		assertSame(b, contentProvider.getElements()[0]);
+	}
+
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import junit.framework.TestCase;
+
+public class RefreshSchedulerTest extends TestCase {
+
+	private static final long STAGGER = RefreshScheduler.STAGGER_INTERVAL;
+
+	private long time;
+
+	private RefreshScheduler scheduler;
+
+	@Override
+	protected void setUp() throws Exception {
+		time = 100000;
+		scheduler = new RefreshScheduler() {
+			@Override
+			protected long currentTime() {
+				return time;
+			}
+		};
+	}
+
+	public void testStaggered() throws Exception {
+		assertEquals(60000, scheduler.getStaggeredDelay("a", 60000));
+		assertEquals(60000 + STAGGER, scheduler.getStaggeredDelay("b", 60000));
+		assertEquals(60000 + 2 * STAGGER, scheduler.getStaggeredDelay("c", 60000 + 1));
+
+		// Far enough from all planned refreshes
+		assertEquals(1000, scheduler.getStaggeredDelay("d", 1000));
+	}
+
+	public void testReplan() throws Exception {
+		assertEquals(60000, scheduler.getStaggeredDelay("a", 60000));
+		assertEquals(60000 + STAGGER, scheduler.getStaggeredDelay("b", 60000));
+
+		// A server replacing its own planned refresh is not staggered
+		// against it
+		assertEquals(60000 + STAGGER, scheduler.getStaggeredDelay("b", 60000 + STAGGER));
+
+		scheduler.cancel("a");
+		assertEquals(60000, scheduler.getStaggeredDelay("c", 60000));
+	}
+
+	public void testPastRefreshes() throws Exception {
+		assertEquals(1000, scheduler.getStaggeredDelay("a", 1000));
+
+		time += 1000 + STAGGER;
+		assertEquals(0, scheduler.getStaggeredDelay("b", 0));
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.CloudService;
+
+public class ResponseContentCacheTest extends TestCase {
+
+	protected CloudApplication createApplication(String name, int instances, AppState state) {
+		return new CloudApplication(name, "spring", "java", 512, instances, Arrays.asList(name + ".cloudfoundry.com"),
+				Arrays.asList("mysql"), state);
+	}
+
+	protected CloudService createService(String name, String version) {
+		CloudService service = new CloudService(null, name);
+		service.setVendor("mysql");
+		service.setVersion(version);
+		service.setTier("free");
+		return service;
+	}
+
+	public void testMatches() throws Exception {
+		ResponseContentCache cache = new ResponseContentCache();
+		String content = ResponseContentCache.getApplicationsContent(Arrays.asList(
+				createApplication("a", 1, AppState.STARTED), createApplication("b", 1, AppState.STOPPED)));
+		assertFalse(cache.matches(ResponseContentCache.APPLICATIONS, content));
+
+		cache.put(ResponseContentCache.APPLICATIONS, content);
+		assertTrue(cache.matches(ResponseContentCache.APPLICATIONS, ResponseContentCache.getApplicationsContent(Arrays
+				.asList(createApplication("a", 1, AppState.STARTED), createApplication("b", 1, AppState.STOPPED)))));
+
+		assertFalse(cache.matches(ResponseContentCache.APPLICATIONS, ResponseContentCache.getApplicationsContent(Arrays
+				.asList(createApplication("a", 2, AppState.STARTED), createApplication("b", 1, AppState.STOPPED)))));
+		assertFalse(cache.matches(ResponseContentCache.APPLICATIONS, ResponseContentCache.getApplicationsContent(Arrays
+				.asList(createApplication("a", 1, AppState.STARTED), createApplication("b", 1, AppState.STARTED)))));
+
+		cache.invalidate(ResponseContentCache.APPLICATIONS);
+		assertFalse(cache.matches(ResponseContentCache.APPLICATIONS, content));
+	}
+
+	public void testGetResponse() throws Exception {
+		ResponseContentCache cache = new ResponseContentCache();
+		List<CloudService> services = new ArrayList<CloudService>(Arrays.asList(createService("db", "5.1")));
+		assertSame(services, cache.getResponse(ResponseContentCache.SERVICES, services,
+				ResponseContentCache.getServicesContent(services)));
+
+		// An identical response is replaced by the previous one
+		List<CloudService> sameServices = new ArrayList<CloudService>(Arrays.asList(createService("db", "5.1")));
+		assertSame(services, cache.getResponse(ResponseContentCache.SERVICES, sameServices,
+				ResponseContentCache.getServicesContent(sameServices)));
+
+		List<CloudService> updatedServices = new ArrayList<CloudService>(Arrays.asList(createService("db", "5.5")));
+		assertSame(updatedServices, cache.getResponse(ResponseContentCache.SERVICES, updatedServices,
+				ResponseContentCache.getServicesContent(updatedServices)));
+
+		cache.clear();
+		assertSame(sameServices, cache.getResponse(ResponseContentCache.SERVICES, sameServices,
+				ResponseContentCache.getServicesContent(sameServices)));
+	}
+
+}
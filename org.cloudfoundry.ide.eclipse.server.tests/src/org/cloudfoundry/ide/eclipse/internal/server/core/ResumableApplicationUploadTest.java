@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive.Entry;
+import org.cloudfoundry.ide.eclipse.server.tests.util.StandInUploadController;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+public class ResumableApplicationUploadTest extends TestCase {
+
+	private static final String APP_NAME = "resumableApp";
+
+	private static final int ENTRY_SIZE = 1000;
+
+	private static final int ENTRY_COUNT = 10;
+
+	private File progressFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		progressFile = File.createTempFile("uploadProgress", ".properties");
+		progressFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		progressFile.delete();
+	}
+
+	public void testResumeFromLastAcknowledgedChunk() throws Exception {
+		StandInUploadController controller = new StandInUploadController();
+		ApplicationArchive archive = createArchive();
+
+		// Drop the connection part way through the third chunk
+		controller.failAfterBytes(6500);
+		ResumableApplicationUpload upload = createUpload(controller, archive);
+		upload.setAttempts(1);
+		try {
+			upload.upload(new NullProgressMonitor());
+			fail("Expected upload to fail");
+		}
+		catch (IOException e) {
+			// expected
+		}
+		assertTrue(progressFile.exists());
+		// Server only has the first two chunks
+		assertEquals(6, controller.getApplicationFiles(APP_NAME).size());
+
+		upload = createUpload(controller, archive);
+		upload.upload(new NullProgressMonitor());
+
+		assertEquals(ENTRY_COUNT, controller.getApplicationFiles(APP_NAME).size());
+		// Only the interrupted chunk is transferred again
+		assertEquals(6500 + 4 * ENTRY_SIZE, controller.getTransferredBytes());
+		assertFalse(progressFile.exists());
+	}
+
+	public void testRetryWithinUpload() throws Exception {
+		StandInUploadController controller = new StandInUploadController();
+		controller.failAfterBytes(4500);
+
+		ResumableApplicationUpload upload = createUpload(controller, createArchive());
+		upload.upload(new NullProgressMonitor());
+
+		assertEquals(ENTRY_COUNT, controller.getApplicationFiles(APP_NAME).size());
+		assertEquals(4500 + 7 * ENTRY_SIZE, controller.getTransferredBytes());
+		assertFalse(progressFile.exists());
+	}
+
+	public void testRetryBackoff() throws Exception {
+		final StandInUploadController controller = new StandInUploadController();
+		controller.failAfterBytes(4500);
+
+		final List<Long> delays = new ArrayList<Long>();
+		ResumableApplicationUpload upload = new ResumableApplicationUpload(controller.getOperations(), APP_NAME,
+				createArchive(), null, progressFile) {
+			@Override
+			protected void waitBeforeRetry(long delay, IProgressMonitor monitor) {
+				if (delays.isEmpty()) {
+					// Fail the retry as well
+					controller.failAfterBytes(controller.getTransferredBytes() + 500);
+				}
+				delays.add(delay);
+			}
+		};
+		upload.setChunkSize(3 * ENTRY_SIZE);
+		upload.upload(new NullProgressMonitor());
+
+		assertEquals(Arrays.asList(ResumableApplicationUpload.DEFAULT_RETRY_DELAY,
+				2 * ResumableApplicationUpload.DEFAULT_RETRY_DELAY), delays);
+		assertEquals(ENTRY_COUNT, controller.getApplicationFiles(APP_NAME).size());
+	}
+
+	public void testCancelBeforeRetry() throws Exception {
+		final StandInUploadController controller = new StandInUploadController();
+		controller.failAfterBytes(4500);
+
+		// Cancelled once the connection dropped
+		IProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return controller.getTransferredBytes() >= 4500;
+			}
+		};
+		try {
+			createUpload(controller, createArchive()).upload(monitor);
+			fail("Expected upload to be cancelled");
+		}
+		catch (OperationCanceledException e) {
+			// expected
+		}
+		assertEquals(4500, controller.getTransferredBytes());
+		assertTrue(progressFile.exists());
+	}
+
+	public void testCompletedChunksNotUploadedAgain() throws Exception {
+		StandInUploadController controller = new StandInUploadController();
+		ApplicationArchive archive = createArchive();
+
+		createUpload(controller, archive).upload(new NullProgressMonitor());
+		long transferred = controller.getTransferredBytes();
+		assertEquals(ENTRY_COUNT * ENTRY_SIZE, transferred);
+
+		// Same content again: everything is matched in the resource pool
+		createUpload(controller, archive).upload(new NullProgressMonitor());
+		assertEquals(transferred, controller.getTransferredBytes());
+	}
+
+	protected ResumableApplicationUpload createUpload(StandInUploadController controller, ApplicationArchive archive) {
+		ResumableApplicationUpload upload = new ResumableApplicationUpload(controller.getOperations(), APP_NAME,
+				archive, null, progressFile);
+		upload.setChunkSize(3 * ENTRY_SIZE);
+		upload.setRetryDelay(10);
+		return upload;
+	}
+
+	protected ApplicationArchive createArchive() throws Exception {
+		final List<Entry> entries = new ArrayList<Entry>();
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			byte[] content = new byte[ENTRY_SIZE];
+			Arrays.fill(content, (byte) i);
+			entries.add(new TestEntry("WEB-INF/lib/file" + i + ".jar", content));
+		}
+		return new ApplicationArchive() {
+
+			public String getFilename() {
+				return APP_NAME + ".war";
+			}
+
+			public Iterable<Entry> getEntries() {
+				return entries;
+			}
+		};
+	}
+
+	static class TestEntry implements Entry {
+
+		private final String name;
+
+		private final byte[] content;
+
+		private final byte[] sha1;
+
+		TestEntry(String name, byte[] content) throws Exception {
+			this.name = name;
+			this.content = content;
+			this.sha1 = MessageDigest.getInstance("SHA-1").digest(content);
+		}
+
+		public boolean isDirectory() {
+			return false;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return content.length;
+		}
+
+		public byte[] getSha1Digest() {
+			return sha1;
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(content);
+		}
+	}
+
+}
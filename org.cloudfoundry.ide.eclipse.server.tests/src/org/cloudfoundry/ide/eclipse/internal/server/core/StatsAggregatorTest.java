@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ApplicationStatsAggregate;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.IStatsAggregateListener;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ServerStatsTotals;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.StatsAggregator;
+
+public class StatsAggregatorTest extends TestCase {
+
+	private static final long MB = 1024 * 1024;
+
+	protected InstanceStats createInstanceStats(String id, double cpu, long memMB, long memQuotaMB) {
+		Map<String, Object> usage = new HashMap<String, Object>();
+		usage.put("cpu", cpu);
+		usage.put("mem", (double) memMB * 1024);
+		usage.put("disk", 0);
+		usage.put("time", "2012-10-10 10:10:10 +0000");
+
+		Map<String, Object> stats = new HashMap<String, Object>();
+		stats.put("cores", 1);
+		stats.put("name", "app");
+		stats.put("usage", usage);
+		stats.put("disk_quota", 0L);
+		stats.put("port", 8080);
+		stats.put("mem_quota", memQuotaMB * MB);
+		stats.put("uris", Collections.<String> emptyList());
+		stats.put("fds_quota", 256);
+		stats.put("host", "10.0.0.1");
+		stats.put("uptime", 10.0);
+
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		attributes.put("state", "RUNNING");
+		attributes.put("stats", stats);
+		return new InstanceStats(id, attributes);
+	}
+
+	protected ApplicationStats createStats(InstanceStats... records) {
+		return new ApplicationStats(new ArrayList<InstanceStats>(Arrays.asList(records)));
+	}
+
+	public void testPercentile() throws Exception {
+		double[] values = new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		assertEquals(5.0, ApplicationStatsAggregate.getPercentile(values, 50));
+		assertEquals(9.0, ApplicationStatsAggregate.getPercentile(values, 90));
+		assertEquals(1.0, ApplicationStatsAggregate.getPercentile(values, 0));
+		assertEquals(10.0, ApplicationStatsAggregate.getPercentile(values, 100));
+		assertEquals(0.0, ApplicationStatsAggregate.getPercentile(new double[0], 50));
+	}
+
+	public void testAggregate() throws Exception {
+		ApplicationStatsAggregate aggregate = new ApplicationStatsAggregate(createStats(
+				createInstanceStats("0", 4, 100, 512), createInstanceStats("1", 5, 200, 512),
+				createInstanceStats("2", 30, 480, 512), createInstanceStats("3", 85, 100, 512)));
+
+		assertEquals(4, aggregate.getInstanceCount());
+		assertEquals(124.0, aggregate.getTotalCpu());
+		assertEquals(880.0 * MB, aggregate.getTotalMemory());
+		assertEquals(2048.0 * MB, aggregate.getTotalMemoryQuota());
+		assertEquals(5.0, aggregate.getMedianCpu());
+		assertEquals(85.0, aggregate.getMaxCpu());
+
+		// 2 uses more than 90% of its memory quota and 3 more than 80% CPU.
+		// Both are also well above the median CPU.
+		assertEquals(Arrays.asList("2", "3"), aggregate.getHotInstanceIds());
+	}
+
+	public void testNoStats() throws Exception {
+		ApplicationStatsAggregate aggregate = new ApplicationStatsAggregate(null);
+		assertEquals(0, aggregate.getInstanceCount());
+		assertEquals(0.0, aggregate.getTotalCpu());
+		assertTrue(aggregate.getHotInstanceIds().isEmpty());
+	}
+
+	public void testServerTotals() throws Exception {
+		StatsAggregator aggregator = new StatsAggregator();
+		final List<String> notified = new ArrayList<String>();
+		aggregator.addListener(new IStatsAggregateListener() {
+			public void statsAggregated(String serverId, String appName, ApplicationStatsAggregate aggregate) {
+				notified.add(appName + (aggregate != null ? "" : " removed"));
+			}
+		});
+
+		aggregator.update("server", "a", createStats(createInstanceStats("0", 10, 100, 512)));
+		aggregator.update("server", "b",
+				createStats(createInstanceStats("0", 20, 200, 512), createInstanceStats("1", 90, 100, 512)));
+		aggregator.update("other", "a", createStats(createInstanceStats("0", 50, 50, 512)));
+
+		ServerStatsTotals totals = aggregator.getTotals("server");
+		assertEquals(2, totals.getApplicationCount());
+		assertEquals(3, totals.getInstanceCount());
+		assertEquals(1, totals.getHotInstanceCount());
+		assertEquals(120.0, totals.getTotalCpu());
+		assertEquals(400.0 * MB, totals.getTotalMemory());
+
+		// A new sample replaces the previous one of the application
+		aggregator.update("server", "b", createStats(createInstanceStats("0", 20, 200, 512)));
+		totals = aggregator.getTotals("server");
+		assertEquals(2, totals.getInstanceCount());
+		assertEquals(0, totals.getHotInstanceCount());
+		assertEquals(30.0, totals.getTotalCpu());
+		assertEquals(300.0 * MB, totals.getTotalMemory());
+
+		aggregator.retain("server", Collections.singleton("b"));
+		assertNull(aggregator.getAggregate("server", "a"));
+		assertEquals(1, aggregator.getTotals("server").getApplicationCount());
+		assertEquals(20.0, aggregator.getTotals("server").getTotalCpu());
+		assertEquals(50.0, aggregator.getTotals("other").getTotalCpu());
+
+		assertEquals(Arrays.asList("a", "b", "a", "b", "a removed"), notified);
+	}
+
+}
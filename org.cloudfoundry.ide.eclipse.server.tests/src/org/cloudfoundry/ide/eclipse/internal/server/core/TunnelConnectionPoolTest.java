@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelConnectionPool;
+
+public class TunnelConnectionPoolTest extends TestCase {
+
+	public void testPoolSize() throws Exception {
+		TunnelConnectionPool pool = new TunnelConnectionPool(4, null);
+		try {
+			// One connection to read and one to write per local connection
+			assertEquals(4, pool.getMaxLocalConnections());
+			assertEquals(8, pool.getMaxConnections());
+			assertNotNull(pool.getRestOperations());
+
+			// No connection is opened until a tunnel sends a request
+			assertEquals(0, pool.getConnectionsInPool());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	public void testMinimumPoolSize() throws Exception {
+		// A tunnel requires a connection to read and one to write
+		TunnelConnectionPool pool = new TunnelConnectionPool(0, null);
+		try {
+			assertEquals(1, pool.getMaxLocalConnections());
+			assertEquals(2, pool.getMaxConnections());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+}
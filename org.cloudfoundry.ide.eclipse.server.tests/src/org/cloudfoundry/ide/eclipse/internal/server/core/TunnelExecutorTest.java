@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelExecutor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelExecutor.TunnelTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+public class TunnelExecutorTest extends TestCase {
+
+	private TunnelExecutor executor;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	protected Runnable blockingTask(final CountDownLatch started, final CountDownLatch release) {
+		return new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	public void testTasksOverQuotaAreQueued() throws Exception {
+		executor = new TunnelExecutor(10, 2);
+		TunnelTaskExecutor tunnel = executor.createTunnelExecutor("mysql");
+
+		CountDownLatch started = new CountDownLatch(3);
+		CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < 3; i++) {
+			tunnel.execute(blockingTask(started, release));
+		}
+
+		assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+		assertEquals(2, tunnel.getActiveCount());
+		assertEquals(1, tunnel.getPendingCount());
+
+		release.countDown();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+	}
+
+	public void testTunnelsShareBoundedPool() throws Exception {
+		executor = new TunnelExecutor(2, 10);
+		TunnelTaskExecutor tunnel1 = executor.createTunnelExecutor("mysql");
+		TunnelTaskExecutor tunnel2 = executor.createTunnelExecutor("postgresql");
+
+		CountDownLatch started = new CountDownLatch(3);
+		CountDownLatch release = new CountDownLatch(1);
+		tunnel1.execute(blockingTask(started, release));
+		tunnel1.execute(blockingTask(started, release));
+
+		// The pool is saturated, so the second tunnel's task waits
+		tunnel2.execute(blockingTask(started, release));
+		assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+		assertEquals(2, executor.getPoolSize());
+		assertEquals(1, tunnel2.getPendingCount());
+
+		release.countDown();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+	}
+
+	public void testDisposedTunnelRejectsTasks() throws Exception {
+		executor = new TunnelExecutor();
+		TunnelTaskExecutor tunnel = executor.createTunnelExecutor("mysql");
+		tunnel.dispose();
+
+		try {
+			tunnel.execute(new Runnable() {
+				public void run() {
+				}
+			});
+			fail("Expected task to be rejected");
+		}
+		catch (TaskRejectedException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.caldecott.client.Tunnel;
+import org.cloudfoundry.caldecott.client.TunnelFactory;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.MeteredTunnelFactory;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelMetrics;
+
+public class TunnelMetricsTest extends TestCase {
+
+	public void testMeteredTunnel() throws Exception {
+		TunnelFactory factory = new TunnelFactory() {
+			public Tunnel createTunnel() {
+				return new Tunnel() {
+					public void write(byte[] data) {
+					}
+
+					public byte[] read(boolean retry) {
+						return new byte[10];
+					}
+
+					public void close() {
+					}
+				};
+			}
+		};
+
+		TunnelMetrics metrics = new TunnelMetrics();
+		MeteredTunnelFactory meteredFactory = new MeteredTunnelFactory(factory, metrics);
+
+		Tunnel tunnel1 = meteredFactory.createTunnel();
+		Tunnel tunnel2 = meteredFactory.createTunnel();
+		assertEquals(2, metrics.getOpenConnections());
+
+		tunnel1.write(new byte[100]);
+		tunnel1.read(false);
+		tunnel2.read(false);
+		assertEquals(100, metrics.getBytesSent());
+		assertEquals(20, metrics.getBytesReceived());
+		assertEquals(1, metrics.getLatencyCount());
+
+		// Closing twice only counts once
+		tunnel1.close();
+		tunnel1.close();
+		assertEquals(1, metrics.getOpenConnections());
+		assertEquals(2, metrics.getTotalConnections());
+	}
+
+	public void testLatencyPercentiles() throws Exception {
+		TunnelMetrics metrics = new TunnelMetrics();
+		assertEquals(-1, metrics.getLatencyPercentile(50));
+
+		for (int i = 0; i < 90; i++) {
+			metrics.recordLatency(5 * 1000000L);
+		}
+		for (int i = 0; i < 9; i++) {
+			metrics.recordLatency(200 * 1000000L);
+		}
+		metrics.recordLatency(10000 * 1000000L);
+
+		assertEquals(10, metrics.getLatencyPercentile(50));
+		assertEquals(250, metrics.getLatencyPercentile(95));
+		assertEquals(Long.MAX_VALUE, metrics.getLatencyPercentile(100));
+		assertEquals(100, metrics.getLatencyCount());
+	}
+
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import junit.framework.TestCase;
+
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelPortAllocator;
+
+public class TunnelPortAllocatorTest extends TestCase {
+
+	private static final String LOCAL_HOST = "127.0.0.1";
+
+	public void testEphemeralPortCanBeBound() throws Exception {
+		TunnelPortAllocator allocator = new TunnelPortAllocator();
+		int port = allocator.getEphemeralPort(LOCAL_HOST);
+		assertTrue(port > 0);
+
+		ServerSocket socket = new ServerSocket(port, 1, InetAddress.getByName(LOCAL_HOST));
+		socket.close();
+	}
+
+	public void testPreferredPortReusedAfterRelease() throws Exception {
+		TunnelPortAllocator allocator = new TunnelPortAllocator();
+		assertEquals(-1, allocator.getPreferredPort("server", "mysql"));
+
+		allocator.register("server", "mysql", 10100);
+		assertTrue(allocator.isInUse(10100));
+
+		// Port is not offered again while its tunnel is open
+		assertEquals(-1, allocator.getPreferredPort("server", "mysql"));
+
+		allocator.release(10100);
+		assertFalse(allocator.isInUse(10100));
+		assertEquals(10100, allocator.getPreferredPort("server", "mysql"));
+		assertEquals(-1, allocator.getPreferredPort("otherServer", "mysql"));
+	}
+
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.core;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
+
+public class ZipRelativeNameTableTest extends TestCase {
+
+	public void testNamesMatchPathComputation() throws Exception {
+		ModuleFolder webInf = new ModuleFolder(null, "WEB-INF", Path.EMPTY);
+		ModuleFolder classes = new ModuleFolder(null, "classes", new Path("WEB-INF"));
+		ModuleFile servlet = new ModuleFile((File) null, "TestServlet.class", new Path("WEB-INF/classes"));
+		ModuleFile webXml = new ModuleFile((File) null, "web.xml", new Path("WEB-INF"));
+		ModuleFile index = new ModuleFile((File) null, "index.html", Path.EMPTY);
+
+		classes.setMembers(new IModuleResource[] { servlet });
+		webInf.setMembers(new IModuleResource[] { classes, webXml });
+
+		ZipRelativeNameTable table = new ZipRelativeNameTable(Arrays.asList(new IModuleResource[] { webInf, index }));
+		assertEquals(5, table.size());
+
+		IModuleResource[] all = new IModuleResource[] { webInf, classes, servlet, webXml, index };
+		for (IModuleResource resource : all) {
+			assertEquals(CloudUtil.getZipRelativeName(resource), table.getZipRelativeName(resource));
+		}
+		assertEquals("WEB-INF/classes/TestServlet.class", table.getZipRelativeName(servlet));
+		assertEquals("WEB-INF/classes/", table.getZipRelativeName(classes));
+	}
+
+	public void testUnknownResourceComputedOnDemand() throws Exception {
+		ZipRelativeNameTable table = new ZipRelativeNameTable(null);
+		ModuleFile file = new ModuleFile((File) null, "a.txt", new Path("b"));
+		assertEquals("b/a.txt", table.getZipRelativeName(file));
+		assertEquals(1, table.size());
+	}
+
+}
@@ -13,6 +13,8 @@ package org.cloudfoundry.ide.eclipse.server.tests;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationStatsHistoryTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CaldecottAppStateTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CaldecottTunnelTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryClientTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryConsoleTest;
@@ -20,9 +22,27 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryProxyTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServerBehaviourTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServerTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServicesTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudSpacesDescriptorCacheTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudSpacesDescriptorTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudUtilTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DebugLaunchConfigurationRegistryTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DebugPortProbeTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DebugReadinessTrackerTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeployedResourceCacheTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentDataCacheTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentTimelineTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentURLTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.LazyTableContentProviderTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.RefreshSchedulerTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.ResponseContentCacheTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.ResumableApplicationUploadTest;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ServerCredentialsStoreTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.StatsAggregatorTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelConnectionPoolTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelExecutorTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelMetricsTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelPortAllocatorTest;
+import org.cloudfoundry.ide.eclipse.internal.server.core.ZipRelativeNameTableTest;
 import org.cloudfoundry.ide.eclipse.server.tests.sts.util.ManagedTestSuite;
 
 /**
@@ -52,6 +72,7 @@ public class AllCloudFoundryTests {
 		// XXX suite.addTestSuite(LocalCloudFoundryServerBehaviourTest.class);
 
 		suite.addTestSuite(CloudUtilTest.class);
+		suite.addTestSuite(ZipRelativeNameTableTest.class);
 
 		// suite.addTestSuite(CloudFoundryMockServerTest.class);
 
@@ -61,6 +82,26 @@ public class AllCloudFoundryTests {
 		suite.addTestSuite(CloudFoundryClientTest.class);
 		suite.addTestSuite(CaldecottTunnelTest.class);
 
+		suite.addTestSuite(ResumableApplicationUploadTest.class);
+		suite.addTestSuite(DeploymentTimelineTest.class);
+		suite.addTestSuite(DeployedResourceCacheTest.class);
+		suite.addTestSuite(TunnelExecutorTest.class);
+		suite.addTestSuite(TunnelPortAllocatorTest.class);
+		suite.addTestSuite(TunnelMetricsTest.class);
+		suite.addTestSuite(CaldecottAppStateTest.class);
+		suite.addTestSuite(TunnelConnectionPoolTest.class);
+		suite.addTestSuite(DebugPortProbeTest.class);
+		suite.addTestSuite(DebugReadinessTrackerTest.class);
+		suite.addTestSuite(ApplicationStatsHistoryTest.class);
+		suite.addTestSuite(StatsAggregatorTest.class);
+		suite.addTestSuite(RefreshSchedulerTest.class);
+		suite.addTestSuite(ResponseContentCacheTest.class);
+		suite.addTestSuite(DeploymentDataCacheTest.class);
+		suite.addTestSuite(CloudSpacesDescriptorCacheTest.class);
+		suite.addTestSuite(CloudSpacesDescriptorTest.class);
+		suite.addTestSuite(LazyTableContentProviderTest.class);
+		suite.addTestSuite(DebugLaunchConfigurationRegistryTest.class);
+
 		return suite;
 	}
 
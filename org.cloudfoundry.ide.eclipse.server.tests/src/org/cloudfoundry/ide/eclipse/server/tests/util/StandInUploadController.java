@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.server.tests.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive.Entry;
+
+/**
+ * Local stand-in for the upload part of a Cloud Foundry controller. It keeps a
+ * resource pool of uploaded entries keyed by sha1, matches known resources
+ * before each upload like the actual controller, and can simulate a dropped
+ * connection once a given number of bytes has been transferred.
+ * <p/>
+ * Only application upload operations are supported by the client returned by
+ * {@link #getOperations()}.
+ */
+public class StandInUploadController implements InvocationHandler {
+
+	private final Set<String> resourcePool = new HashSet<String>();
+
+	private final Map<String, Set<String>> applicationFiles = new HashMap<String, Set<String>>();
+
+	private long transferredBytes;
+
+	private long failAfterBytes = -1;
+
+	private int uploadRequests;
+
+	public CloudFoundryOperations getOperations() {
+		return (CloudFoundryOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class[] { CloudFoundryOperations.class }, this);
+	}
+
+	/**
+	 * Simulates a dropped connection once the given number of bytes have been
+	 * transferred in total. A negative value disables the failure.
+	 */
+	public synchronized void failAfterBytes(long bytes) {
+		this.failAfterBytes = bytes;
+	}
+
+	public synchronized long getTransferredBytes() {
+		return transferredBytes;
+	}
+
+	public synchronized int getUploadRequests() {
+		return uploadRequests;
+	}
+
+	public synchronized Set<String> getApplicationFiles(String appName) {
+		return applicationFiles.get(appName);
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if ("uploadApplication".equals(method.getName()) && args.length >= 2 && args[1] instanceof ApplicationArchive) {
+			UploadStatusCallback callback = args.length > 2 && args[2] != null ? (UploadStatusCallback) args[2]
+					: UploadStatusCallback.NONE;
+			upload((String) args[0], (ApplicationArchive) args[1], callback);
+			return null;
+		}
+		if ("toString".equals(method.getName())) {
+			return getClass().getSimpleName();
+		}
+		throw new UnsupportedOperationException(method.getName());
+	}
+
+	protected synchronized void upload(String appName, ApplicationArchive archive, UploadStatusCallback callback)
+			throws IOException {
+		uploadRequests++;
+		callback.onCheckResources();
+
+		Set<String> matched = new HashSet<String>();
+		for (Entry entry : archive.getEntries()) {
+			if (!entry.isDirectory() && entry.getSha1Digest() != null
+					&& resourcePool.contains(toHex(entry.getSha1Digest()))) {
+				matched.add(entry.getName());
+			}
+		}
+		callback.onMatchedFileNames(matched);
+
+		Set<String> uploaded = new HashSet<String>();
+		Set<String> pooled = new HashSet<String>();
+		byte[] buffer = new byte[8192];
+		for (Entry entry : archive.getEntries()) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+			uploaded.add(entry.getName());
+			if (matched.contains(entry.getName())) {
+				continue;
+			}
+			InputStream in = entry.getInputStream();
+			try {
+				int read = 0;
+				while (read != -1) {
+					int length = buffer.length;
+					if (failAfterBytes >= 0) {
+						if (transferredBytes >= failAfterBytes) {
+							failAfterBytes = -1;
+							// Nothing from a failed request is added to the
+							// pool
+							throw new IOException("Connection reset");
+						}
+						length = (int) Math.min(length, failAfterBytes - transferredBytes);
+					}
+					read = in.read(buffer, 0, length);
+					if (read > 0) {
+						transferredBytes += read;
+					}
+				}
+			}
+			finally {
+				in.close();
+			}
+			if (entry.getSha1Digest() != null) {
+				pooled.add(toHex(entry.getSha1Digest()));
+			}
+		}
+		resourcePool.addAll(pooled);
+		applicationFiles.put(appName, uploaded);
+	}
+
+	protected static String toHex(byte[] bytes) {
+		return new BigInteger(1, bytes).toString(16);
+	}
+
+}
@@ -10,7 +10,12 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.ui;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
@@ -20,6 +25,8 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerEvent;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudServerListener;
 import org.cloudfoundry.ide.eclipse.internal.server.core.spaces.CloudFoundrySpace;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.IDecoration;
 import org.eclipse.jface.viewers.ILightweightLabelDecorator;
 import org.eclipse.jface.viewers.LabelProvider;
@@ -42,18 +49,84 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 
 	private final CloudServerListener listener;
 
+	private final IPropertyChangeListener urlPreferenceListener;
+
+	/**
+	 * URLs with a label, per server type. Reading them requires parsing the
+	 * user defined URLs in the preferences, so they are only read again when
+	 * the user defined URLs change.
+	 */
+	private final Map<String, Set<String>> cloudUrlsByServerType = new HashMap<String, Set<String>>();
+
 	public CloudFoundryDecorator() {
 		this.listener = new CloudServerListener() {
 			public void serverChanged(final CloudServerEvent event) {
 				Display.getDefault().asyncExec(new Runnable() {
 					public void run() {
-						LabelProviderChangedEvent labelEvent = new LabelProviderChangedEvent(CloudFoundryDecorator.this);
-						fireLabelProviderChanged(labelEvent);
+						// Only the elements of the changed server need to be
+						// decorated again
+						Object[] elements = getDecoratedElements(event.getServer());
+						if (elements.length > 0) {
+							fireLabelProviderChanged(new LabelProviderChangedEvent(CloudFoundryDecorator.this,
+									elements));
+						}
 					}
 				});
 			}
 		};
 		CloudFoundryPlugin.getDefault().addServerListener(listener);
+
+		this.urlPreferenceListener = new IPropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				if (event.getProperty().startsWith(CloudUiUtil.ATTR_USER_DEFINED_URLS)) {
+					synchronized (cloudUrlsByServerType) {
+						cloudUrlsByServerType.clear();
+					}
+				}
+			}
+		};
+		CloudFoundryServerUiPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(urlPreferenceListener);
+	}
+
+	/**
+	 * 
+	 * @param cloudServer
+	 * @return server and top level modules of the given server, as shown in
+	 * the servers view. May be empty, but not null.
+	 */
+	protected Object[] getDecoratedElements(CloudFoundryServer cloudServer) {
+		IServer server = cloudServer != null ? cloudServer.getServer() : null;
+		if (server == null) {
+			return new Object[0];
+		}
+		List<Object> elements = new ArrayList<Object>();
+		elements.add(server);
+		IModule[] modules = server.getModules();
+		if (modules != null) {
+			for (IModule module : modules) {
+				elements.add(new ModuleServer(server, new IModule[] { module }));
+			}
+		}
+		return elements.toArray();
+	}
+
+	/**
+	 * 
+	 * @param serverTypeId
+	 * @return URLs of the given server type that have a label
+	 */
+	protected Set<String> getCloudUrls(String serverTypeId) {
+		synchronized (cloudUrlsByServerType) {
+			Set<String> urls = cloudUrlsByServerType.get(serverTypeId);
+			if (urls == null) {
+				urls = new HashSet<String>();
+				for (CloudURL cloudUrl : CloudUiUtil.getAllUrls(serverTypeId)) {
+					urls.add(cloudUrl.getUrl());
+				}
+				cloudUrlsByServerType.put(serverTypeId, urls);
+			}
+			return urls;
+		}
 	}
 
 	public void decorate(Object element, IDecoration decoration) {
@@ -111,16 +184,11 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 
 						}
 					}
-					List<CloudURL> cloudUrls = CloudUiUtil.getAllUrls(cfServer.getBehaviour().getServer()
-							.getServerType().getId());
 					String url = cfServer.getUrl();
 					// decoration.addSuffix(NLS.bind("  {0}",
 					// cfServer.getUsername()));
-					for (CloudURL cloudUrl : cloudUrls) {
-						if (cloudUrl.getUrl().equals(url)) {
-							decoration.addSuffix(NLS.bind(" - {0}", cloudUrl.getUrl()));
-							break;
-						}
+					if (url != null && getCloudUrls(server.getServerType().getId()).contains(url)) {
+						decoration.addSuffix(NLS.bind(" - {0}", url));
 					}
 				}
 			}
@@ -131,6 +199,8 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 	public void dispose() {
 		super.dispose();
 		CloudFoundryPlugin.getDefault().removeServerListener(listener);
+		CloudFoundryServerUiPlugin.getDefault().getPreferenceStore()
+				.removePropertyChangeListener(urlPreferenceListener);
 	}
 
 	private CloudFoundryServer getCloudFoundryServer(IServer server) {
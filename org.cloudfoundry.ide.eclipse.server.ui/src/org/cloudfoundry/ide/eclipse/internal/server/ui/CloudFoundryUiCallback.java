@@ -36,14 +36,22 @@ import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.wizard.WizardDialog;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IViewReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.ui.internal.editor.IServerEditorInput;
 
 /**
  * @author Christian Dupuis
  * @author Steffen Pingel
  * @author Terry Denney
  */
+@SuppressWarnings("restriction")
 public class CloudFoundryUiCallback extends CloudFoundryCallback {
 
 	@Override
@@ -218,6 +226,52 @@ public class CloudFoundryUiCallback extends CloudFoundryCallback {
 		});
 	}
 
+	/**
+	 * A server is shown if the Servers view or an editor of the server is
+	 * visible in any workbench window.
+	 */
+	@Override
+	public boolean isServerShown(final CloudFoundryServer server) {
+		if (!PlatformUI.isWorkbenchRunning()) {
+			return true;
+		}
+
+		final boolean[] shown = new boolean[1];
+		Display.getDefault().syncExec(new Runnable() {
+			public void run() {
+				for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+					for (IWorkbenchPage page : window.getPages()) {
+						if (isServerShown(page, server)) {
+							shown[0] = true;
+							return;
+						}
+					}
+				}
+			}
+		});
+		return shown[0];
+	}
+
+	protected boolean isServerShown(IWorkbenchPage page, CloudFoundryServer server) {
+		IViewReference serversView = page.findViewReference(CloudUiUtil.SERVERS_VIEW_ID);
+		if (serversView != null) {
+			IWorkbenchPart part = serversView.getPart(false);
+			if (part != null && page.isPartVisible(part)) {
+				return true;
+			}
+		}
+
+		String serverId = server.getServerOriginal().getId();
+		for (IEditorReference reference : page.getEditorReferences()) {
+			IEditorPart editor = reference.getEditor(false);
+			if (editor != null && page.isPartVisible(editor) && editor.getEditorInput() instanceof IServerEditorInput
+					&& serverId.equals(((IServerEditorInput) editor.getEditorInput()).getServerId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	protected boolean isValidDescriptor(DeploymentDescriptor descriptor) {
 		if (descriptor == null || descriptor.deploymentMode == null) {
 			return false;
@@ -25,13 +25,16 @@ import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
-import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.wst.server.ui.wizard.IWizardHandle;
@@ -40,10 +43,19 @@ public class CloudSpacesSelectionPart {
 
 	private static final String DEFAULT_DESCRIPTION = "Selected an organization and space";
 
+	/**
+	 * Orgs are only expanded up front if they have at most this many
+	 * matching spaces in total. Otherwise spaces are only shown when an org
+	 * is expanded.
+	 */
+	private static final int MAX_EXPANDED_SPACES = 50;
+
 	private TreeViewer orgsSpacesViewer;
 
 	private CloudSpaceChangeListener spaceChangeListener;
 
+	private String filter;
+
 	public CloudSpacesSelectionPart(CloudSpaceChangeListener spaceChangeListener, CloudFoundryServer cloudServer,
 			WizardPage wizardPage) {
 		this.spaceChangeListener = spaceChangeListener;
@@ -85,15 +97,26 @@ public class CloudSpacesSelectionPart {
 		GridDataFactory.fillDefaults().grab(false, false).applyTo(orgLabel);
 		orgLabel.setText("Organizations and Spaces:");
 
+		final Text filterText = new Text(orgTableComposite, SWT.SEARCH | SWT.ICON_CANCEL | SWT.BORDER);
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(filterText);
+		filterText.setMessage("type filter text");
+		filterText.addModifyListener(new ModifyListener() {
+
+			public void modifyText(ModifyEvent e) {
+				setFilter(filterText.getText());
+			}
+		});
+
 		Tree orgTable = new Tree(orgTableComposite, SWT.BORDER | SWT.SINGLE);
 
 		GridDataFactory.fillDefaults().grab(true, true).applyTo(orgTable);
 
 		orgsSpacesViewer = new TreeViewer(orgTable);
 
+		// Orgs and spaces are sorted by the descriptor. The spaces of an org
+		// are only created once the org is expanded
 		orgsSpacesViewer.setContentProvider(new TableContentProvider());
 		orgsSpacesViewer.setLabelProvider(new SpacesLabelProvider());
-		orgsSpacesViewer.setSorter(new SpacesSorter());
 
 		orgsSpacesViewer.addSelectionChangedListener(new ISelectionChangedListener() {
 
@@ -108,59 +131,60 @@ public class CloudSpacesSelectionPart {
 
 	protected void setInput() {
 		if (spaceChangeListener != null && orgsSpacesViewer != null) {
-			List<CloudOrganization> orgInput = spaceChangeListener.getCurrentSpacesDescriptor() != null ? spaceChangeListener
-					.getCurrentSpacesDescriptor().getOrgs() : null;
-			if (orgInput != null && orgInput.size() > 0) {
-				CloudOrganization[] organizationInput = orgInput.toArray(new CloudOrganization[orgInput.size()]);
-				orgsSpacesViewer.setInput(organizationInput);
+			CloudSpacesDescriptor spacesDescriptor = spaceChangeListener.getCurrentSpacesDescriptor();
+			if (spacesDescriptor != null && spacesDescriptor.getOrgs().size() > 0) {
+				orgsSpacesViewer.setInput(spacesDescriptor);
+				expandOrgs();
 
-				// Expand all first, so that child elements can be selected
-				orgsSpacesViewer.setExpandedElements(organizationInput);
-
-				CloudSpace selectedSpace = spaceChangeListener.getCurrentSpacesDescriptor().getDefaultCloudSpace();
+				CloudSpace selectedSpace = spacesDescriptor.getDefaultCloudSpace();
 				if (selectedSpace != null) {
 
 					// First set the default cloud space as the selected space
 					setSpaceSelection(selectedSpace);
 
-					// Now set the cloud space in the tree
-					Tree tree = orgsSpacesViewer.getTree();
-					TreeItem[] orgItems = tree.getItems();
-					if (orgItems != null) {
-						TreeItem orgItem = null;
-
-						// Find the tree item corresponding to the cloud space's
-						// org
-						for (TreeItem item : orgItems) {
-							Object treeObj = item.getData();
-							if (treeObj instanceof CloudOrganization
-									&& ((CloudOrganization) treeObj).getName().equals(
-											selectedSpace.getOrganization().getName())) {
-								orgItem = item;
-								break;
-
-							}
-						}
-
-						if (orgItem != null) {
-							TreeItem[] children = orgItem.getItems();
-							if (children != null) {
-								for (TreeItem childItem : children) {
-									Object treeObj = childItem.getData();
-									if (treeObj instanceof CloudSpace
-											&& ((CloudSpace) treeObj).getName().equals(selectedSpace.getName())) {
-										tree.select(childItem);
-										break;
-									}
-								}
-							}
-						}
-					}
+					// Now set the cloud space in the tree, which expands its
+					// org if needed
+					orgsSpacesViewer.setSelection(new StructuredSelection(selectedSpace), true);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Shows only the orgs and spaces whose name contains the given text.
+	 * @param filter may be null or empty, to show all orgs and spaces
+	 */
+	protected void setFilter(String filter) {
+		this.filter = filter;
+		if (orgsSpacesViewer != null && orgsSpacesViewer.getInput() != null) {
+			orgsSpacesViewer.getTree().setRedraw(false);
+			try {
+				orgsSpacesViewer.refresh();
+				expandOrgs();
+			}
+			finally {
+				orgsSpacesViewer.getTree().setRedraw(true);
+			}
+		}
+	}
+
+	/**
+	 * Expands all shown orgs if they have few enough spaces in total, so that
+	 * large foundations only create the spaces of the orgs the user expands.
+	 */
+	protected void expandOrgs() {
+		CloudSpacesDescriptor spacesDescriptor = (CloudSpacesDescriptor) orgsSpacesViewer.getInput();
+		List<CloudOrganization> orgs = spacesDescriptor.getOrgs(filter);
+		int spaceCount = 0;
+		for (CloudOrganization org : orgs) {
+			spaceCount += spacesDescriptor.getOrgSpaces(org.getName(), filter).size();
+			if (spaceCount > MAX_EXPANDED_SPACES) {
+				return;
+			}
+		}
+		orgsSpacesViewer.setExpandedElements(orgs.toArray());
+	}
+
 	protected void setSpaceSelection(CloudSpace selectedSpace) {
 		if (spaceChangeListener != null) {
 			spaceChangeListener.setSelectedSpace(selectedSpace);
@@ -185,26 +209,8 @@ public class CloudSpacesSelectionPart {
 		}
 	}
 
-	static class SpacesSorter extends ViewerSorter {
-
-		public SpacesSorter() {
-
-		}
-
-		public int compare(Viewer viewer, Object e1, Object e2) {
-			if (e1 instanceof CloudEntity && e1 instanceof CloudEntity) {
-				String name1 = ((CloudEntity) e1).getName();
-				String name2 = ((CloudEntity) e2).getName();
-				return name1.compareTo(name2);
-			}
-
-			return super.compare(viewer, e1, e2);
-		}
-
-	}
-
 	class TableContentProvider implements ITreeContentProvider {
-		private Object[] elements;
+		private CloudSpacesDescriptor spacesDescriptor;
 
 		public TableContentProvider() {
 		}
@@ -213,35 +219,32 @@ public class CloudSpacesSelectionPart {
 		}
 
 		public Object[] getChildren(Object parentElement) {
-			if (parentElement instanceof CloudOrganization && spaceChangeListener != null) {
-				CloudSpacesDescriptor spaceDescriptor = spaceChangeListener.getCurrentSpacesDescriptor();
-				if (spaceDescriptor != null) {
-					List<CloudSpace> spaces = spaceDescriptor.getOrgSpaces(((CloudOrganization) parentElement)
-							.getName());
-					if (spaces != null) {
-						return spaces.toArray(new CloudSpace[spaces.size()]);
-					}
-				}
+			if (parentElement instanceof CloudOrganization && spacesDescriptor != null) {
+				return spacesDescriptor.getOrgSpaces(((CloudOrganization) parentElement).getName(), filter).toArray();
 			}
 			return null;
 		}
 
 		public Object[] getElements(Object inputElement) {
-			return elements;
+			if (spacesDescriptor != null) {
+				return spacesDescriptor.getOrgs(filter).toArray();
+			}
+			return new Object[0];
 		}
 
 		public Object getParent(Object element) {
+			if (element instanceof CloudSpace && spacesDescriptor != null) {
+				return spacesDescriptor.getOrg(((CloudSpace) element).getOrganization().getName());
+			}
 			return null;
 		}
 
 		public boolean hasChildren(Object element) {
-			return false;
+			return element instanceof CloudOrganization;
 		}
 
 		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
-			if (newInput instanceof Object[]) {
-				elements = (Object[]) newInput;
-			}
+			spacesDescriptor = newInput instanceof CloudSpacesDescriptor ? (CloudSpacesDescriptor) newInput : null;
 		}
 	}
 
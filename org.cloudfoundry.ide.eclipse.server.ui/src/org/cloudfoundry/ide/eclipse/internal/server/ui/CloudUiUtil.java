@@ -565,4 +565,19 @@ public class CloudUiUtil {
 		return null;
 	}
 
+	/**
+	 * 
+	 * @param bytes
+	 * @return the given number of bytes in B, KB or MB, for display
+	 */
+	public static String getSizeText(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		if (bytes < 1024 * 1024) {
+			return String.format("%.1f KB", bytes / 1024d);
+		}
+		return String.format("%.1f MB", bytes / (1024d * 1024d));
+	}
+
 }
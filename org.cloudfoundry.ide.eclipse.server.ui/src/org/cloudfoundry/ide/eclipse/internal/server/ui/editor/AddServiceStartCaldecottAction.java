@@ -68,7 +68,7 @@ public class AddServiceStartCaldecottAction extends CloudFoundryEditorAction {
 		if (services != null && !services.isEmpty()) {
 
 			try {
-				handler.startCaldecottTunnel(services.get(0), monitor);
+				handler.startCaldecottTunnels(services, monitor);
 			}
 			catch (CoreException e) {
 				return CloudFoundryPlugin.getErrorStatus(e);
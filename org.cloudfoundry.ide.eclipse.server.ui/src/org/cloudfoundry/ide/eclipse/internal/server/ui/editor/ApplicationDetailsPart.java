@@ -26,12 +26,17 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryBrandingExtensionPoint;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServerBehaviour;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentTimeline;
+import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentTimeline.Phase;
 import org.cloudfoundry.ide.eclipse.internal.server.core.StandaloneWithContainer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.CloudFoundryProperties;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugCommand;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugCommandBuilder;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.DebugModeType;
 import org.cloudfoundry.ide.eclipse.internal.server.core.debug.ICloudFoundryDebuggerListener;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ApplicationStatsHistory;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ApplicationStatsSampler;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.InstanceStatsHistory;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudFoundryImages;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudUiUtil;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.actions.CloudFoundryEditorAction.RefreshArea;
@@ -77,6 +82,7 @@ import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.layout.RowData;
@@ -86,13 +92,17 @@ import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.forms.AbstractFormPart;
 import org.eclipse.ui.forms.IDetailsPage;
@@ -126,7 +136,7 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 
 	private Section generalSection;
 
-	private AppStatsContentProvider instancesContentProvider;
+	private LazyTableContentProvider instancesContentProvider;
 
 	private Spinner instanceSpinner;
 
@@ -134,6 +144,10 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 
 	private TableViewer instancesViewer;
 
+	private Label instancesUsageLabel;
+
+	private ApplicationStatsSampler statsSampler;
+
 	private Link mappedURIsLink;
 
 	private IModule module;
@@ -163,6 +177,14 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 	private Button connectToDebugger;
 
 	private Combo memoryCombo;
+
+	private Section deploymentSection;
+
+	private Text[] deploymentPhaseTexts;
+
+	private Text deploymentTotalText;
+
+	private Text uploadRateText;
 	
 	private Link containerDirectoryLink;
 	
@@ -219,6 +241,8 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 
 		createInstancesSection(parent);
 
+		createDeploymentSection(parent);
+
 		if (provideServices) {
 			addDropSupport(generalSection);
 			addDropSupport(servicesSection);
@@ -408,8 +432,6 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		instanceSpinner.setEnabled(cloudApplication != null);
 		instancesViewer.getTable().setEnabled(cloudApplication != null);
 
-		instancesViewer.setInput(null);
-
 		if (provideServices) {
 			// servicesViewer.getTable().setEnabled(cloudApplication != null);
 
@@ -486,27 +508,11 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		List<String> currentURIs = null;
 		if (cloudApplication != null) {
 			currentURIs = cloudApplication.getUris();
-
-			ApplicationStats applicationStats = appModule.getApplicationStats();
-			InstancesInfo instancesInfo = appModule.getInstancesInfo();
-			if (applicationStats != null) {
-				List<InstanceStats> statss = applicationStats.getRecords();
-				List<InstanceInfo> infos = instancesInfo != null ? instancesInfo.getInstances() : null;
-				InstanceStatsAndInfo[] statsAndInfos = new InstanceStatsAndInfo[statss.size()];
-
-				for (int i = 0; i < statss.size(); i++) {
-					InstanceStats stats = statss.get(i);
-					InstanceInfo info = null;
-					if (infos != null && infos.size() > i) {
-						info = infos.get(i);
-					}
-
-					statsAndInfos[i] = new InstanceStatsAndInfo(stats, info);
-				}
-				instancesViewer.setInput(statsAndInfos);
-			}
 		}
 
+		refreshInstances(appModule);
+		updateStatsSampler(appModule);
+
 		if (currentURIs == null && !isPublished) {
 			// At this stage, the app may not have deployed due to errors, but
 			// there may already
@@ -531,7 +537,7 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 			servicesViewer.refresh(true);
 		}
 
-		instancesViewer.refresh(true);
+		refreshDeploymentTimeline();
 
 		canUpdate = true;
 
@@ -543,6 +549,158 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		}
 	}
 
+	/**
+	 * Shows the current stats of the instances of the given application. Only
+	 * instances whose stats changed are labelled again.
+	 */
+	protected void refreshInstances(ApplicationModule appModule) {
+		InstanceStatsAndInfo[] statsAndInfos = null;
+		ApplicationStats applicationStats = appModule.getApplicationStats();
+		if (appModule.getApplication() != null && applicationStats != null) {
+			InstancesInfo instancesInfo = appModule.getInstancesInfo();
+			List<InstanceStats> statss = applicationStats.getRecords();
+			List<InstanceInfo> infos = instancesInfo != null ? instancesInfo.getInstances() : null;
+			statsAndInfos = new InstanceStatsAndInfo[statss.size()];
+
+			for (int i = 0; i < statss.size(); i++) {
+				InstanceStats stats = statss.get(i);
+				InstanceInfo info = null;
+				if (infos != null && infos.size() > i) {
+					info = infos.get(i);
+				}
+
+				statsAndInfos[i] = new InstanceStatsAndInfo(stats, info);
+			}
+		}
+
+		instancesContentProvider.setElements(statsAndInfos);
+
+		// Usage history is painted for all rows, whether labelled again or
+		// not
+		instancesViewer.getTable().redraw();
+		refreshInstancesUsage();
+	}
+
+	protected void refreshInstancesUsage() {
+		ApplicationStatsHistory history = statsSampler != null ? statsSampler.getHistory() : null;
+		String usage = "";
+		if (history != null && !history.getInstanceIds().isEmpty()) {
+			usage = NLS.bind("Total CPU: {0}%  Total Memory: {1}M",
+					String.valueOf(Math.round(history.getTotalCpu() * 10) / 10.0),
+					String.valueOf(Math.round(history.getTotalMemory() * 10 / (1024 * 1024)) / 10.0));
+		}
+		if (!usage.equals(instancesUsageLabel.getText())) {
+			instancesUsageLabel.setText(usage);
+			instancesUsageLabel.getParent().layout(true);
+		}
+	}
+
+	/**
+	 * Samples the stats of the given application while it is running and its
+	 * instances are shown, and stops sampling the stats of any other
+	 * application.
+	 */
+	protected void updateStatsSampler(ApplicationModule appModule) {
+		String appName = appModule.getApplication() != null && appModule.getState() == IServer.STATE_STARTED ? appModule
+				.getApplicationId() : null;
+
+		if (statsSampler != null && !statsSampler.getAppName().equals(appName)) {
+			statsSampler.stop();
+			statsSampler = null;
+		}
+
+		if (appName == null) {
+			return;
+		}
+
+		if (statsSampler == null) {
+			statsSampler = new ApplicationStatsSampler(cloudServer, appName, new ApplicationStatsHistory()) {
+
+				@Override
+				protected boolean shouldSample() {
+					final boolean[] visible = new boolean[1];
+					Display display = Display.getDefault();
+					if (!display.isDisposed()) {
+						display.syncExec(new Runnable() {
+							public void run() {
+								Table table = instancesViewer.getTable();
+								visible[0] = !table.isDisposed() && table.isVisible();
+							}
+						});
+					}
+					return visible[0];
+				}
+
+				@Override
+				protected void statsSampled(final ApplicationStats stats, ApplicationStatsHistory history) {
+					final ApplicationStatsSampler sampler = this;
+					Display.getDefault().asyncExec(new Runnable() {
+						public void run() {
+							if (sampler != statsSampler || instancesViewer.getTable().isDisposed()) {
+								return;
+							}
+							ApplicationModule appModule = getApplication();
+							if (appModule != null && sampler.getAppName().equals(appModule.getApplicationId())) {
+								appModule.setApplicationStats(stats);
+								refreshInstances(appModule);
+							}
+						}
+					});
+				}
+			};
+		}
+		statsSampler.start();
+	}
+
+	@Override
+	public void dispose() {
+		if (statsSampler != null) {
+			statsSampler.stop();
+			statsSampler = null;
+		}
+		super.dispose();
+	}
+
+	/**
+	 * Paints the CPU usage history of an instance as a line over the kept
+	 * samples.
+	 */
+	protected void paintCpuHistory(Event event) {
+		if (statsSampler == null || !(event.item.getData() instanceof InstanceStatsAndInfo)) {
+			return;
+		}
+		InstanceStats stats = ((InstanceStatsAndInfo) event.item.getData()).getStats();
+		InstanceStatsHistory history = statsSampler.getHistory().getInstanceHistory(stats.getId());
+		double[] cpu = history != null ? history.getCpu() : null;
+		if (cpu == null || cpu.length < 2) {
+			return;
+		}
+
+		Rectangle bounds = ((TableItem) event.item).getBounds(event.index);
+		int width = bounds.width - 4;
+		int height = bounds.height - 4;
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+
+		// Usage may exceed 100% on multiple cores
+		double max = 100;
+		for (double value : cpu) {
+			max = Math.max(max, value);
+		}
+
+		int capacity = history.getCapacity();
+		int[] points = new int[cpu.length * 2];
+		for (int i = 0; i < cpu.length; i++) {
+			points[i * 2] = bounds.x + 2 + (width * (capacity - cpu.length + i)) / (capacity - 1);
+			points[i * 2 + 1] = bounds.y + 2 + height - (int) Math.round(height * cpu[i] / max);
+		}
+
+		GC gc = event.gc;
+		gc.setForeground(event.display.getSystemColor(SWT.COLOR_DARK_BLUE));
+		gc.drawPolyline(points);
+	}
+
 	public void selectionChanged(IFormPart part, ISelection selection) {
 		IStructuredSelection sel = (IStructuredSelection) selection;
 		module = (IModule) sel.getFirstElement();
@@ -966,21 +1124,69 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		GridLayoutFactory.fillDefaults().applyTo(container);
 		GridDataFactory.fillDefaults().grab(true, true).applyTo(container);
 
-		String[] columnNames = new String[] { "ID", "Host", "CPU", "Memory", "Disk", "Uptime" };
+		String[] columnNames = new String[] { "ID", "Host", "CPU", "Memory", "Disk", "Uptime", "CPU History" };
 		String[] columnTooltips = new String[] { "ID", "Host", "CPU (Cores)", "Memory (Limit)", "Disk (Limit)",
-				"Uptime"
+				"Uptime", "CPU usage while the instances are shown"
 
 		};
 
-		int[] columnWidths = new int[] { 25, 105, 60, 85, 85, 75 };
+		int[] columnWidths = new int[] { 25, 105, 60, 85, 85, 75, 90 };
 		// weights new int[] { 6, 21, 14, 19, 19, 21 };
 
-		instancesViewer = createTableViewer(container, columnNames, columnTooltips, columnWidths);
+		// Only create and label the rows of visible instances, as an
+		// application may have many instances
+		instancesViewer = createTableViewer(container, columnNames, columnTooltips, columnWidths, SWT.VIRTUAL);
 
-		instancesContentProvider = new AppStatsContentProvider();
-		instancesViewer.setContentProvider(instancesContentProvider);
+		instancesContentProvider = new LazyTableContentProvider(instancesViewer, new CloudFoundryViewerSorter()) {
+			@Override
+			protected String getKey(Object element) {
+				return ((InstanceStatsAndInfo) element).getStats().getId();
+			}
+
+			@Override
+			protected String getSignature(Object element) {
+				// Values shown in the columns of the instance
+				InstanceStats stats = ((InstanceStatsAndInfo) element).getStats();
+				StringBuilder signature = new StringBuilder();
+				signature.append(stats.getHost()).append('\n');
+				signature.append(stats.getCores()).append('\n');
+				signature.append(stats.getMemQuota()).append('\n');
+				signature.append(stats.getDiskQuota()).append('\n');
+				signature.append(Math.round(stats.getUptime())).append('\n');
+				InstanceStats.Usage usage = stats.getUsage();
+				if (usage != null) {
+					signature.append(usage.getCpu()).append('\n');
+					signature.append(usage.getMem()).append('\n');
+					signature.append(usage.getDisk());
+				}
+				return signature.toString();
+			}
+		};
 		instancesViewer.setLabelProvider(new AppStatsLabelProvider());
-		instancesViewer.setSorter(new CloudFoundryViewerSorter());
+		instancesViewer.setContentProvider(instancesContentProvider);
+		instancesViewer.setInput(cloudServer);
+
+		final int cpuHistoryColumn = columnNames.length - 1;
+		instancesViewer.getTable().addListener(SWT.PaintItem, new Listener() {
+			public void handleEvent(Event event) {
+				if (event.index == cpuHistoryColumn) {
+					paintCpuHistory(event);
+				}
+			}
+		});
+
+		// Sampling stops while the instances are hidden. Resume once they
+		// are shown again.
+		instancesViewer.getTable().addListener(SWT.Paint, new Listener() {
+			public void handleEvent(Event event) {
+				if (statsSampler != null && statsSampler.isStopped()) {
+					statsSampler.start();
+				}
+			}
+		});
+
+		instancesUsageLabel = toolkit.createLabel(container, "");
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(instancesUsageLabel);
 
 		MenuManager menuManager = new MenuManager();
 		menuManager.setRemoveAllWhenShown(true);
@@ -1006,6 +1212,63 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		}
 	}
 
+	private void createDeploymentSection(Composite parent) {
+		deploymentSection = toolkit.createSection(parent, Section.TITLE_BAR | Section.TWISTIE);
+		deploymentSection.setLayout(new GridLayout());
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(deploymentSection);
+		deploymentSection.setText("Last Deployment");
+		deploymentSection.setExpanded(false);
+
+		Composite client = toolkit.createComposite(deploymentSection);
+		client.setLayout(new GridLayout(2, false));
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(client);
+		deploymentSection.setClient(client);
+
+		Phase[] phases = Phase.values();
+		deploymentPhaseTexts = new Text[phases.length];
+		for (Phase phase : phases) {
+			createLabel(client, phase.getLabel() + ":", SWT.CENTER);
+			deploymentPhaseTexts[phase.ordinal()] = createText(client, SWT.NONE);
+		}
+
+		createLabel(client, "Upload rate:", SWT.CENTER);
+		uploadRateText = createText(client, SWT.NONE);
+
+		createLabel(client, "Total:", SWT.CENTER);
+		deploymentTotalText = createText(client, SWT.NONE);
+	}
+
+	private void refreshDeploymentTimeline() {
+		DeploymentTimeline timeline = serverBehaviour.getDeploymentTimeline(module);
+		for (Phase phase : Phase.values()) {
+			deploymentPhaseTexts[phase.ordinal()].setText(timeline != null ? getDurationText(timeline
+					.getDuration(phase)) : "-");
+		}
+
+		if (timeline == null) {
+			uploadRateText.setText("-");
+			deploymentTotalText.setText("Not deployed in this session");
+		}
+		else {
+			long rate = timeline.getUploadRate();
+			long bytes = timeline.getUploadedBytes();
+			uploadRateText.setText(rate != DeploymentTimeline.UNDEFINED ? NLS.bind("{0}/s ({1} uploaded)",
+					CloudUiUtil.getSizeText(rate), CloudUiUtil.getSizeText(bytes)) : "-");
+			deploymentTotalText.setText(timeline.isComplete() ? getDurationText(timeline.getTotalDuration())
+					: "In progress");
+		}
+	}
+
+	private static String getDurationText(long millis) {
+		if (millis == DeploymentTimeline.UNDEFINED) {
+			return "-";
+		}
+		if (millis < 1000) {
+			return millis + " ms";
+		}
+		return String.format("%.1f s", millis / 1000d);
+	}
+
 	private Label createLabel(Composite parent, String value, int verticalAlign) {
 		Label label = toolkit.createLabel(parent, value);
 		GridDataFactory.fillDefaults().align(SWT.FILL, verticalAlign).applyTo(label);
@@ -1077,13 +1340,18 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 
 	private TableViewer createTableViewer(Composite parent, String[] columnNames, String[] columnTooltips,
 			int[] columnWeights) {
+		return createTableViewer(parent, columnNames, columnTooltips, columnWeights, SWT.NONE);
+	}
+
+	private TableViewer createTableViewer(Composite parent, String[] columnNames, String[] columnTooltips,
+			int[] columnWeights, int style) {
 
 		// Composite container = toolkit.createComposite(parent);
 		// GridDataFactory.fillDefaults().grab(true, true).applyTo(container);
 		// TableColumnLayout layout = new TableColumnLayout();
 		// container.setLayout(layout);
 
-		Table table = toolkit.createTable(parent, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI);
+		Table table = toolkit.createTable(parent, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | style);
 		GridDataFactory.fillDefaults().grab(true, true).applyTo(table);
 		table.setHeaderVisible(true);
 
@@ -12,12 +12,15 @@ package org.cloudfoundry.ide.eclipse.internal.server.ui.editor;
 
 import java.util.List;
 
-import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.CloudService;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryBrandingExtensionPoint;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelBehaviour;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ApplicationStatsAggregate;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.IStatsAggregateListener;
+import org.cloudfoundry.ide.eclipse.internal.server.core.stats.ServerStatsTotals;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudFoundryImages;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.actions.CloudFoundryEditorAction.RefreshArea;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.actions.DeleteServicesAction;
@@ -44,6 +47,7 @@ import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.wizard.IWizard;
 import org.eclipse.jface.wizard.WizardDialog;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.DragSourceAdapter;
@@ -54,6 +58,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.layout.RowLayout;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.SectionPart;
@@ -80,6 +85,8 @@ public class ApplicationMasterPart extends SectionPart {
 
 	private TableViewer applicationsViewer;
 
+	private LazyTableContentProvider applicationsContentProvider;
+
 	private final CloudFoundryServer cloudServer;
 
 	private IModule currentModule;
@@ -96,6 +103,8 @@ public class ApplicationMasterPart extends SectionPart {
 
 	private boolean userExpanded;
 
+	private IStatsAggregateListener statsListener;
+
 	public ApplicationMasterPart(CloudFoundryApplicationsEditorPage editorPage, IManagedForm managedForm,
 			Composite parent, CloudFoundryServer cloudServer) {
 		super(parent, managedForm.getToolkit(), Section.TITLE_BAR | Section.DESCRIPTION);
@@ -144,12 +153,69 @@ public class ApplicationMasterPart extends SectionPart {
 	}
 
 	public void refreshUI() {
-		applicationsViewer.setInput(cloudServer.getServerOriginal().getModules());
+		applicationsContentProvider.setElements(cloudServer.getServerOriginal().getModules());
 		// applicationsViewer.refresh(true);
 
+		updateStatsTotals();
 		updateSections();
 	}
 
+	@Override
+	public void dispose() {
+		if (statsListener != null) {
+			CloudFoundryPlugin.getStatsAggregator().removeListener(statsListener);
+			statsListener = null;
+		}
+		super.dispose();
+	}
+
+	/**
+	 * 
+	 * @param module
+	 * @return usage of the instances of the given application, or null if its
+	 * stats have not been fetched or it has no running instances
+	 */
+	protected String getUsageText(IModule module) {
+		ApplicationModule appModule = cloudServer.getApplication(module);
+		String appName = appModule != null ? appModule.getApplicationId() : null;
+		ApplicationStatsAggregate aggregate = appName != null ? CloudFoundryPlugin.getStatsAggregator().getAggregate(
+				cloudServer, appName) : null;
+		if (aggregate == null || aggregate.getInstanceCount() == 0) {
+			return null;
+		}
+
+		String usage = NLS.bind("{0}% CPU, {1}", formatCpu(aggregate.getTotalCpu()),
+				formatMemory(aggregate.getTotalMemory()));
+		int hotInstances = aggregate.getHotInstanceIds().size();
+		if (hotInstances > 0) {
+			usage = NLS.bind("{0}, {1} of {2} instances hot", new Object[] { usage, hotInstances,
+					aggregate.getInstanceCount() });
+		}
+		return usage;
+	}
+
+	protected void updateStatsTotals() {
+		Section section = getSection();
+		String description = "List of currently deployed applications.";
+		ServerStatsTotals totals = CloudFoundryPlugin.getStatsAggregator().getTotals(cloudServer);
+		if (totals.getInstanceCount() > 0) {
+			description = NLS.bind("{0} Instances with known usage: {1}% CPU, {2}", new Object[] { description,
+					formatCpu(totals.getTotalCpu()), formatMemory(totals.getTotalMemory()) });
+		}
+		if (!description.equals(section.getDescription())) {
+			section.setDescription(description);
+			section.layout(true);
+		}
+	}
+
+	private static String formatCpu(double cpu) {
+		return String.valueOf(Math.round(cpu * 10) / 10.0);
+	}
+
+	private static String formatMemory(double bytes) {
+		return String.valueOf(Math.round(bytes * 10 / (1024 * 1024)) / 10.0) + "M";
+	}
+
 	private class ApplicationViewersDropAdapter extends ServersViewDropAdapter {
 
 		public ApplicationViewersDropAdapter(Viewer viewer) {
@@ -208,8 +274,26 @@ public class ApplicationMasterPart extends SectionPart {
 		ToolBarManager toolBarManager = new ToolBarManager(SWT.FLAT);
 		toolBarManager.createControl(headerComposite);
 
-		applicationsViewer = new TableViewer(toolkit.createTable(client, SWT.NONE));
-		applicationsViewer.setContentProvider(new TreeContentProvider());
+		// Only create and label the rows of visible applications, as a space
+		// may have many applications
+		applicationsViewer = new TableViewer(toolkit.createTable(client, SWT.VIRTUAL));
+		applicationsContentProvider = new LazyTableContentProvider(applicationsViewer, new CloudFoundryViewerSorter()) {
+			@Override
+			protected String getKey(Object element) {
+				return ((IModule) element).getId();
+			}
+
+			@Override
+			protected String getSignature(Object element) {
+				// Values shown by the label and image of the application
+				IModule module = (IModule) element;
+				ApplicationModule appModule = editorPage.getCloudServer().getApplication(module);
+				return module.getName() + '\n' + appModule.getState() + '\n' + appModule.getPublishState() + '\n'
+						+ appModule.getInstanceCount() + '\n' + (appModule.getErrorMessage() != null) + '\n'
+						+ getUsageText(module);
+			}
+		};
+		applicationsViewer.setContentProvider(applicationsContentProvider);
 		applicationsViewer.setLabelProvider(new ServerLabelProvider() {
 			@Override
 			public Image getImage(Object element) {
@@ -226,9 +310,39 @@ public class ApplicationMasterPart extends SectionPart {
 
 				return image;
 			}
+
+			@Override
+			public String getText(Object element) {
+				String text = super.getText(element);
+				if (element instanceof IModule) {
+					String usage = getUsageText((IModule) element);
+					if (usage != null) {
+						text = NLS.bind("{0} ({1})", text, usage);
+					}
+				}
+				return text;
+			}
 		});
-		applicationsViewer.setInput(new CloudApplication[0]);
-		applicationsViewer.setSorter(new CloudFoundryViewerSorter());
+		applicationsViewer.setInput(cloudServer);
+
+		// Show the usage of applications as their stats are fetched. Only the
+		// rows of applications whose usage changed are labelled again.
+		statsListener = new IStatsAggregateListener() {
+			public void statsAggregated(String serverId, String appName, ApplicationStatsAggregate aggregate) {
+				if (!serverId.equals(cloudServer.getServerId())) {
+					return;
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						if (!applicationsViewer.getTable().isDisposed()) {
+							applicationsContentProvider.setElements(applicationsContentProvider.getElements());
+							updateStatsTotals();
+						}
+					}
+				});
+			}
+		};
+		CloudFoundryPlugin.getStatsAggregator().addListener(statsListener);
 
 		applicationsViewer.addSelectionChangedListener(new ISelectionChangedListener() {
 
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.cloudfoundry.ide.eclipse.internal.server.ui.editor;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
@@ -29,6 +30,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.dialogs.IMessageProvider;
@@ -61,7 +63,9 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 
 	private ServerListener serverListener;
 
-	private List<CloudService> services;
+	private final EditorRefreshJob refreshJob = new EditorRefreshJob();
+
+	private volatile List<CloudService> services;
 
 	private ScrolledForm sform;
 
@@ -93,6 +97,7 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 	public void dispose() {
 		CloudFoundryPlugin.getDefault().removeServerListener(serverListener);
 		getServer().getOriginal().removeServerListener(serverListener);
+		refreshJob.cancel();
 
 		if (mform != null) {
 			mform.dispose();
@@ -215,37 +220,121 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 	private class ServerListener implements CloudServerListener, IServerListener {
 		public void serverChanged(final CloudServerEvent event) {
 			if (event.getType() == CloudServerEvent.EVENT_UPDATE_SERVICES) {
-				// refresh services
-				try {
-					setServices(cloudServer.getBehaviour().getServices(null));
-				}
-				catch (CoreException e) {
-					// FIXME: error handling
-				}
+				// Services are fetched in the background, and the editor
+				// only refreshed if they changed
+				refreshJob.refresh(null, true);
 			}
-			
-			// ignore EVENT_UPDATE_INSTANCES as refresh will be called after instances are updated
-			if (event.getType() != CloudServerEvent.EVENT_UPDATE_INSTANCES) {
-				refresh();
+			// ignore EVENT_UPDATE_INSTANCES as refresh will be called after
+			// instances are updated
+			else if (event.getType() != CloudServerEvent.EVENT_UPDATE_INSTANCES) {
+				refreshJob.refresh(RefreshArea.ALL, false);
 			}
 		}
 
 		public void serverChanged(ServerEvent event) {
 			// refresh when server is saved, e.g. due to add/remove of modules 
 			if (event.getKind() == ServerEvent.SERVER_CHANGE) {
-				refresh();	
+				refreshJob.refresh(RefreshArea.ALL, false);
 			}
 		}
+	}
 
-		private void refresh() {
-			Display.getDefault().asyncExec(new Runnable() {
-				public void run() {
-					if (mform != null && mform.getForm() != null
-							&& !mform.getForm().isDisposed()) {
-						masterDetailsBlock.refreshUI(RefreshArea.ALL);
+	/**
+	 * Refreshes the editor in response to server events. Events received
+	 * within a short delay, or while a refresh is running, are merged into one
+	 * refresh, so that a burst of events results in one services fetch and
+	 * one UI update. The services are fetched in the background, and the UI
+	 * is only updated if the services or the editor state changed.
+	 */
+	private class EditorRefreshJob extends Job {
+
+		private static final long DELAY = 200;
+
+		private RefreshArea pendingArea;
+
+		private boolean pendingServicesUpdate;
+
+		public EditorRefreshJob() {
+			super("Refreshing applications editor");
+			setSystem(true);
+		}
+
+		/**
+		 * 
+		 * @param area area of the editor to refresh, or null if only services
+		 * need to be fetched
+		 * @param updateServices true if services should be fetched again
+		 */
+		public synchronized void refresh(RefreshArea area, boolean updateServices) {
+			if (area != null) {
+				pendingArea = pendingArea == null || pendingArea == area ? area : RefreshArea.ALL;
+			}
+			pendingServicesUpdate |= updateServices;
+			schedule(DELAY);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			RefreshArea area;
+			boolean updateServices;
+			synchronized (this) {
+				area = pendingArea;
+				updateServices = pendingServicesUpdate;
+				pendingArea = null;
+				pendingServicesUpdate = false;
+			}
+
+			List<CloudService> changedServices = null;
+			if (updateServices && cloudServer != null) {
+				try {
+					// The same list is returned if the services did not change
+					List<CloudService> updatedServices = cloudServer.getBehaviour().getServices(monitor);
+					if (updatedServices != services
+							&& !getServiceKeys(updatedServices).equals(getServiceKeys(services))) {
+						changedServices = updatedServices;
+
+						// Services are shown in both master and details
+						area = RefreshArea.ALL;
+					}
+				}
+				catch (CoreException e) {
+					// FIXME: error handling
+				}
+			}
+
+			if (area != null && !monitor.isCanceled()) {
+				final RefreshArea uiArea = area;
+				final List<CloudService> uiServices = changedServices;
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						// Services are only replaced in the UI thread, where
+						// the master and details parts read them
+						if (uiServices != null) {
+							setServices(uiServices);
+						}
+						if (mform != null && mform.getForm() != null && !mform.getForm().isDisposed()) {
+							masterDetailsBlock.refreshUI(uiArea);
+						}
 					}
+				});
+			}
+			return Status.OK_STATUS;
+		}
+
+		/**
+		 * 
+		 * @return attributes shown in the editor for each service, to detect
+		 * changes to the services
+		 */
+		protected List<String> getServiceKeys(List<CloudService> services) {
+			List<String> keys = new ArrayList<String>();
+			if (services != null) {
+				for (CloudService service : services) {
+					keys.add(service.getName() + "/" + service.getVendor() + "/" + service.getVersion() + "/"
+							+ service.getTier() + "/" + service.getPlan());
 				}
-			});
+			}
+			return keys;
 		}
 	}
 
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 VMware, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.cloudfoundry.ide.eclipse.internal.server.ui.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerSorter;
+import org.eclipse.swt.widgets.Table;
+
+/**
+ * Content provider for tables created with SWT.VIRTUAL, so that only visible
+ * rows are created and labelled.
+ * <p/>
+ * Elements are set with {@link #setElements(Object[])} rather than as viewer
+ * input. Elements are matched to the rows already shown by key, and only the
+ * rows whose element changed are labelled again, when they become visible.
+ * Rows whose element did not change keep their current element. Elements are
+ * sorted by the content provider, as a virtual table viewer does not sort.
+ */
+public abstract class LazyTableContentProvider implements ILazyContentProvider {
+
+	private final TableViewer viewer;
+
+	private final ViewerSorter sorter;
+
+	private Object[] elements = new Object[0];
+
+	private String[] signatures = new String[0];
+
+	/**
+	 *
+	 * @param viewer viewer of a table created with SWT.VIRTUAL
+	 * @param sorter optional sorter for the elements. May be null.
+	 */
+	public LazyTableContentProvider(TableViewer viewer, ViewerSorter sorter) {
+		this.viewer = viewer;
+		this.sorter = sorter;
+	}
+
+	/**
+	 *
+	 * @param element
+	 * @return key that identifies the given element across updates, like an
+	 * application name or instance index
+	 */
+	abstract protected String getKey(Object element);
+
+	/**
+	 *
+	 * @param element
+	 * @return value that changes when the row of the given element must be
+	 * labelled again, built from the model values shown in the row, like an
+	 * application state or instance stats. It must not be built with the
+	 * label provider, as that would label every row on each update.
+	 */
+	abstract protected String getSignature(Object element);
+
+	public Object[] getElements() {
+		return elements;
+	}
+
+	/**
+	 * Shows the given elements, only labelling again the rows that changed.
+	 * The selection is kept if the selected elements are still shown.
+	 * @param newElements elements to show. May be null.
+	 */
+	public void setElements(Object[] newElements) {
+		Object[] sortedElements = newElements != null ? newElements.clone() : new Object[0];
+		if (sorter != null) {
+			Arrays.sort(sortedElements, new Comparator<Object>() {
+				public int compare(Object e1, Object e2) {
+					return sorter.compare(viewer, e1, e2);
+				}
+			});
+		}
+
+		Map<String, Integer> oldIndices = new HashMap<String, Integer>();
+		for (int i = 0; i < elements.length; i++) {
+			oldIndices.put(getKey(elements[i]), i);
+		}
+
+		Table table = viewer.getTable();
+		List<String> selectedKeys = new ArrayList<String>();
+		for (int index : table.getSelectionIndices()) {
+			if (index < elements.length) {
+				selectedKeys.add(getKey(elements[index]));
+			}
+		}
+
+		String[] newSignatures = new String[sortedElements.length];
+		List<Integer> changedRows = new ArrayList<Integer>();
+		boolean rowsMoved = sortedElements.length != elements.length;
+		for (int i = 0; i < sortedElements.length; i++) {
+			Integer oldIndex = oldIndices.get(getKey(sortedElements[i]));
+			newSignatures[i] = getSignature(sortedElements[i]);
+			if (oldIndex == null || oldIndex.intValue() != i) {
+				rowsMoved = true;
+				changedRows.add(i);
+			}
+			else if (newSignatures[i].equals(signatures[i])) {
+				// Unchanged, keep the element shown in the row
+				sortedElements[i] = elements[i];
+			}
+			else {
+				changedRows.add(i);
+			}
+		}
+
+		elements = sortedElements;
+		signatures = newSignatures;
+
+		if (rowsMoved) {
+			table.setItemCount(elements.length);
+			table.deselectAll();
+		}
+		for (int row : changedRows) {
+			table.clear(row);
+		}
+
+		if (rowsMoved && !selectedKeys.isEmpty()) {
+			// Restore the selection, materializing the selected rows so that
+			// they are part of the viewer selection
+			for (int i = 0; i < elements.length; i++) {
+				if (selectedKeys.contains(getKey(elements[i]))) {
+					viewer.replace(elements[i], i);
+					table.select(i);
+				}
+			}
+		}
+	}
+
+	public void updateElement(int index) {
+		if (index < elements.length) {
+			viewer.replace(elements[index], index);
+		}
+	}
+
+	public void dispose() {
+	}
+
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		// Elements are not obtained from the viewer input
+	}
+
+}
@@ -19,7 +19,9 @@ import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelBehaviour;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.CaldecottTunnelDescriptor;
+import org.cloudfoundry.ide.eclipse.internal.server.core.tunnel.TunnelMetrics;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudFoundryImages;
+import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudUiUtil;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.IMenuListener;
@@ -34,6 +36,7 @@ import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.Clipboard;
 import org.eclipse.swt.dnd.TextTransfer;
@@ -66,7 +69,8 @@ public class TunnelDisplayPart {
 	}
 
 	enum ViewColumn {
-		ServiceName(100), Vendor(100), Name(100), UserName(100), Password(100), Port(50);
+		ServiceName(100), Vendor(100), Name(100), UserName(100), Password(100), Port(50), Connections(80), Sent(80),
+		Received(80), Latency(110);
 		private int width;
 
 		private ViewColumn(int width) {
@@ -275,6 +279,12 @@ public class TunnelDisplayPart {
 					case Name:
 						result = descriptor.getDatabaseName();
 						break;
+					case Connections:
+					case Sent:
+					case Received:
+					case Latency:
+						result = getMetricsText(descriptor, serviceColumn);
+						break;
 					}
 				}
 			}
@@ -283,6 +293,42 @@ public class TunnelDisplayPart {
 
 	}
 
+	/**
+	 * Traffic counters are read from the tunnel cache each time the table is
+	 * refreshed.
+	 */
+	protected String getMetricsText(CaldecottTunnelDescriptor descriptor, ViewColumn column) {
+		TunnelMetrics metrics = CloudFoundryPlugin.getCaldecottTunnelCache().getMetrics(cloudServer,
+				descriptor.getServiceName());
+		if (metrics == null) {
+			return "-";
+		}
+		switch (column) {
+		case Connections:
+			return NLS.bind("{0} ({1} total)", metrics.getOpenConnections(), metrics.getTotalConnections());
+		case Sent:
+			return CloudUiUtil.getSizeText(metrics.getBytesSent());
+		case Received:
+			return CloudUiUtil.getSizeText(metrics.getBytesReceived());
+		case Latency:
+			long median = metrics.getLatencyPercentile(50);
+			if (median == -1) {
+				return "-";
+			}
+			return NLS.bind("p50 {0}, p95 {1}", getLatencyText(median),
+					getLatencyText(metrics.getLatencyPercentile(95)));
+		}
+		return null;
+	}
+
+	private static String getLatencyText(long millis) {
+		if (millis == Long.MAX_VALUE) {
+			long[] bounds = TunnelMetrics.LATENCY_BUCKET_BOUNDS;
+			return "> " + bounds[bounds.length - 1] + " ms";
+		}
+		return "<= " + millis + " ms";
+	}
+
 	protected List<CaldecottTunnelDescriptor> getSelectedCaldecotTunnelDescriptors() {
 		IStructuredSelection selection = (IStructuredSelection) servicesViewer.getSelection();
 		List<CaldecottTunnelDescriptor> descriptors = new ArrayList<CaldecottTunnelDescriptor>();
@@ -331,6 +377,12 @@ public class TunnelDisplayPart {
 			}
 		}
 
+		actions.add(new Action("Refresh Statistics", CloudFoundryImages.REFRESH) {
+			public void run() {
+				servicesViewer.refresh();
+			}
+		});
+
 		return actions;
 	}
 
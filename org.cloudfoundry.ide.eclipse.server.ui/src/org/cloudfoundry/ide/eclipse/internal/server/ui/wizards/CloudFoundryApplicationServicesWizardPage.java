@@ -21,6 +21,7 @@ import org.cloudfoundry.client.lib.domain.CloudService;
 import org.cloudfoundry.client.lib.domain.DeploymentInfo;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
 import org.cloudfoundry.ide.eclipse.internal.server.core.TunnelBehaviour;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.CloudFoundryImages;
 import org.cloudfoundry.ide.eclipse.internal.server.ui.editor.TreeContentProvider;
@@ -30,6 +31,8 @@ import org.cloudfoundry.ide.eclipse.internal.server.ui.editor.ServiceViewerSorte
 import org.cloudfoundry.ide.eclipse.internal.server.ui.editor.ServicesTreeLabelProvider;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ToolBarManager;
 import org.eclipse.jface.layout.GridDataFactory;
@@ -44,6 +47,7 @@ import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.ToolBar;
@@ -237,23 +241,66 @@ public class CloudFoundryApplicationServicesWizardPage extends WizardPage {
 	}
 
 	protected void setInput() {
-		List<CloudService> existingServices = null;
-
-		try {
-			existingServices = cloudServer.getBehaviour().getServices(new NullProgressMonitor());
+		// Open with the prefetched services, if any, and check them in the
+		// background rather than waiting for the server
+		List<CloudService> existingServices = CloudFoundryPlugin.getDeploymentPrefetcher().getCache()
+				.getServices(cloudServer.getServerId());
+		if (existingServices != null) {
+			validateServices(existingServices);
 		}
-		catch (CoreException e) {
-			setErrorText("Unable to obtain current list of messages due to: " + e.getLocalizedMessage());
+		else {
+			try {
+				existingServices = cloudServer.getBehaviour().getServices(new NullProgressMonitor());
+			}
+			catch (CoreException e) {
+				setErrorText("Unable to obtain current list of messages due to: " + e.getLocalizedMessage());
+			}
 		}
 
+		setExistingServices(existingServices);
+	}
+
+	/**
+	 * Fetches the services again in the background, and shows them if they
+	 * changed since they were prefetched.
+	 * @param existingServices services currently shown
+	 */
+	protected void validateServices(final List<CloudService> existingServices) {
+		CloudFoundryPlugin.getDeploymentPrefetcher().prefetch(cloudServer, new JobChangeAdapter() {
+			@Override
+			public void done(IJobChangeEvent event) {
+				if (!event.getResult().isOK()) {
+					return;
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						if (servicesViewer.getControl().isDisposed()) {
+							return;
+						}
+						// The behaviour returns the same list if the services
+						// did not change
+						List<CloudService> updatedServices = CloudFoundryPlugin.getDeploymentPrefetcher().getCache()
+								.getServices(cloudServer.getServerId());
+						if (updatedServices != null && updatedServices != existingServices) {
+							setExistingServices(updatedServices);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	protected void setExistingServices(List<CloudService> existingServices) {
 		if (existingServices == null) {
 			servicesViewer.setInput(NO_SERVICES);
 		}
 		else {
 
-			// All available services should be displayed
+			// All available services should be displayed, including the ones
+			// added in this wizard
 			allServices.clear();
 			allServices.addAll(existingServices);
+			allServices.addAll(servicesToAdd);
 			servicesViewer.setInput(allServices.toArray(new CloudService[] {}));
 			// Also add any actual services to the selected services ID map as
 			// the map may have been prepopulated
@@ -12,12 +12,14 @@ package org.cloudfoundry.ide.eclipse.internal.server.ui.wizards;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.DeploymentInfo;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationAction;
 import org.cloudfoundry.ide.eclipse.internal.server.core.ApplicationModule;
+import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryPlugin;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudFoundryServer;
 import org.cloudfoundry.ide.eclipse.internal.server.core.CloudUtil;
 import org.cloudfoundry.ide.eclipse.internal.server.core.DeploymentConfiguration;
@@ -34,6 +36,8 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.dialogs.IMessageProvider;
 import org.eclipse.jface.layout.GridDataFactory;
 import org.eclipse.jface.layout.GridLayoutFactory;
@@ -168,23 +172,86 @@ public class CloudFoundryDeploymentWizardPage extends WizardPage implements ISta
 	}
 
 	protected void refresh() {
-		if (updateConfiguration()) {
-			memoryCombo.removeAll();
-			for (int option : deploymentConfiguration.getMemoryOptions()) {
-				memoryCombo.add(option + "M");
-				if (option == deploymentConfiguration.getDefaultMemory()) {
-					int index = memoryCombo.getItemCount() - 1;
-					memoryCombo.setItem(index, option + "M (Default)");
-					memoryCombo.select(index);
-					memory = option;
+		// Open with the prefetched configuration, if any, and check it in the
+		// background rather than waiting for the server
+		DeploymentConfiguration cachedConfiguration = CloudFoundryPlugin.getDeploymentPrefetcher().getCache()
+				.getDeploymentConfiguration(server.getServerId(), CloudUtil.DEFAULT_FRAMEWORK);
+		if (cachedConfiguration != null) {
+			deploymentConfiguration = cachedConfiguration;
+			updateMemoryOptions(false);
+			validateConfiguration();
+		}
+		else if (updateConfiguration()) {
+			updateMemoryOptions(false);
+		}
+	}
+
+	/**
+	 * 
+	 * @param keepSelection true if the selected memory should be kept, if it
+	 * is still an option. Otherwise the default memory is selected, or the
+	 * first option if the default is not an option.
+	 */
+	protected void updateMemoryOptions(boolean keepSelection) {
+		int[] memoryOptions = deploymentConfiguration.getMemoryOptions();
+		int defaultMemory = deploymentConfiguration.getDefaultMemory();
+		int selectedMemory = keepSelection ? memory : 0;
+		if (!contains(memoryOptions, selectedMemory) && memoryOptions.length > 0) {
+			selectedMemory = contains(memoryOptions, defaultMemory) ? defaultMemory : memoryOptions[0];
+		}
+		memoryCombo.removeAll();
+		for (int option : memoryOptions) {
+			memoryCombo.add(option == defaultMemory ? option + "M (Default)" : option + "M");
+			if (option == selectedMemory) {
+				memoryCombo.select(memoryCombo.getItemCount() - 1);
+				memory = option;
+			}
+		}
+		memoryCombo.setEnabled(true);
+	}
+
+	/**
+	 * Fetches the deployment configuration again in the background, and
+	 * updates the memory options if they changed since the configuration was
+	 * prefetched.
+	 */
+	protected void validateConfiguration() {
+		CloudFoundryPlugin.getDeploymentPrefetcher().prefetch(server, new JobChangeAdapter() {
+			@Override
+			public void done(IJobChangeEvent event) {
+				if (!event.getResult().isOK()) {
+					return;
 				}
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						if (memoryCombo == null || memoryCombo.isDisposed()) {
+							return;
+						}
+						DeploymentConfiguration configuration = CloudFoundryPlugin.getDeploymentPrefetcher()
+								.getCache().getDeploymentConfiguration(server.getServerId(),
+										CloudUtil.DEFAULT_FRAMEWORK);
+						if (configuration != null && !hasSameOptions(configuration, deploymentConfiguration)) {
+							deploymentConfiguration = configuration;
+							updateMemoryOptions(true);
+						}
+					}
+				});
 			}
-			if (memory == 0 && deploymentConfiguration.getMemoryOptions().length > 0) {
-				memoryCombo.select(0);
-				memory = deploymentConfiguration.getMemoryOptions()[0];
+		});
+	}
+
+	private static boolean contains(int[] values, int value) {
+		for (int element : values) {
+			if (element == value) {
+				return true;
 			}
-			memoryCombo.setEnabled(true);
 		}
+		return false;
+	}
+
+	protected boolean hasSameOptions(DeploymentConfiguration configuration1, DeploymentConfiguration configuration2) {
+		return configuration1.getDefaultMemory() == configuration2.getDefaultMemory()
+				&& Arrays.equals(configuration1.getMemoryOptions(), configuration2.getMemoryOptions());
 	}
 
 	protected Point getRunDebugControlIndentation() {